@@ -1,6 +1,8 @@
 plugins {
     id("java")
+    id("application")
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.github.softwaresale"
@@ -12,29 +14,46 @@ repositories {
 }
 
 dependencies {
-    // logging
-    implementation("org.slf4j:slf4j-api:2.0.7")
-    implementation("org.slf4j:slf4j-simple:2.0.7")
-
     // serialization
     implementation("com.fasterxml.jackson.core:jackson-databind:2.17.2")
 
+    // reads class files for the offline bytecode scanner
+    implementation("org.ow2.asm:asm:9.7.1")
+
     // used to locate our annotation processor
     implementation("com.google.auto.service:auto-service:1.1.1")
     annotationProcessor("com.google.auto.service:auto-service:1.1.1")
 
-    // spring web MVC annotations (TODO this mega bloats my artifact)
-    implementation("org.springframework:spring-webmvc:6.1.14")
+    // spring annotations are matched by name, so spring is only needed to compile controllers in tests and benchmarks
+    testImplementation("org.springframework:spring-web:6.1.14")
+    // response wrappers from spring mvc and reactor, which tests use as handler return types
+    testImplementation("org.springframework:spring-webmvc:6.1.14")
+    testImplementation("io.projectreactor:reactor-core:3.6.11")
+    jmh("org.springframework:spring-web:6.1.14")
 
     // tests
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
+// the offline bytecode scanner. ./gradlew installDist puts a launcher in build/install/client-spec/bin
+application {
+    mainClass.set("com.github.softwaresale.clientspec.bytecode.SpecScannerCli")
+}
+
 tasks.test {
     useJUnitPlatform()
 }
 
+// processor benchmarks. Run with ./gradlew jmh, or pass -Pjmh.includes=<regex> to run a subset
+jmh {
+    jmhVersion.set("1.37")
+    // allocation rates matter as much as throughput for an annotation processor
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    (project.findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
+
 publishing {
     publications {
         create<MavenPublication>("maven") {
@@ -0,0 +1,46 @@
+plugins {
+    id("java-library")
+    id("maven-publish")
+}
+
+group = "com.github.softwaresale"
+version = "1.0-SNAPSHOT"
+
+repositories {
+    mavenCentral()
+    mavenLocal()
+}
+
+// tests run without an application, so they need everything it would bring
+configurations.testImplementation {
+    extendsFrom(configurations.compileOnly.get())
+}
+
+dependencies {
+    // the application brings spring boot, spring mvc, jackson, and slf4j, so we only compile against them
+    compileOnly("org.springframework.boot:spring-boot-autoconfigure:3.3.5")
+    compileOnly("org.springframework:spring-webmvc:6.1.14")
+    compileOnly("jakarta.servlet:jakarta.servlet-api:6.0.0")
+    compileOnly("com.fasterxml.jackson.core:jackson-databind:2.17.2")
+    compileOnly("org.slf4j:slf4j-api:2.0.7")
+
+    // tests
+    testImplementation(platform("org.junit:junit-bom:5.10.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+publishing {
+    publications {
+        create<MavenPublication>("maven") {
+            groupId = project.group.toString()
+            artifactId = "client-spec-runtime"
+            version = project.version.toString()
+
+            from(components["java"])
+        }
+    }
+}
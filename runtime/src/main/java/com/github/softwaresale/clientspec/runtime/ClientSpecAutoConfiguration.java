@@ -0,0 +1,67 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnResource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serves the spec that the processor embedded with {@code -Aclientspec.embed=true}. Only applies to servlet
+ * applications that actually have an embedded spec. The OpenAPI document is served as well if it was embedded.
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "clientspec", name = "enabled", matchIfMissing = true)
+@ConditionalOnResource(resources = "${clientspec.location:classpath:META-INF/client-spec/api-spec.json}")
+@EnableConfigurationProperties(ClientSpecProperties.class)
+public class ClientSpecAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ClientSpecDocument clientSpecDocument(ClientSpecProperties properties, ResourceLoader resourceLoader) {
+        Resource resource = resourceLoader.getResource(properties.getLocation());
+        // the spec is not read with the application's mapper, as its settings don't matter for a tree
+        try (InputStream inputStream = resource.getInputStream()) {
+            return ClientSpecDocument.read(inputStream, new ObjectMapper());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Bean
+    public ClientSpecController clientSpecController(ClientSpecDocument document) {
+        return new ClientSpecController(document);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "clientspec", name = "drift-check", matchIfMissing = true)
+    public ClientSpecDriftChecker clientSpecDriftChecker(ClientSpecDocument document, ClientSpecProperties properties) {
+        return new ClientSpecDriftChecker(document, properties);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnResource(resources = "${clientspec.openapi-location:classpath:META-INF/client-spec/openapi.json}")
+    static class OpenApiConfiguration {
+
+        @Bean
+        public ClientSpecOpenApiController clientSpecOpenApiController(ClientSpecProperties properties, ResourceLoader resourceLoader) {
+            // the document is not a bean of its own, so that the spec can still be injected by type
+            Resource resource = resourceLoader.getResource(properties.getOpenapiLocation());
+            try (InputStream inputStream = resource.getInputStream()) {
+                return new ClientSpecOpenApiController(ClientSpecDocument.read(inputStream, new ObjectMapper()));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the embedded spec. Everything in the response is computed when the spec is loaded, so a request only has to
+ * pick an encoding and compare entity tags.
+ */
+@RestController
+public class ClientSpecController {
+
+    private final ClientSpecDocument document;
+
+    public ClientSpecController(ClientSpecDocument document) {
+        this.document = document;
+    }
+
+    @GetMapping(path = "${clientspec.path:/client-spec}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getSpec(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return respond(document, acceptEncoding, ifNoneMatch);
+    }
+
+    /**
+     * Build the response for a document, picking an encoding and honouring {@code If-None-Match}
+     */
+    static ResponseEntity<byte[]> respond(ClientSpecDocument document, String acceptEncoding, String ifNoneMatch) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? document.gzipETag() : document.etag();
+
+        boolean notModified = matches(ifNoneMatch, etag);
+
+        // the spec can only change with a deploy, but clients should still revalidate
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (notModified) {
+            return builder.build();
+        }
+
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.gzipBytes());
+        }
+
+        return builder.body(document.bytes());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 explicitly refuses gzip
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // weak comparison, as If-None-Match calls for
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
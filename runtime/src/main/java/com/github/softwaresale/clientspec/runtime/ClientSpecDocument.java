@@ -0,0 +1,94 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The spec embedded at compile time, loaded once. Holds the raw bytes, a gzip copy of them, and the entity tags for
+ * both, so that serving the spec never has to serialize or compress anything.
+ */
+public class ClientSpecDocument {
+
+    private final JsonNode spec;
+    private final String hash;
+    private final byte[] bytes;
+    private final byte[] gzipBytes;
+    private final String etag;
+    private final String gzipETag;
+
+    private ClientSpecDocument(JsonNode spec, String hash, byte[] bytes, byte[] gzipBytes) {
+        this.spec = spec;
+        this.hash = hash;
+        this.bytes = bytes;
+        this.gzipBytes = gzipBytes;
+        // the encodings have different bytes, so they each need their own strong tag
+        this.etag = "\"" + hash + "\"";
+        this.gzipETag = "\"" + hash + "-gzip\"";
+    }
+
+    /**
+     * Read a spec written by the processor
+     * @param inputStream the spec
+     * @param om object mapper to parse the spec with
+     * @return the loaded document
+     */
+    public static ClientSpecDocument read(InputStream inputStream, ObjectMapper om) {
+        try {
+            byte[] bytes = inputStream.readAllBytes();
+            JsonNode spec = om.readTree(bytes);
+            // specs written before content hashing don't carry one, so fall back to hashing the bytes
+            String hash = spec.hasNonNull("hash") ? spec.get("hash").asText() : sha256(bytes);
+            return new ClientSpecDocument(spec, hash, bytes, gzip(bytes));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream)) {
+            gzipStream.write(bytes);
+        }
+        return outputStream.toByteArray();
+    }
+
+    public JsonNode spec() {
+        return spec;
+    }
+
+    public String hash() {
+        return hash;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public byte[] gzipBytes() {
+        return gzipBytes;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    public String gzipETag() {
+        return gzipETag;
+    }
+}
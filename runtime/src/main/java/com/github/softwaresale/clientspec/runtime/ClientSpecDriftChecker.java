@@ -0,0 +1,179 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Checks that the embedded spec still describes the application once it has started. Both sides are reduced to a
+ * sorted set of {@code METHOD /path} routes with variable names erased, and only the digests of the two sets are
+ * compared unless they differ.
+ */
+public class ClientSpecDriftChecker implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientSpecDriftChecker.class);
+
+    private final ClientSpecDocument document;
+    private final ClientSpecProperties properties;
+
+    public ClientSpecDriftChecker(ClientSpecDocument document, ClientSpecProperties properties) {
+        this.document = document;
+        this.properties = properties;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // look up by name, as actuator and others register more than one RequestMappingHandlerMapping
+        Object mapping = event.getApplicationContext().getBean("requestMappingHandlerMapping");
+        if (!(mapping instanceof RequestMappingHandlerMapping handlerMapping)) {
+            logger.debug("no request mapping handler mapping, skipping drift check");
+            return;
+        }
+
+        SortedSet<String> specRoutes = specRoutes(document.spec());
+        SortedSet<String> runtimeRoutes = runtimeRoutes(handlerMapping);
+        if (digest(specRoutes).equals(digest(runtimeRoutes))) {
+            logger.debug("client spec {} matches {} registered routes", document.hash(), runtimeRoutes.size());
+            return;
+        }
+
+        SortedSet<String> missing = new TreeSet<>(specRoutes);
+        missing.removeAll(runtimeRoutes);
+        SortedSet<String> unlisted = new TreeSet<>(runtimeRoutes);
+        unlisted.removeAll(specRoutes);
+
+        String message = String.format("client spec %s has drifted from the application. In the spec but not registered: %s. Registered but not in the spec: %s",
+                document.hash(), missing, unlisted);
+        if (properties.isFailOnDrift()) {
+            throw new IllegalStateException(message);
+        }
+
+        logger.warn(message);
+    }
+
+    /**
+     * Get the routes described by the spec
+     */
+    static SortedSet<String> specRoutes(JsonNode spec) {
+        SortedSet<String> routes = new TreeSet<>();
+        for (JsonNode service : spec.path("services")) {
+            for (JsonNode endpoint : service.path("endpoints")) {
+                StringBuilder path = new StringBuilder();
+                for (JsonNode segment : endpoint.path("segments")) {
+                    switch (segment.path("kind").asText()) {
+                        case "LITERAL" -> path.append(segment.path("value").asText());
+                        case "CATCH_ALL" -> path.append("{*}");
+                        default -> path.append("{}");
+                    }
+                }
+
+                routes.add(endpoint.path("method").asText() + " " + normalizePath(path.toString()));
+            }
+        }
+
+        return routes;
+    }
+
+    /**
+     * Get the routes registered by rest controllers, skipping our own
+     */
+    static SortedSet<String> runtimeRoutes(RequestMappingHandlerMapping handlerMapping) {
+        SortedSet<String> routes = new TreeSet<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            Class<?> beanType = entry.getValue().getBeanType();
+            if (beanType == ClientSpecController.class || !AnnotatedElementUtils.hasAnnotation(beanType, RestController.class)) {
+                continue;
+            }
+
+            RequestMappingInfo info = entry.getKey();
+            // the processor skips handlers without a method, so they can't be in the spec either
+            for (RequestMethod method : info.getMethodsCondition().getMethods()) {
+                for (String pattern : info.getPatternValues()) {
+                    routes.add(method.name() + " " + normalizePath(erasePathVariables(pattern)));
+                }
+            }
+        }
+
+        return routes;
+    }
+
+    /**
+     * Replace every variable in a spring path pattern with {@code {}}, or {@code {*}} for ones that match the rest of
+     * the path
+     */
+    static String erasePathVariables(String pattern) {
+        StringBuilder erased = new StringBuilder(pattern.length());
+        int i = 0;
+        while (i < pattern.length()) {
+            char current = pattern.charAt(i);
+            if (current == '{') {
+                // variable regexes can contain braces of their own
+                int depth = 1;
+                int end = i + 1;
+                while (end < pattern.length() && depth > 0) {
+                    char next = pattern.charAt(end);
+                    if (next == '\\') {
+                        end++;
+                    } else if (next == '{') {
+                        depth++;
+                    } else if (next == '}') {
+                        depth--;
+                    }
+                    end++;
+                }
+
+                erased.append(i + 1 < pattern.length() && pattern.charAt(i + 1) == '*' ? "{*}" : "{}");
+                i = end;
+            } else if (pattern.startsWith("**", i)) {
+                erased.append("{*}");
+                i += 2;
+            } else {
+                erased.append(current);
+                i++;
+            }
+        }
+
+        return erased.toString();
+    }
+
+    /**
+     * Make sure a path has exactly one leading slash, no repeated slashes, and no trailing slash
+     */
+    static String normalizePath(String path) {
+        String normalized = ("/" + path).replaceAll("/{2,}", "/");
+        if (normalized.length() > 1 && normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+
+        return normalized;
+    }
+
+    private static String digest(SortedSet<String> routes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String route : routes) {
+                digest.update(route.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+
+            return new String(digest.digest(), StandardCharsets.ISO_8859_1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
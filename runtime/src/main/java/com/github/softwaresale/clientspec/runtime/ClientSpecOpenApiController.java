@@ -0,0 +1,28 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the OpenAPI document written at compile time, in place of one built by scanning handlers at startup.
+ */
+@RestController
+public class ClientSpecOpenApiController {
+
+    private final ClientSpecDocument document;
+
+    public ClientSpecOpenApiController(ClientSpecDocument document) {
+        this.document = document;
+    }
+
+    @GetMapping(path = "${clientspec.openapi-path:/v3/api-docs}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getOpenApi(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ClientSpecController.respond(document, acceptEncoding, ifNoneMatch);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configures the runtime spec endpoint. Bound from {@code clientspec.*}
+ */
+@ConfigurationProperties("clientspec")
+public class ClientSpecProperties {
+
+    /** if the spec endpoint should be registered at all */
+    private boolean enabled = true;
+    /** the path the spec is served from */
+    private String path = "/client-spec";
+    /** where the spec embedded by the processor lives */
+    private String location = "classpath:META-INF/client-spec/api-spec.json";
+    /** the path the OpenAPI document is served from. The same as springdoc's, so existing tooling keeps working */
+    private String openapiPath = "/v3/api-docs";
+    /** where the OpenAPI document embedded by the processor lives */
+    private String openapiLocation = "classpath:META-INF/client-spec/openapi.json";
+    /** if the spec should be compared against the registered handler mappings at startup */
+    private boolean driftCheck = true;
+    /** if drift should fail startup instead of logging a warning */
+    private boolean failOnDrift = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public String getOpenapiPath() {
+        return openapiPath;
+    }
+
+    public void setOpenapiPath(String openapiPath) {
+        this.openapiPath = openapiPath;
+    }
+
+    public String getOpenapiLocation() {
+        return openapiLocation;
+    }
+
+    public void setOpenapiLocation(String openapiLocation) {
+        this.openapiLocation = openapiLocation;
+    }
+
+    public boolean isDriftCheck() {
+        return driftCheck;
+    }
+
+    public void setDriftCheck(boolean driftCheck) {
+        this.driftCheck = driftCheck;
+    }
+
+    public boolean isFailOnDrift() {
+        return failOnDrift;
+    }
+
+    public void setFailOnDrift(boolean failOnDrift) {
+        this.failOnDrift = failOnDrift;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientSpecControllerTest {
+
+    private final ClientSpecDocument document = ClientSpecDocument.read(
+            new ByteArrayInputStream("{\"name\":\"service\",\"hash\":\"abc123\"}".getBytes(StandardCharsets.UTF_8)),
+            new ObjectMapper());
+
+    @Test
+    void specsAreServedUncompressedByDefault() {
+        ResponseEntity<byte[]> response = ClientSpecController.respond(document, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(document.bytes(), response.getBody());
+        assertEquals(document.etag(), response.getHeaders().getETag());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), response.getHeaders().getVary());
+    }
+
+    @Test
+    void specsAreGzippedIfAccepted() {
+        for (String acceptEncoding : List.of("gzip", "deflate, GZIP;q=0.5", "br;q=1.0, gzip ; q=1")) {
+            ResponseEntity<byte[]> response = ClientSpecController.respond(document, acceptEncoding, null);
+
+            assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertArrayEquals(document.gzipBytes(), response.getBody(), acceptEncoding);
+            assertEquals(document.gzipETag(), response.getHeaders().getETag(), acceptEncoding);
+        }
+    }
+
+    @Test
+    void gzipIsNotUsedIfRefused() {
+        for (String acceptEncoding : List.of("gzip;q=0", "gzip; q=0.000", "deflate", "")) {
+            ResponseEntity<byte[]> response = ClientSpecController.respond(document, acceptEncoding, null);
+
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertArrayEquals(document.bytes(), response.getBody(), acceptEncoding);
+        }
+    }
+
+    @Test
+    void matchingEntityTagsAreNotModified() {
+        for (String ifNoneMatch : List.of(document.etag(), "W/" + document.etag(), "\"other\", " + document.etag(), "*")) {
+            ResponseEntity<byte[]> response = ClientSpecController.respond(document, null, ifNoneMatch);
+
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode(), ifNoneMatch);
+            assertNull(response.getBody(), ifNoneMatch);
+            assertEquals(document.etag(), response.getHeaders().getETag(), ifNoneMatch);
+        }
+    }
+
+    @Test
+    void entityTagsOfOtherEncodingsDontMatch() {
+        ResponseEntity<byte[]> identity = ClientSpecController.respond(document, null, document.gzipETag());
+        assertEquals(HttpStatus.OK, identity.getStatusCode());
+
+        ResponseEntity<byte[]> gzip = ClientSpecController.respond(document, "gzip", document.etag());
+        assertEquals(HttpStatus.OK, gzip.getStatusCode());
+        assertArrayEquals(document.gzipBytes(), gzip.getBody());
+
+        ResponseEntity<byte[]> notModified = ClientSpecController.respond(document, "gzip", document.gzipETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+    }
+}
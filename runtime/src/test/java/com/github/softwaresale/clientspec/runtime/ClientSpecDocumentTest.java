@@ -0,0 +1,54 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientSpecDocumentTest {
+
+    private static final String SPEC = "{\"name\":\"service\",\"hash\":\"abc123\",\"services\":[]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void entityTagsComeFromTheSpecHash() {
+        ClientSpecDocument document = read(SPEC);
+
+        assertEquals("abc123", document.hash());
+        assertEquals("\"abc123\"", document.etag());
+        assertEquals("\"abc123-gzip\"", document.gzipETag());
+        assertEquals("service", document.spec().get("name").asText());
+    }
+
+    @Test
+    void specsWithoutAHashAreHashedByTheirBytes() throws NoSuchAlgorithmException {
+        String spec = "{\"name\":\"service\",\"services\":[]}";
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(spec.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(sha256, read(spec).hash());
+    }
+
+    @Test
+    void gzipBytesDecompressToTheSpec() throws IOException {
+        ClientSpecDocument document = read(SPEC);
+
+        assertArrayEquals(SPEC.getBytes(StandardCharsets.UTF_8), document.bytes());
+        try (GZIPInputStream gzipStream = new GZIPInputStream(new ByteArrayInputStream(document.gzipBytes()))) {
+            assertArrayEquals(document.bytes(), gzipStream.readAllBytes());
+        }
+    }
+
+    private ClientSpecDocument read(String spec) {
+        return ClientSpecDocument.read(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+}
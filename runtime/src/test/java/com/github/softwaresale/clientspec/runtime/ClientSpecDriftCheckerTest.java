@@ -0,0 +1,45 @@
+package com.github.softwaresale.clientspec.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientSpecDriftCheckerTest {
+
+    @Test
+    void specRoutesEraseVariableNames() throws IOException {
+        JsonNode spec = new ObjectMapper().readTree("""
+                {"services": [{"endpoints": [
+                    {"method": "GET", "segments": [
+                        {"kind": "LITERAL", "value": "/orders/"}, {"kind": "VARIABLE", "value": "id"}]},
+                    {"method": "GET", "segments": [
+                        {"kind": "LITERAL", "value": "/files/"}, {"kind": "CATCH_ALL", "value": "path"}]},
+                    {"method": "POST", "segments": [{"kind": "LITERAL", "value": "orders/"}]}
+                ]}]}
+                """);
+
+        assertEquals(new TreeSet<>(List.of("GET /files/{*}", "GET /orders/{}", "POST /orders")),
+                ClientSpecDriftChecker.specRoutes(spec));
+    }
+
+    @Test
+    void pathPatternsEraseVariablesLikeTheSpec() {
+        assertEquals("/orders/{}/items/{}", ClientSpecDriftChecker.erasePathVariables("/orders/{id}/items/{item}"));
+        assertEquals("/zip/{}", ClientSpecDriftChecker.erasePathVariables("/zip/{code:\\d{5}}"));
+        assertEquals("/files/{*}", ClientSpecDriftChecker.erasePathVariables("/files/{*path}"));
+        assertEquals("/files/{*}", ClientSpecDriftChecker.erasePathVariables("/files/**"));
+    }
+
+    @Test
+    void pathsAreNormalized() {
+        assertEquals("/", ClientSpecDriftChecker.normalizePath(""));
+        assertEquals("/", ClientSpecDriftChecker.normalizePath("/"));
+        assertEquals("/orders/items", ClientSpecDriftChecker.normalizePath("orders//items/"));
+    }
+}
@@ -1,2 +1,5 @@
 rootProject.name = "client-spec"
 
+
+// optional spring boot module that serves the embedded spec at runtime
+include("runtime")
@@ -0,0 +1,56 @@
+package com.github.softwaresale.clientspec.benchmark;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps everything the compiler and annotation processors write in memory, so benchmarks never touch the disk
+ */
+public class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    private final Map<String, ByteArrayOutputStream> outputs = new HashMap<>();
+
+    public InMemoryFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+
+    /**
+     * @param name the relative name of an output, such as {@code api-spec.json}
+     * @return the bytes written to that output, or null if it was never written
+     */
+    public byte[] output(String name) {
+        ByteArrayOutputStream output = outputs.get(name);
+        return output == null ? null : output.toByteArray();
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+        return new InMemoryOutput(className.replace('.', '/') + kind.extension, kind);
+    }
+
+    @Override
+    public FileObject getFileForOutput(Location location, String packageName, String relativeName, FileObject sibling) {
+        String name = packageName.isEmpty() ? relativeName : packageName.replace('.', '/') + "/" + relativeName;
+        return new InMemoryOutput(name, JavaFileObject.Kind.OTHER);
+    }
+
+    private class InMemoryOutput extends SimpleJavaFileObject {
+        private final String name;
+
+        InMemoryOutput(String name, Kind kind) {
+            super(URI.create("mem:///" + name), kind);
+            this.name = name;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.put(name, output);
+            return output;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.softwaresale.clientspec.benchmark;
+
+import com.github.softwaresale.clientspec.ControllerProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles a synthetic corpus in memory, with and without the controller processor attached. The difference between
+ * the two is what the processor adds to a build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessorCompilationBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int controllerCount;
+
+    @Param({ "0", "2", "4" })
+    public int genericDepth;
+
+    private SyntheticCorpus corpus;
+    private JavaCompiler compiler;
+    private StandardJavaFileManager standardFileManager;
+    private String classpath;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        corpus = new SyntheticCorpus(controllerCount, genericDepth);
+        compiler = ToolProvider.getSystemJavaCompiler();
+        standardFileManager = compiler.getStandardFileManager(null, null, null);
+        classpath = System.getProperty("java.class.path");
+    }
+
+    @Benchmark
+    public InMemoryFileManager compileWithoutProcessor() {
+        return compile(List.of("-proc:none", "-classpath", classpath), List.of());
+    }
+
+    @Benchmark
+    public byte[] compileWithProcessor() {
+        return compile(List.of("-classpath", classpath), List.of(new ControllerProcessor()))
+                .output("api-spec.json");
+    }
+
+    private InMemoryFileManager compile(List<String> options, List<ControllerProcessor> processors) {
+        InMemoryFileManager fileManager = new InMemoryFileManager(standardFileManager);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostic -> { }, options, null, corpus.sources());
+        task.setProcessors(processors);
+        if (!task.call()) {
+            throw new IllegalStateException("synthetic corpus failed to compile");
+        }
+
+        return fileManager;
+    }
+}
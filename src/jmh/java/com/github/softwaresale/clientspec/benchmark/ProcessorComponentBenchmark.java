@@ -0,0 +1,136 @@
+package com.github.softwaresale.clientspec.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.*;
+import com.github.softwaresale.clientspec.binary.BinarySpecWriter;
+import com.github.softwaresale.clientspec.model.APISpec;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+import com.sun.source.util.JavacTask;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each phase of the processor on its own. The corpus is analyzed once up front, and the resulting
+ * elements are fed straight into each phase, so compiler overhead is not part of the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessorComponentBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int controllerCount;
+
+    @Param({ "0", "2", "4" })
+    public int genericDepth;
+
+    /** the analyzed corpus. Elements are only valid while the task is alive */
+    private JavacTask task;
+    private List<TypeElement> controllers;
+    private List<ExecutableElement> handlerMethods;
+    private List<String> handlerTemplates;
+    private List<TypeMirror> handlerTypes;
+
+    private ObjectMapper objectMapper;
+    private APISpec apiSpec;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus(controllerCount, genericDepth);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        InMemoryFileManager fileManager = new InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        task = (JavacTask) compiler.getTask(null, fileManager, diagnostic -> { },
+                List.of("-proc:none", "-classpath", System.getProperty("java.class.path")), null, corpus.sources());
+        task.analyze();
+
+        Elements elements = task.getElements();
+        controllers = corpus.controllers().stream()
+                .map(elements::getTypeElement)
+                .toList();
+
+        handlerMethods = new ArrayList<>();
+        handlerTemplates = new ArrayList<>();
+        handlerTypes = new ArrayList<>();
+        for (SyntheticCorpus.Handler handler : corpus.handlers()) {
+            TypeElement controller = elements.getTypeElement(handler.controller());
+            ExecutableElement method = ElementFilter.methodsIn(controller.getEnclosedElements()).stream()
+                    .filter(element -> element.getSimpleName().contentEquals(handler.method()))
+                    .findFirst()
+                    .orElseThrow();
+
+            handlerMethods.add(method);
+            handlerTemplates.add(handler.template());
+            handlerTypes.add(method.getReturnType());
+            for (VariableElement param : method.getParameters()) {
+                handlerTypes.add(param.asType());
+            }
+        }
+
+        // build a full spec once for the serialization benchmarks
+        objectMapper = new ObjectMapper();
+        DynamicTypeRegistry typeRegistry = new DynamicTypeRegistry();
+        ControllerVisitor controllerVisitor = new ControllerVisitor(typeRegistry);
+        EntityResolver entityResolver = new EntityResolver(typeRegistry);
+        apiSpec = new APISpec("benchmark");
+        for (TypeElement controller : controllers) {
+            ServiceSpec service = controllerVisitor.visitController(controller).service();
+            entityResolver.addRoots(service);
+            apiSpec.addService(service);
+        }
+        entityResolver.resolve().forEach(apiSpec::addEntity);
+        typeRegistry.types().forEach(apiSpec::addType);
+    }
+
+    @Benchmark
+    public void visitController(Blackhole blackhole) {
+        ControllerVisitor controllerVisitor = new ControllerVisitor(new DynamicTypeRegistry());
+        for (Element controller : controllers) {
+            blackhole.consume(controllerVisitor.visitController(controller));
+        }
+    }
+
+    @Benchmark
+    public void mapTypes(Blackhole blackhole) {
+        DynamicTypeMapper dynamicTypeMapper = new DynamicTypeMapper(new DynamicTypeRegistry());
+        for (TypeMirror type : handlerTypes) {
+            blackhole.consume(type.accept(dynamicTypeMapper, null));
+        }
+    }
+
+    @Benchmark
+    public void parseTemplates(Blackhole blackhole) {
+        DynamicTypeMapper dynamicTypeMapper = new DynamicTypeMapper(new DynamicTypeRegistry());
+        MappingAnnotations mappingAnnotations = new MappingAnnotations();
+        for (int i = 0; i < handlerMethods.size(); i++) {
+            blackhole.consume(EndpointTemplateParser.parse(handlerTemplates.get(i), handlerMethods.get(i), dynamicTypeMapper, mappingAnnotations));
+        }
+    }
+
+    @Benchmark
+    public void serializeJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), apiSpec);
+    }
+
+    @Benchmark
+    public void serializeBinary() throws IOException {
+        new BinarySpecWriter().write(apiSpec, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.softwaresale.clientspec.benchmark;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a synthetic set of rest controllers and the DTOs they use. Controllers vary in how many endpoints they
+ * have, which verbs they use, their path and query variables, and how deeply their DTOs are nested in generics.
+ * Generation is deterministic, so the same parameters always give the same corpus.
+ */
+public class SyntheticCorpus {
+
+    public static final String PACKAGE = "bench";
+
+    private static final int DTO_COUNT = 16;
+    private static final int MAX_ENDPOINTS = 12;
+
+    /**
+     * A handler in the corpus
+     * @param controller the qualified name of the controller
+     * @param method the name of the handler method
+     * @param template the full path template of the handler
+     */
+    public record Handler(String controller, String method, String template) {
+    }
+
+    private final List<JavaFileObject> sources = new ArrayList<>();
+    private final List<String> controllers = new ArrayList<>();
+    private final List<Handler> handlers = new ArrayList<>();
+
+    /**
+     * @param controllerCount how many controllers to generate
+     * @param genericDepth how many generic wrappers DTOs are nested in
+     */
+    public SyntheticCorpus(int controllerCount, int genericDepth) {
+        sources.add(source("Page", """
+                package bench;
+                import java.util.List;
+                public class Page<T> {
+                    private List<T> content;
+                    private long total;
+                    public List<T> getContent() { return content; }
+                    public long getTotal() { return total; }
+                }
+                """));
+
+        for (int dto = 0; dto < DTO_COUNT; dto++) {
+            sources.add(source("Dto" + dto, dtoSource(dto)));
+        }
+
+        for (int controller = 0; controller < controllerCount; controller++) {
+            String name = "Controller" + controller;
+            controllers.add(PACKAGE + "." + name);
+            sources.add(source(name, controllerSource(controller, genericDepth)));
+        }
+    }
+
+    /**
+     * @return every generated source file
+     */
+    public List<JavaFileObject> sources() {
+        return sources;
+    }
+
+    /**
+     * @return the qualified names of every controller
+     */
+    public List<String> controllers() {
+        return controllers;
+    }
+
+    /**
+     * @return every handler across all controllers
+     */
+    public List<Handler> handlers() {
+        return handlers;
+    }
+
+    private static String dtoSource(int dto) {
+        StringBuilder source = new StringBuilder();
+        source.append("package bench;\n")
+                .append("import java.util.*;\n")
+                .append("public class Dto").append(dto).append(" {\n")
+                .append("    public long id;\n")
+                .append("    public String name;\n")
+                .append("    public List<String> tags;\n");
+
+        // link DTOs together, including back references, so entity graphs have cycles
+        source.append("    public Dto").append((dto + 1) % DTO_COUNT).append(" next;\n");
+        source.append("    public List<Dto").append((dto + 3) % DTO_COUNT).append("> related;\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private String controllerSource(int controller, int genericDepth) {
+        String name = "Controller" + controller;
+        String root = "/api/v1/resource" + controller + "/{tenantId}";
+
+        StringBuilder source = new StringBuilder();
+        source.append("package bench;\n")
+                .append("import org.springframework.web.bind.annotation.*;\n")
+                .append("import java.util.*;\n")
+                .append("@RestController\n")
+                .append("@RequestMapping(\"").append(root).append("\")\n")
+                .append("public class ").append(name).append(" {\n");
+
+        int endpointCount = 1 + controller % MAX_ENDPOINTS;
+        for (int endpoint = 0; endpoint < endpointCount; endpoint++) {
+            String dto = "Dto" + (controller + endpoint) % DTO_COUNT;
+            String responseType = wrap(dto, genericDepth);
+            String method = "handler" + endpoint;
+            String path = "/items" + endpoint;
+
+            switch (endpoint % 4) {
+                case 0 -> source.append("    @GetMapping(\"").append(path).append("\")\n")
+                        .append("    public ").append(responseType).append(' ').append(method)
+                        .append("(@PathVariable String tenantId, @RequestParam(required = false) Integer limit, @RequestParam String sort) { return null; }\n");
+                case 1 -> {
+                    path = path + "/{id}";
+                    source.append("    @GetMapping(\"").append(path).append("\")\n")
+                            .append("    public ").append(dto).append(' ').append(method)
+                            .append("(@PathVariable String tenantId, @PathVariable(\"id\") long itemId) { return null; }\n");
+                }
+                case 2 -> source.append("    @PostMapping(\"").append(path).append("\")\n")
+                        .append("    public ").append(dto).append(' ').append(method)
+                        .append("(@PathVariable String tenantId, @RequestBody ").append(responseType).append(" body) { return null; }\n");
+                default -> {
+                    path = path + "/{id}";
+                    source.append("    @RequestMapping(path = \"").append(path).append("\", method = RequestMethod.DELETE)\n")
+                            .append("    public void ").append(method)
+                            .append("(@PathVariable String tenantId, @PathVariable long id, @RequestParam(name = \"force\") boolean force) { }\n");
+                }
+            }
+
+            handlers.add(new Handler(PACKAGE + "." + name, method, root + path));
+        }
+
+        // something that is not a handler, so the visitor has to skip it
+        source.append("    public void helper() { }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private static String wrap(String type, int genericDepth) {
+        String wrapped = type;
+        for (int depth = 0; depth < genericDepth; depth++) {
+            wrapped = depth % 2 == 0 ? "List<" + wrapped + ">" : "Page<" + wrapped + ">";
+        }
+
+        return wrapped;
+    }
+
+    private static JavaFileObject source(String simpleName, String code) {
+        URI uri = URI.create("string:///" + PACKAGE + "/" + simpleName + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
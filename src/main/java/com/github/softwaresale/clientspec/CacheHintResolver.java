@@ -0,0 +1,39 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.CacheHints;
+import com.github.softwaresale.clientspec.model.HttpMethod;
+
+import java.util.Map;
+
+/**
+ * Derives the cache hints of a handler. The HTTP method decides safety and idempotency, and a safe handler is
+ * cacheable if spring caches its results. Handlers that return a {@code ResponseEntity} can set their own ETag and
+ * Cache-Control headers, so clients should revalidate with them. A {@code @CacheHint} overrides all of this, except
+ * that responses of unsafe handlers are never cacheable.
+ */
+public final class CacheHintResolver {
+
+    private CacheHintResolver() {
+    }
+
+    /**
+     * @param method the handler's HTTP method
+     * @param envelope if the handler's response is wrapped in something that carries headers
+     * @param springCacheable if the handler or its controller has {@code @Cacheable}
+     * @param cacheHint the explicitly set values of the handler's {@code @CacheHint}, or null if it has none
+     * @return the handler's cache hints
+     */
+    public static CacheHints resolve(HttpMethod method, boolean envelope, boolean springCacheable, Map<String, Object> cacheHint) {
+        boolean safe = method.isSafe();
+        if (cacheHint == null) {
+            return new CacheHints(safe, method.isIdempotent(), safe && springCacheable, -1, safe && envelope);
+        }
+
+        // annotation values only include what was written, so fall back to the defaults of CacheHint
+        boolean idempotent = method.isIdempotent() || (Boolean) cacheHint.getOrDefault("idempotent", false);
+        boolean cacheable = safe && (Boolean) cacheHint.getOrDefault("cacheable", true);
+        long maxAge = ((Number) cacheHint.getOrDefault("maxAge", -1L)).longValue();
+        boolean conditional = (Boolean) cacheHint.getOrDefault("conditional", false) || (safe && envelope);
+        return new CacheHints(safe, idempotent, cacheable, maxAge, conditional);
+    }
+}
@@ -1,79 +1,670 @@
 package com.github.softwaresale.clientspec;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.binary.BinarySpecWriter;
+import com.github.softwaresale.clientspec.model.APIEndpoint;
 import com.github.softwaresale.clientspec.model.APISpec;
+import com.github.softwaresale.clientspec.model.EntitySpec;
+import com.github.softwaresale.clientspec.model.HandlerRoute;
 import com.github.softwaresale.clientspec.model.ServiceSpec;
+import com.github.softwaresale.clientspec.model.SpecDelta;
+import com.github.softwaresale.clientspec.model.VisitedController;
 import com.google.auto.service.AutoService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
 import javax.tools.FileObject;
-import javax.tools.JavaFileManager;
 import javax.tools.StandardLocation;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.io.Writer;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 
 /**
- * Finds rest controllers and extracts their service definition
+ * Finds rest controllers and extracts their service definition. Services are collected across every processing
+ * round, and the API document is only written once processing is over. A route index is written next to it, and
+ * duplicate or ambiguous routes are reported as errors on their handlers. Routes only conflict if they also have the
+ * same media types, params, and headers.
+ * <p>
+ * The API document is canonical: services, endpoints, and variables are sorted, and every service as well as the
+ * whole spec carries a content hash. If the existing document already has the same hash, it is not rewritten.
+ * Streamed documents keep services in the order they were visited.
+ * <p>
+ * Supported options:
+ * <ul>
+ *     <li>{@code clientspec.name}: the name of the API. Defaults to {@code service}</li>
+ *     <li>{@code clientspec.cacheDir}: directory to cache per-controller spec fragments in. Caching is off if unset</li>
+ *     <li>{@code clientspec.streaming}: if true, write each service as soon as it is visited instead of holding the
+ *     whole spec in memory</li>
+ *     <li>{@code clientspec.binary}: if true, also write the spec in the compact binary format. Not supported when
+ *     streaming</li>
+ *     <li>{@code clientspec.metrics}: if true, time each phase of the processor, report a summary note, and write
+ *     the full metrics to {@code api-spec-metrics.json}</li>
+ *     <li>{@code clientspec.delta}: if true, compare the spec against the one from the previous build and write
+ *     the added, removed, and changed services, endpoints, and entities to {@code api-spec.delta.json}. If a cache
+ *     directory is set, a copy of the spec is kept there in case the previous output was cleaned</li>
+ *     <li>{@code clientspec.sharded}: if true, also write every service to its own file under {@code client-spec/},
+ *     along with a shared shard for types and entities and a manifest listing every shard</li>
+ *     <li>{@code clientspec.embed}: if true, also copy the spec into the class output under
+ *     {@code META-INF/client-spec/}, so that it ships in the jar and can be read from the classpath</li>
+ *     <li>{@code clientspec.logLevel}: how much the processor reports, one of {@code off}, {@code error},
+ *     {@code warning}, {@code info}, or {@code debug}. Defaults to {@code warning}</li>
+ *     <li>{@code clientspec.clientPackage}: if set, also generate a {@code java.net.http} client for every service
+ *     into this package. The clients are compiled in the next round</li>
+ *     <li>{@code clientspec.jacksonPackage}: if set, also generate Jackson serializers and deserializers for the
+ *     entities into this package, along with {@code EntityJacksonModule} to register them</li>
+ *     <li>{@code clientspec.openapi}: if true, also write the spec as an OpenAPI 3 document to {@code openapi.json}.
+ *     It is embedded along with the spec. Not supported when streaming</li>
+ * </ul>
  */
 @SupportedAnnotationTypes("org.springframework.web.bind.annotation.RestController")
+@SupportedOptions({ ControllerProcessor.NAME_OPTION, ControllerProcessor.CACHE_DIR_OPTION, ControllerProcessor.STREAMING_OPTION,
+        ControllerProcessor.BINARY_OPTION, ControllerProcessor.METRICS_OPTION, ControllerProcessor.DELTA_OPTION,
+        ControllerProcessor.SHARDED_OPTION, ControllerProcessor.EMBED_OPTION, ControllerProcessor.LOG_LEVEL_OPTION,
+        ControllerProcessor.CLIENT_PACKAGE_OPTION, ControllerProcessor.JACKSON_PACKAGE_OPTION, ControllerProcessor.OPENAPI_OPTION })
 @SupportedSourceVersion(SourceVersion.RELEASE_17)
 @AutoService(Processor.class)
 public class ControllerProcessor extends AbstractProcessor {
 
-    private static final Logger logger = LoggerFactory.getLogger(ControllerProcessor.class);
+    public static final String NAME_OPTION = "clientspec.name";
+    public static final String CACHE_DIR_OPTION = "clientspec.cacheDir";
+    public static final String STREAMING_OPTION = "clientspec.streaming";
+    public static final String BINARY_OPTION = "clientspec.binary";
+    public static final String METRICS_OPTION = "clientspec.metrics";
+    public static final String DELTA_OPTION = "clientspec.delta";
+    public static final String SHARDED_OPTION = "clientspec.sharded";
+    public static final String EMBED_OPTION = "clientspec.embed";
+    public static final String LOG_LEVEL_OPTION = "clientspec.logLevel";
+    public static final String CLIENT_PACKAGE_OPTION = "clientspec.clientPackage";
+    public static final String JACKSON_PACKAGE_OPTION = "clientspec.jacksonPackage";
+    public static final String OPENAPI_OPTION = "clientspec.openapi";
+    /** where embedded specs live on the classpath */
+    public static final String EMBEDDED_SPEC_DIRECTORY = "META-INF/client-spec/";
+    public static final String API_SPEC_FILE = "api-spec.json";
+    public static final String OPENAPI_FILE = "openapi.json";
+    public static final String DEFAULT_API_NAME = "service";
+
+    private static final String BINARY_API_SPEC_FILE = "api-spec.bin";
+    private static final String METRICS_FILE = "api-spec-metrics.json";
+    private static final String ROUTES_FILE = "api-routes.json";
+    private static final String DELTA_FILE = "api-spec.delta.json";
+
+    /** services are sorted so that the output does not depend on the order controllers were visited in */
+    private static final Comparator<ServiceSpec> serviceOrder = Comparator.comparing(ServiceSpec::name)
+            .thenComparing(ServiceSpec::hash);
 
     private final ControllerVisitor controllerVisitor;
+    private final DynamicTypeRegistry typeRegistry;
+    private final EntityResolver entityResolver;
     private final ObjectMapper objectMapper;
+    private final ProcessorMetrics metrics;
+    private final Diagnostics diagnostics;
+
+    /** this is our API specification. We will visit all controllers and entities across all rounds and place them in here */
+    private APISpec apiSpec;
+    /** every controller that contributed to the API spec. Gradle uses these to track the output incrementally */
+    private final List<Element> originatingElements;
+    /** the hash of every service, used to hash the whole spec */
+    private final List<String> serviceHashes;
+    /** every route across all services, used to find conflicting routes */
+    private final RouteTrie routeTrie;
+    /** where cached state is kept between builds. Null if caching is disabled */
+    private Path cacheDirectory;
+    /** cache of previously visited controllers. Null if caching is disabled */
+    private SpecFragmentCache fragmentCache;
+    /** compares services against the previous build. Null if deltas are disabled */
+    private SpecDeltaBuilder deltaBuilder;
+    /** if services should be streamed out instead of being collected */
+    private boolean streaming;
+    /** if the binary spec should be written as well */
+    private boolean binary;
+    /** if the OpenAPI document should be written as well */
+    private boolean openApi;
+    /** if the spec should be copied into the class output */
+    private boolean embed;
+    /** writes a shard per service as they are visited. Null if sharding is disabled */
+    private ShardedSpecWriter shardedWriter;
+    /** writes a Java client per service as they are visited. Null if clients are disabled */
+    private JavaClientGenerator clientGenerator;
+    /** writes Jackson codecs for entities as they are resolved. Null if codecs are disabled */
+    private JacksonCodecGenerator codecGenerator;
+    /** the API document. Null until it has been created */
+    private FileObject apiSpecFile;
+    /** the OpenAPI document. Null if it was not created in this build */
+    private FileObject openApiFile;
+    /** writes services as they are visited. Only opened once the first service is seen in streaming mode */
+    private StreamingSpecWriter streamingWriter;
 
     public ControllerProcessor() {
-        this(new ControllerVisitor(), new ObjectMapper());
+        this(new DynamicTypeRegistry(), new ObjectMapper(), new ProcessorMetrics(), new Diagnostics());
+    }
+
+    private ControllerProcessor(DynamicTypeRegistry typeRegistry, ObjectMapper objectMapper, ProcessorMetrics metrics, Diagnostics diagnostics) {
+        this(new ControllerVisitor(typeRegistry, metrics, diagnostics), typeRegistry, objectMapper, metrics, diagnostics);
+    }
+
+    public ControllerProcessor(ControllerVisitor controllerVisitor, DynamicTypeRegistry typeRegistry, ObjectMapper objectMapper) {
+        this(controllerVisitor, typeRegistry, objectMapper, new ProcessorMetrics(), new Diagnostics());
     }
 
-    public ControllerProcessor(ControllerVisitor controllerVisitor, ObjectMapper objectMapper) {
+    public ControllerProcessor(ControllerVisitor controllerVisitor, DynamicTypeRegistry typeRegistry, ObjectMapper objectMapper,
+                               ProcessorMetrics metrics, Diagnostics diagnostics) {
         this.controllerVisitor = controllerVisitor;
+        this.typeRegistry = typeRegistry;
+        this.entityResolver = new EntityResolver(typeRegistry, metrics, diagnostics);
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.diagnostics = diagnostics;
+        this.apiSpec = new APISpec(DEFAULT_API_NAME);
+        this.originatingElements = new ArrayList<>();
+        this.serviceHashes = new ArrayList<>();
+        this.routeTrie = new RouteTrie();
     }
 
     @Override
-    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
-        logger.info("running client-spec annotation processor");
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        this.diagnostics.setSink(Diagnostics.messager(processingEnv.getMessager()));
+        String logLevel = processingEnv.getOptions().get(LOG_LEVEL_OPTION);
+        if (logLevel != null && !logLevel.isBlank()) {
+            Diagnostics.Level level = Diagnostics.parseLevel(logLevel);
+            if (level == null) {
+                diagnostics.warning(() -> String.format("unknown %s '%s', using %s", LOG_LEVEL_OPTION, logLevel, diagnostics.getLevel()));
+            } else {
+                diagnostics.setLevel(level);
+            }
+        }
+
+        String apiName = processingEnv.getOptions().get(NAME_OPTION);
+        if (apiName != null && !apiName.isBlank()) {
+            this.apiSpec = new APISpec(apiName);
+        }
+
+        String cacheDir = processingEnv.getOptions().get(CACHE_DIR_OPTION);
+        if (cacheDir != null && !cacheDir.isBlank()) {
+            this.cacheDirectory = Path.of(cacheDir);
+            this.fragmentCache = new SpecFragmentCache(cacheDirectory, typeRegistry, processingEnv.getElementUtils(), objectMapper, metrics, diagnostics);
+        }
+
+        this.streaming = Boolean.parseBoolean(processingEnv.getOptions().get(STREAMING_OPTION));
+        this.binary = Boolean.parseBoolean(processingEnv.getOptions().get(BINARY_OPTION));
+        if (this.streaming && this.binary) {
+            // the binary format needs every service up front to lay out its tables
+            diagnostics.warning(() -> String.format("%s is not supported together with %s, no binary spec will be written", BINARY_OPTION, STREAMING_OPTION));
+            this.binary = false;
+        }
+        this.openApi = Boolean.parseBoolean(processingEnv.getOptions().get(OPENAPI_OPTION));
+        if (this.streaming && this.openApi) {
+            // paths group handlers across services, so every service is needed up front
+            diagnostics.warning(() -> String.format("%s is not supported together with %s, no OpenAPI document will be written", OPENAPI_OPTION, STREAMING_OPTION));
+            this.openApi = false;
+        }
+
+        this.metrics.setEnabled(Boolean.parseBoolean(processingEnv.getOptions().get(METRICS_OPTION)));
+
+        this.embed = Boolean.parseBoolean(processingEnv.getOptions().get(EMBED_OPTION));
+
+        if (Boolean.parseBoolean(processingEnv.getOptions().get(SHARDED_OPTION))) {
+            this.shardedWriter = new ShardedSpecWriter(processingEnv.getFiler(), objectMapper);
+        }
+
+        String clientPackage = processingEnv.getOptions().get(CLIENT_PACKAGE_OPTION);
+        if (clientPackage != null && !clientPackage.isBlank()) {
+            this.clientGenerator = new JavaClientGenerator(processingEnv.getFiler(), typeRegistry, clientPackage.trim(), diagnostics);
+        }
+
+        String jacksonPackage = processingEnv.getOptions().get(JACKSON_PACKAGE_OPTION);
+        if (jacksonPackage != null && !jacksonPackage.isBlank()) {
+            this.codecGenerator = new JacksonCodecGenerator(processingEnv.getFiler(), processingEnv.getElementUtils(),
+                    processingEnv.getTypeUtils(), typeRegistry, jacksonPackage.trim(), diagnostics);
+        }
+
+        if (Boolean.parseBoolean(processingEnv.getOptions().get(DELTA_OPTION))) {
+            // the previous spec has to be read before this build overwrites it
+            this.deltaBuilder = new SpecDeltaBuilder(readPreviousApiSpec());
+        }
+    }
 
-        // this is our API specification. We will visit all controllers and entities and place them in here
-        APISpec apiSpec = new APISpec("service");
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        diagnostics.info(() -> "running client-spec annotation processor");
+        long processStart = metrics.start();
+        boolean foundControllers = false;
 
         for (TypeElement annotation : annotations) {
+            long discoveryStart = metrics.start();
             Set<? extends Element> annotatedElements = roundEnvironment.getElementsAnnotatedWith(annotation);
+            metrics.stop(ProcessorMetrics.Phase.DISCOVERY, discoveryStart);
+
             for (Element element : annotatedElements) {
 
-                logger.debug("found element {} of kind {}", element.getSimpleName(), element.getKind());
+                diagnostics.debug(element, () -> String.format("found element %s of kind %s", element.getSimpleName(), element.getKind()));
 
                 // pull out our services
                 if (this.controllerVisitor.accept(element)) {
-                    logger.info("processing class {}", element.getSimpleName());
-                    ServiceSpec service = this.controllerVisitor.visitController(element);
-                    apiSpec.addService(service);
+                    foundControllers = true;
+                    diagnostics.debug(element, () -> "processing class " + element.getSimpleName());
+                    VisitedController visitedController = visitController((TypeElement) element);
+                    ServiceSpec visitedService = visitedController.service();
+                    ServiceSpec service = visitedService.withHash(SpecHasher.hashService(objectMapper, visitedService));
+                    serviceHashes.add(service.hash());
+                    metrics.increment(ProcessorMetrics.Counter.CONTROLLERS);
+                    metrics.add(ProcessorMetrics.Counter.ENDPOINTS, service.endpoints().size());
+
+                    entityResolver.addRoots(service);
+                    originatingElements.add(element);
+                    addRoutes(service, visitedController.routes(), (TypeElement) element);
+                    if (deltaBuilder != null) {
+                        deltaBuilder.compareService(service);
+                    }
+
+                    if (shardedWriter != null) {
+                        writeServiceShard(service, (TypeElement) element);
+                    }
+
+                    if (clientGenerator != null) {
+                        writeClient(service, element);
+                    }
+
+                    if (streaming) {
+                        streamService(service);
+                    } else {
+                        apiSpec.addService(service);
+                    }
                 }
             }
         }
 
+        if (codecGenerator != null) {
+            writeEntityCodecs(foundControllers);
+        }
+
+        // other processors may still generate controllers, so only output once everything has been seen
+        if (roundEnvironment.processingOver()) {
+            List<EntitySpec> entities = resolveEntities();
+            String hash = SpecHasher.hashSpec(objectMapper, apiSpec.name(), serviceHashes, typeRegistry.types(), entities);
+            if (streaming) {
+                finishStreamedApiSpec(entities, hash);
+            } else {
+                writeApiSpec(entities, hash);
+            }
+            if (shardedWriter != null) {
+                finishShards(entities, hash);
+            }
+            if (deltaBuilder != null) {
+                writeSpecDelta(entities);
+            }
+            if (embed) {
+                embed(API_SPEC_FILE, apiSpecFile);
+                if (openApi) {
+                    embed(OPENAPI_FILE, openApiFile);
+                }
+            }
+            writeRouteIndex();
+        }
+
+        metrics.stop(ProcessorMetrics.Phase.PROCESS, processStart);
+        if (roundEnvironment.processingOver() && metrics.isEnabled()) {
+            writeMetrics();
+        }
+
+        return true;
+    }
+
+    /**
+     * Add a service to the route index, and report conflicting routes on the handlers they come from
+     */
+    private void addRoutes(ServiceSpec service, List<HandlerRoute> routes, TypeElement controllerClass) {
+        List<ExecutableElement> methods = ElementFilter.methodsIn(controllerClass.getEnclosedElements());
+        for (int i = 0; i < routes.size(); i++) {
+            HandlerRoute route = routes.get(i);
+            Element handler = route.handlerIndex() < methods.size() ? methods.get(route.handlerIndex()) : controllerClass;
+            routeTrie.add(service.name(), service.endpoints().get(i), route.requestConditions())
+                    .ifPresent(conflict -> diagnostics.error(handler, () -> conflict));
+        }
+    }
+
+    private VisitedController visitController(TypeElement controllerClass) {
+        if (fragmentCache == null) {
+            return this.controllerVisitor.visitController(controllerClass);
+        }
+
+        return fragmentCache.computeIfAbsent(controllerClass, this.controllerVisitor::visitController);
+    }
+
+    private List<EntitySpec> resolveEntities() {
+        long start = metrics.start();
+        List<EntitySpec> entities = entityResolver.resolve();
+        metrics.stop(ProcessorMetrics.Phase.ENTITY_RESOLUTION, start);
+
+        metrics.set(ProcessorMetrics.Counter.ENTITIES, entities.size());
+        metrics.set(ProcessorMetrics.Counter.UNIQUE_TYPES, typeRegistry.types().size());
+        return entities;
+    }
+
+    private void writeApiSpec(List<EntitySpec> entities, String hash) {
+        // entities are resolved first, since their properties may introduce new types
+        entities.forEach(apiSpec::addEntity);
+
+        // every endpoint refers to its types by ID, so the spec carries a single table of all of them
+        typeRegistry.types().forEach(apiSpec::addType);
+
+        apiSpec.services().sort(serviceOrder);
+        APISpec hashedSpec = new APISpec(apiSpec.name(), hash, apiSpec.types(), apiSpec.entities(), apiSpec.services());
+
         // output our API document
+        long start = metrics.start();
         try {
-            FileObject resourceFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", "api-spec.json");
-            Writer outputWriter = resourceFile.openWriter();
-            objectMapper.writeValue(outputWriter, apiSpec);
-            outputWriter.close();
+            boolean unchanged = hash.equals(readPreviousSpecHash());
+            if (unchanged) {
+                // leaving the file alone keeps its timestamp, so everything downstream stays up to date
+                diagnostics.info(() -> API_SPEC_FILE + " is unchanged, not rewriting it");
+            } else {
+                apiSpecFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", API_SPEC_FILE,
+                        originatingElements.toArray(Element[]::new));
+                try (Writer outputWriter = new BufferedWriter(apiSpecFile.openWriter())) {
+                    objectMapper.writeValue(outputWriter, hashedSpec);
+                }
+            }
+
+            if (binary) {
+                FileObject binaryFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", BINARY_API_SPEC_FILE,
+                        originatingElements.toArray(Element[]::new));
+                try (OutputStream outputStream = new BufferedOutputStream(binaryFile.openOutputStream())) {
+                    new BinarySpecWriter().write(hashedSpec, outputStream);
+                }
+            }
+
+            // the document is derived from the spec alone, so it is only stale if the spec changed
+            if (openApi && !(unchanged && hasPreviousOutput(OPENAPI_FILE))) {
+                openApiFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", OPENAPI_FILE,
+                        originatingElements.toArray(Element[]::new));
+                try (Writer outputWriter = new BufferedWriter(openApiFile.openWriter())) {
+                    new OpenApiWriter(objectMapper, diagnostics).write(hashedSpec, outputWriter);
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        metrics.stop(ProcessorMetrics.Phase.SERIALIZATION, start);
+    }
 
-        return true;
+    private void streamService(ServiceSpec service) {
+        try {
+            if (streamingWriter == null) {
+                // the output can only be created once, so it has to stay open across rounds
+                apiSpecFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", API_SPEC_FILE,
+                        originatingElements.toArray(Element[]::new));
+                streamingWriter = new StreamingSpecWriter(apiSpecFile.openWriter(), objectMapper, apiSpec.name());
+            }
+
+            long start = metrics.start();
+            streamingWriter.writeService(service);
+            metrics.stop(ProcessorMetrics.Phase.SERIALIZATION, start);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void finishStreamedApiSpec(List<EntitySpec> entities, String hash) {
+        try {
+            if (streamingWriter == null) {
+                // no services were found, but we still want an (empty) spec
+                apiSpecFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", API_SPEC_FILE);
+                streamingWriter = new StreamingSpecWriter(apiSpecFile.openWriter(), objectMapper, apiSpec.name());
+            }
+
+            long start = metrics.start();
+            try (StreamingSpecWriter writer = streamingWriter) {
+                writer.finish(typeRegistry.types(), entities, hash);
+            }
+            metrics.stop(ProcessorMetrics.Phase.SERIALIZATION, start);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeServiceShard(ServiceSpec service, TypeElement controllerClass) {
+        long start = metrics.start();
+        try {
+            shardedWriter.writeService(service, controllerClass);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        metrics.stop(ProcessorMetrics.Phase.SERIALIZATION, start);
+    }
+
+    private void writeClient(ServiceSpec service, Element element) {
+        long start = metrics.start();
+        try {
+            clientGenerator.generate(service, element);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        metrics.stop(ProcessorMetrics.Phase.CLIENT_GENERATION, start);
+    }
+
+    /**
+     * Codecs are written in the round that found their controllers, so that they are compiled in the next round.
+     * The module that registers them waits for a round without new controllers, so that it sees every codec
+     */
+    private void writeEntityCodecs(boolean foundControllers) {
+        long start = metrics.start();
+        try {
+            if (foundControllers) {
+                codecGenerator.generate(resolveEntities(), originatingElements.toArray(Element[]::new));
+            } else if (codecGenerator.hasPendingModule()) {
+                codecGenerator.writeModule(originatingElements.toArray(Element[]::new));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        metrics.stop(ProcessorMetrics.Phase.CODEC_GENERATION, start);
+    }
+
+    private void finishShards(List<EntitySpec> entities, String hash) {
+        long start = metrics.start();
+        try {
+            shardedWriter.finish(apiSpec.name(), hash, typeRegistry.types(), entities, originatingElements.toArray(Element[]::new));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        metrics.stop(ProcessorMetrics.Phase.SERIALIZATION, start);
+    }
+
+    /**
+     * Read the spec written by the previous build. Build tools may clean generated sources before compiling, so
+     * this falls back to the copy kept in the cache directory
+     * @return the previous spec, or an empty spec if there is none
+     */
+    private APISpec readPreviousApiSpec() {
+        try {
+            FileObject previousFile = processingEnv.getFiler().getResource(StandardLocation.SOURCE_OUTPUT, "", API_SPEC_FILE);
+            try (Reader reader = new BufferedReader(previousFile.openReader(true))) {
+                return objectMapper.readValue(reader, APISpec.class);
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            diagnostics.debug(() -> "no previous spec in the output location");
+        } catch (IOException e) {
+            diagnostics.warning(() -> "could not read the previous spec from the output location: " + e.getMessage());
+        }
+
+        if (cacheDirectory != null && Files.isRegularFile(cacheDirectory.resolve(API_SPEC_FILE))) {
+            try {
+                return objectMapper.readValue(cacheDirectory.resolve(API_SPEC_FILE).toFile(), APISpec.class);
+            } catch (IOException e) {
+                diagnostics.warning(() -> "could not read the previous spec from the cache directory: " + e.getMessage());
+            }
+        }
+
+        return new APISpec(apiSpec.name());
+    }
+
+    /**
+     * Read only the hash of the spec written by the previous build, without binding the rest of the document
+     * @return the previous hash, or null if there is no previous spec or it has no hash
+     */
+    private String readPreviousSpecHash() {
+        try {
+            FileObject previousFile = processingEnv.getFiler().getResource(StandardLocation.SOURCE_OUTPUT, "", API_SPEC_FILE);
+            try (JsonParser parser = objectMapper.createParser(new BufferedReader(previousFile.openReader(true)))) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return null;
+                }
+
+                // the hash comes right after the name, unless the spec was streamed
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if (field.equals("hash")) {
+                        return parser.getValueAsString();
+                    }
+                    parser.skipChildren();
+                }
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            diagnostics.debug(() -> "no previous spec in the output location");
+        } catch (IOException e) {
+            diagnostics.warning(() -> "could not read the hash of the previous spec: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    private void writeSpecDelta(List<EntitySpec> entities) {
+        deltaBuilder.compareEntities(entities);
+        SpecDelta delta = deltaBuilder.build();
+
+        try {
+            FileObject deltaFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", DELTA_FILE,
+                    originatingElements.toArray(Element[]::new));
+            try (Writer outputWriter = new BufferedWriter(deltaFile.openWriter())) {
+                objectMapper.writeValue(outputWriter, delta);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (cacheDirectory != null) {
+            storeApiSpecSnapshot();
+        }
+    }
+
+    /**
+     * Keep a copy of the spec that was just written in the cache directory, so the next build can compare against it
+     */
+    private void storeApiSpecSnapshot() {
+        if (apiSpecFile == null) {
+            // the spec is unchanged, so the previous output is still in place to compare against
+            return;
+        }
+
+        // the filer won't reopen a file it created, so the copy has to go through the file system
+        URI specUri = apiSpecFile.toUri();
+        if (!"file".equals(specUri.getScheme())) {
+            diagnostics.debug(() -> "spec at " + specUri + " is not a file, not keeping a copy");
+            return;
+        }
+
+        try {
+            Files.createDirectories(cacheDirectory);
+            // write to a temp file first so that concurrent builds never see a partial spec
+            Path tempPath = Files.createTempFile(cacheDirectory, "api-spec", ".tmp");
+            Files.copy(Path.of(specUri), tempPath, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempPath, cacheDirectory.resolve(API_SPEC_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            diagnostics.warning(() -> "could not keep a copy of the spec in " + cacheDirectory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check if a previous build left a file in the source output
+     */
+    private boolean hasPreviousOutput(String file) {
+        try {
+            // the last modified time is 0 if the file does not exist
+            return processingEnv.getFiler().getResource(StandardLocation.SOURCE_OUTPUT, "", file).getLastModified() != 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copy an output into the class output, so that it is packaged with the classes
+     * @param file the name of the output
+     * @param createdFile the output, if it was created in this build. Null if it was left over from the previous one
+     */
+    private void embed(String file, FileObject createdFile) {
+        try {
+            byte[] spec;
+            if (createdFile == null) {
+                // the output was unchanged, so it was not created in this build and the filer can still read it
+                FileObject existingFile = processingEnv.getFiler().getResource(StandardLocation.SOURCE_OUTPUT, "", file);
+                try (InputStream inputStream = existingFile.openInputStream()) {
+                    spec = inputStream.readAllBytes();
+                }
+            } else if ("file".equals(createdFile.toUri().getScheme())) {
+                // the filer won't reopen a file it created, so read it through the file system
+                spec = Files.readAllBytes(Path.of(createdFile.toUri()));
+            } else {
+                diagnostics.warning(() -> file + " at " + createdFile.toUri() + " is not a file, not embedding it");
+                return;
+            }
+
+            FileObject embeddedFile = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    EMBEDDED_SPEC_DIRECTORY + file, originatingElements.toArray(Element[]::new));
+            try (OutputStream outputStream = embeddedFile.openOutputStream()) {
+                outputStream.write(spec);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeRouteIndex() {
+        try {
+            FileObject routesFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", ROUTES_FILE,
+                    originatingElements.toArray(Element[]::new));
+            try (Writer outputWriter = new BufferedWriter(routesFile.openWriter())) {
+                objectMapper.writeValue(outputWriter, routeTrie.root());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeMetrics() {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, metrics.summary());
+
+        try {
+            FileObject metricsFile = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT, "", METRICS_FILE);
+            try (Writer outputWriter = new BufferedWriter(metricsFile.openWriter())) {
+                objectMapper.writeValue(outputWriter, metrics.report());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
@@ -1,14 +1,13 @@
 package com.github.softwaresale.clientspec;
 
 import com.github.softwaresale.clientspec.model.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.web.bind.annotation.*;
+import com.github.softwaresale.clientspec.util.Pair;
 
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
-import java.lang.annotation.Annotation;
+import javax.lang.model.util.ElementFilter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,18 +16,27 @@ import java.util.stream.Collectors;
  */
 public class ControllerVisitor {
 
-    private static final Logger logger = LoggerFactory.getLogger(ControllerVisitor.class);
+    /** endpoints are sorted so that the output does not depend on declaration order. Overloads are told apart by route */
+    public static final Comparator<APIEndpoint> ENDPOINT_ORDER = Comparator.comparing(APIEndpoint::name)
+            .thenComparing(APIEndpoint::method)
+            .thenComparing(APIEndpoint::endpoint);
 
-    private static final DynamicTypeMapper dynamicTypeMapper = new DynamicTypeMapper();
-    private static final Set<Class<? extends Annotation>> handlerAnnotations = new HashSet<>();
+    private final DynamicTypeRegistry typeRegistry;
+    private final DynamicTypeMapper dynamicTypeMapper;
+    private final MappingAnnotations mappingAnnotations;
+    private final ProcessorMetrics metrics;
+    private final Diagnostics diagnostics;
 
-    static {
-        handlerAnnotations.add(RequestMapping.class);
-        handlerAnnotations.add(GetMapping.class);
-        handlerAnnotations.add(PostMapping.class);
-        handlerAnnotations.add(PutMapping.class);
-        handlerAnnotations.add(DeleteMapping.class);
-        handlerAnnotations.add(PatchMapping.class);
+    public ControllerVisitor(DynamicTypeRegistry typeRegistry) {
+        this(typeRegistry, new ProcessorMetrics(), new Diagnostics());
+    }
+
+    public ControllerVisitor(DynamicTypeRegistry typeRegistry, ProcessorMetrics metrics, Diagnostics diagnostics) {
+        this.typeRegistry = typeRegistry;
+        this.dynamicTypeMapper = new DynamicTypeMapper(typeRegistry, metrics, diagnostics);
+        this.mappingAnnotations = new MappingAnnotations();
+        this.metrics = metrics;
+        this.diagnostics = diagnostics;
     }
 
     /**
@@ -37,97 +45,172 @@ public class ControllerVisitor {
      * @return True if we can process
      */
     public <T extends Element> boolean accept(T annotatedElement) {
-        return annotatedElement.getKind() == ElementKind.CLASS && annotatedElement.getAnnotation(RestController.class) != null;
+        return annotatedElement.getKind() == ElementKind.CLASS
+                && mappingAnnotations.find(annotatedElement, MappingAnnotations.Kind.REST_CONTROLLER).isPresent();
     }
 
     /**
      * Actually visit a controller class and generate a service specification
      * @param controllerClass The annotated element. Should be a class
-     * @return A service spec for the given controller
+     * @return A service spec for the given controller, along with the route of each of its endpoints
      */
-    public ServiceSpec visitController(Element controllerClass) {
+    public VisitedController visitController(Element controllerClass) {
         // quick sanity check
         if (controllerClass.getKind() != ElementKind.CLASS) {
             throw new IllegalArgumentException(String.format("%s is not a class", controllerClass));
         }
 
         // find a request mapping at the root
-        RequestMapping classLevelRequestMapping = controllerClass.getAnnotation(RequestMapping.class);
-        String rootPath;
-        if (classLevelRequestMapping != null) {
-            rootPath = joinHandlerPath("", classLevelRequestMapping.value());
-        } else {
-            rootPath = "";
-        }
-
-        // pull out all endpoints
-        List<APIEndpoint> endpoints = controllerClass.getEnclosedElements().stream()
-                .filter(element -> element.getKind() == ElementKind.METHOD)
-                .peek(element -> logger.info("found method {}", element.getSimpleName()))
-                .filter(this::methodIsHandler)
-                .map(element -> this.visitHandler(element, rootPath))
-                .toList();
-
-        return new ServiceSpec(controllerClass.getSimpleName().toString(), endpoints);
-    }
+        Optional<AnnotationMirror> classLevelRequestMapping = mappingAnnotations.find(controllerClass, MappingAnnotations.Kind.REQUEST_MAPPING);
+        String rootPath = classLevelRequestMapping
+                .map(mapping -> joinHandlerPath("", MappingAnnotations.path(mapping)))
+                .orElse("");
+        List<String> rootConsumes = classLevelRequestMapping
+                .map(mapping -> List.of(MappingAnnotations.stringArrayValue(mapping, "consumes")))
+                .orElse(List.of());
+        List<String> rootProduces = classLevelRequestMapping
+                .map(mapping -> List.of(MappingAnnotations.stringArrayValue(mapping, "produces")))
+                .orElse(List.of());
+        List<String> rootConditions = classLevelRequestMapping
+                .map(ControllerVisitor::requestConditions)
+                .orElse(List.of());
+
+        // pull out all endpoints. Methods without a mapping annotation are not handlers, and handlers that can't be
+        // visited have already been reported
+        List<ExecutableElement> methods = ElementFilter.methodsIn(controllerClass.getEnclosedElements());
+        List<Pair<APIEndpoint, HandlerRoute>> handlers = new ArrayList<>();
+        for (int index = 0; index < methods.size(); index++) {
+            ExecutableElement method = methods.get(index);
+            Optional<Pair<MappingAnnotations.Kind, AnnotationMirror>> handlerMapping = mappingAnnotations.findHandlerMapping(method);
+            if (handlerMapping.isEmpty()) {
+                continue;
+            }
 
-    private boolean methodIsHandler(Element element) {
-        for (var anno : handlerAnnotations) {
-            if (element.getAnnotation(anno) != null) {
-                return true;
+            long start = metrics.start();
+            APIEndpoint endpoint = this.visitHandler(method, handlerMapping.get(), rootPath, rootConsumes, rootProduces);
+            metrics.stop(ProcessorMetrics.Phase.VISIT_HANDLER, start);
+            if (endpoint != null) {
+                List<String> conditions = new ArrayList<>(rootConditions);
+                conditions.addAll(requestConditions(handlerMapping.get().right()));
+                handlers.add(Pair.of(endpoint, new HandlerRoute(index, conditions)));
             }
         }
-        return false;
+        handlers.sort(Comparator.comparing(Pair::left, ENDPOINT_ORDER));
+
+        ServiceSpec service = new ServiceSpec(controllerClass.getSimpleName().toString(),
+                handlers.stream().map(Pair::left).toList());
+        return new VisitedController(service, handlers.stream().map(Pair::right).toList());
     }
 
-    private static Optional<Annotation> findRequestAnnotation(Element element) {
-        for (var anno : handlerAnnotations) {
-            Annotation annotation = element.getAnnotation(anno);
-            if (annotation != null) {
-                return Optional.of(annotation);
-            }
+    /**
+     * Find the params and headers a request needs for spring to route it to a handler. Unlike media types,
+     * conditions on the controller are combined with the ones on the handler
+     * @param mapping a request mapping on a controller or handler
+     * @return the conditions, like {@code params:version=2} or {@code headers:X-Api-Version=2}
+     */
+    private static List<String> requestConditions(AnnotationMirror mapping) {
+        List<String> conditions = new ArrayList<>();
+        for (String param : MappingAnnotations.stringArrayValue(mapping, "params")) {
+            conditions.add("params:" + param);
+        }
+        for (String header : MappingAnnotations.stringArrayValue(mapping, "headers")) {
+            conditions.add("headers:" + header);
         }
 
-        return Optional.empty();
+        return conditions;
     }
 
-    private APIEndpoint visitHandler(Element element, String prefixPath) {
-        logger.info("vising handler {}", element.getSimpleName());
+    /**
+     * @return the handler's endpoint, or null if the handler can't be visited
+     */
+    private APIEndpoint visitHandler(ExecutableElement element, Pair<MappingAnnotations.Kind, AnnotationMirror> handlerMapping, String prefixPath,
+                                     List<String> rootConsumes, List<String> rootProduces) {
+        diagnostics.debug(element, () -> "visiting handler " + element.getSimpleName());
 
         // first, figure out our http method
-        Annotation handlerAnnotation = findRequestAnnotation(element).orElseThrow();
-        APIEndpointMetadata metadata = RequestMappingDecomposer.convert(handlerAnnotation).orElseThrow();
+        APIEndpointMetadata metadata = RequestMappingDecomposer.convert(handlerMapping.left(), handlerMapping.right()).orElseThrow();
 
         // figure out the path
         String handlerPath = joinHandlerPath(prefixPath, metadata.endpoint());
-        // TODO map this to a template and parse out handler variables
 
-        // figure out path variables etc.
-        EndpointTemplate endpointTemplate = EndpointTemplateParser.parse(handlerPath, element);
+        // figure out path variables etc. A malformed template fails the build, but the other handlers are still visited
+        long parseStart = metrics.start();
+        EndpointTemplate endpointTemplate;
+        try {
+            endpointTemplate = EndpointTemplateParser.parse(handlerPath, element, dynamicTypeMapper, mappingAnnotations);
+        } catch (IllegalArgumentException e) {
+            diagnostics.error(element, e::getMessage);
+            return null;
+        } finally {
+            metrics.stop(ProcessorMetrics.Phase.TEMPLATE_PARSING, parseStart);
+        }
 
         // find the response body
-        ExecutableElement executableElement = (ExecutableElement) element;
+        ResponseShape response = dynamicTypeMapper.mapResponse(element, element.getReturnType());
 
-        DynamicType responseType = executableElement.getReturnType().accept(dynamicTypeMapper, null);
-        RequestValue responseBody = new RequestValue(responseType, true);
-
-        DynamicType requestBodyType = executableElement.getParameters().stream()
-                .filter(param -> param.getAnnotation(RequestBody.class) != null)
-                .map(param -> param.asType().accept(dynamicTypeMapper, null))
+        String requestBodyType = element.getParameters().stream()
+                .filter(param -> mappingAnnotations.find(param, MappingAnnotations.Kind.REQUEST_BODY).isPresent())
+                .map(param -> dynamicTypeMapper.mapTypeId(param, param.asType()))
                 .findFirst()
-                .orElse(DynamicType.primitive(DynamicTypeID.VOID));
+                .orElseGet(() -> typeRegistry.idOf(DynamicType.primitive(DynamicTypeID.VOID)));
         RequestValue requestBody = new RequestValue(requestBodyType, false);
 
+        // hints on the handler take precedence over ones on its controller
+        Element controllerClass = element.getEnclosingElement();
+        Optional<AnnotationMirror> handlerCacheHint = mappingAnnotations.find(element, MappingAnnotations.Kind.CACHE_HINT);
+        Map<String, Object> cacheHint = handlerCacheHint
+                .or(() -> mappingAnnotations.find(controllerClass, MappingAnnotations.Kind.CACHE_HINT))
+                .map(MappingAnnotations::values)
+                .orElse(null);
+        boolean explicitlyCacheable = handlerCacheHint
+                .map(hint -> MappingAnnotations.booleanValue(hint, "cacheable", false))
+                .orElse(false);
+        if (explicitlyCacheable && !metadata.method().isSafe()) {
+            diagnostics.warning(element, () -> String.format("%s handlers can't be cacheable, ignoring cacheable on %s",
+                    metadata.method(), element.getSimpleName()));
+        }
+        boolean springCacheable = mappingAnnotations.find(element, MappingAnnotations.Kind.CACHEABLE).isPresent()
+                || mappingAnnotations.find(controllerClass, MappingAnnotations.Kind.CACHEABLE).isPresent();
+        CacheHints cacheHints = CacheHintResolver.resolve(metadata.method(), response.envelope(), springCacheable, cacheHint);
+
         return new APIEndpoint(element.getSimpleName().toString(),
                 endpointTemplate.template(),
+                endpointTemplate.segments(),
                 metadata.method().name(),
                 endpointTemplate.pathVariables(),
                 endpointTemplate.queryVariables(),
                 requestBody,
-                responseBody);
+                response.body(),
+                response.async(),
+                response.elementStream(),
+                response.byteStream(),
+                mediaTypes(metadata.consumes(), rootConsumes),
+                mediaTypes(metadata.produces(), rootProduces),
+                cacheHints);
     }
 
-    private static String joinHandlerPath(String prefix, String[] components) {
+    /**
+     * Figure out the media types of a handler. Like spring, media types on the handler replace the ones on its
+     * controller instead of adding to them
+     * @param handlerMediaTypes the media types declared on the handler
+     * @param rootMediaTypes the media types declared on the controller
+     * @return the handler's media types
+     */
+    public static List<String> mediaTypes(String[] handlerMediaTypes, List<String> rootMediaTypes) {
+        if (handlerMediaTypes.length > 0) {
+            return List.of(handlerMediaTypes);
+        }
+
+        return rootMediaTypes;
+    }
+
+    /**
+     * Join a handler's path onto the path of its controller
+     * @param prefix the controller's path, which may be empty
+     * @param components the handler's path components
+     * @return the full path of the handler
+     */
+    public static String joinHandlerPath(String prefix, String[] components) {
         String suffix = Arrays.stream(components)
                 .filter(str -> !str.isBlank())
                 .collect(Collectors.joining("/"));
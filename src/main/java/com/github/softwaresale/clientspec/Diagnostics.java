@@ -0,0 +1,145 @@
+package com.github.softwaresale.clientspec;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Reports what the processor is doing. Messages go to a {@link Sink}: the processor uses the compiler's
+ * {@link Messager}, so that messages end up in the build output next to the code they are about, and other tools
+ * supply their own. Messages are only built if their level is enabled, so a disabled message costs a single
+ * comparison. Errors and warnings are counted even if they are not reported. Until a sink is set, messages are
+ * dropped.
+ */
+public class Diagnostics {
+
+    /**
+     * Where messages are reported to
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * @param kind how severe the message is
+         * @param element the element the message is about. Null if it isn't about one
+         * @param message the message
+         */
+        void report(Diagnostic.Kind kind, Element element, String message);
+    }
+
+    public enum Level {
+        OFF,
+        ERROR,
+        WARNING,
+        INFO,
+        DEBUG
+    }
+
+    private Sink sink = (kind, element, message) -> { };
+    private Level level = Level.WARNING;
+    /** errors and warnings so far. The bytecode scanner reports from several threads */
+    private final AtomicInteger problemCount = new AtomicInteger();
+
+    /**
+     * @param messager the messager to report to
+     * @return a sink that reports to a messager, on the element if there is one
+     */
+    public static Sink messager(Messager messager) {
+        return (kind, element, message) -> {
+            if (element == null) {
+                messager.printMessage(kind, message);
+            } else {
+                messager.printMessage(kind, message, element);
+            }
+        };
+    }
+
+    public void setSink(Sink sink) {
+        this.sink = sink;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * @param name the name of a level, in any case
+     * @return the level, or null if there is no such level
+     */
+    public static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Count the errors and warnings so far, including ones below the level. Used to tell if a piece of work reported
+     * anything, so that its result isn't reused without reporting it again
+     */
+    public int getProblemCount() {
+        return problemCount.get();
+    }
+
+    /**
+     * @return if messages at the given level are reported
+     */
+    public boolean isEnabled(Level level) {
+        return level != Level.OFF && level.compareTo(this.level) <= 0;
+    }
+
+    /**
+     * Report an error. Errors fail the build, so they are reported even if diagnostics are turned off
+     */
+    public void error(Element element, Supplier<String> message) {
+        report(Level.ERROR, element, message, true);
+    }
+
+    public void warning(Supplier<String> message) {
+        report(Level.WARNING, null, message);
+    }
+
+    public void warning(Element element, Supplier<String> message) {
+        report(Level.WARNING, element, message);
+    }
+
+    public void info(Supplier<String> message) {
+        report(Level.INFO, null, message);
+    }
+
+    public void debug(Supplier<String> message) {
+        report(Level.DEBUG, null, message);
+    }
+
+    public void debug(Element element, Supplier<String> message) {
+        report(Level.DEBUG, element, message);
+    }
+
+    private void report(Level level, Element element, Supplier<String> message) {
+        report(level, element, message, false);
+    }
+
+    private void report(Level level, Element element, Supplier<String> message, boolean always) {
+        if (level == Level.ERROR || level == Level.WARNING) {
+            problemCount.incrementAndGet();
+        }
+        if (!always && !isEnabled(level)) {
+            return;
+        }
+
+        Diagnostic.Kind kind = switch (level) {
+            case ERROR -> Diagnostic.Kind.ERROR;
+            case WARNING -> Diagnostic.Kind.WARNING;
+            default -> Diagnostic.Kind.NOTE;
+        };
+
+        sink.report(kind, element, message.get());
+    }
+}
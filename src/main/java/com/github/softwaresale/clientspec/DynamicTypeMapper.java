@@ -2,35 +2,223 @@ package com.github.softwaresale.clientspec;
 
 import com.github.softwaresale.clientspec.model.DynamicType;
 import com.github.softwaresale.clientspec.model.DynamicTypeID;
+import com.github.softwaresale.clientspec.model.RequestValue;
+import com.github.softwaresale.clientspec.model.ResponseShape;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.*;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
+/**
+ * Maps java types into dynamic types. Every type produced is interned in a shared registry, so equal types are
+ * always the same instance.
+ */
 public class DynamicTypeMapper implements TypeVisitor<DynamicType, Void> {
 
+    /**
+     * Types that only wrap a payload, and how they deliver it
+     */
+    public enum Wrapper {
+        /** the payload may be absent */
+        OPTIONAL,
+        /** the payload comes with headers or a status */
+        ENVELOPE,
+        /** the payload is produced asynchronously */
+        ASYNC,
+        /** the payload is a stream of elements */
+        ELEMENT_STREAM,
+        /** the payload is a stream of raw bytes */
+        BYTE_STREAM
+    }
+
     private static final Map<String, DynamicTypeID> wellKnownDeclaredScalarTypes = new HashMap<>();
     private static final Map<String, DynamicTypeID> wellKnownDeclaredSequenceTypes = new HashMap<>();
+    private static final Map<String, Wrapper> wellKnownWrapperTypes = new HashMap<>();
 
     static {
-        // well-known scalar types
-        wellKnownDeclaredScalarTypes.put(Object.class.getSimpleName(), DynamicTypeID.ANY);
-        wellKnownDeclaredScalarTypes.put(Character.class.getSimpleName(), DynamicTypeID.CHAR);
-        wellKnownDeclaredScalarTypes.put(Byte.class.getSimpleName(), DynamicTypeID.CHAR);
-        wellKnownDeclaredScalarTypes.put(String.class.getSimpleName(), DynamicTypeID.STRING);
-        wellKnownDeclaredScalarTypes.put(Short.class.getSimpleName(), DynamicTypeID.INTEGER);
-        wellKnownDeclaredScalarTypes.put(Integer.class.getSimpleName(), DynamicTypeID.INTEGER);
-        wellKnownDeclaredScalarTypes.put(Long.class.getSimpleName(), DynamicTypeID.INTEGER);
-        wellKnownDeclaredScalarTypes.put(Float.class.getSimpleName(), DynamicTypeID.FLOAT);
-        wellKnownDeclaredScalarTypes.put(Double.class.getSimpleName(), DynamicTypeID.FLOAT);
+        // well-known scalar types, by qualified name
+        wellKnownDeclaredScalarTypes.put(Object.class.getName(), DynamicTypeID.ANY);
+        wellKnownDeclaredScalarTypes.put(Character.class.getName(), DynamicTypeID.CHAR);
+        wellKnownDeclaredScalarTypes.put(Byte.class.getName(), DynamicTypeID.CHAR);
+        wellKnownDeclaredScalarTypes.put(String.class.getName(), DynamicTypeID.STRING);
+        wellKnownDeclaredScalarTypes.put(Short.class.getName(), DynamicTypeID.INTEGER);
+        wellKnownDeclaredScalarTypes.put(Integer.class.getName(), DynamicTypeID.INTEGER);
+        wellKnownDeclaredScalarTypes.put(Long.class.getName(), DynamicTypeID.INTEGER);
+        wellKnownDeclaredScalarTypes.put(Float.class.getName(), DynamicTypeID.FLOAT);
+        wellKnownDeclaredScalarTypes.put(Double.class.getName(), DynamicTypeID.FLOAT);
+        wellKnownDeclaredScalarTypes.put(Void.class.getName(), DynamicTypeID.VOID);
+
+        // well-known binary types. These are sent as raw bytes instead of being serialized
+        wellKnownDeclaredScalarTypes.put(InputStream.class.getName(), DynamicTypeID.BINARY);
+        wellKnownDeclaredScalarTypes.put(ByteBuffer.class.getName(), DynamicTypeID.BINARY);
+        wellKnownDeclaredScalarTypes.put("org.springframework.core.io.Resource", DynamicTypeID.BINARY);
+        wellKnownDeclaredScalarTypes.put("org.springframework.core.io.InputStreamResource", DynamicTypeID.BINARY);
+        wellKnownDeclaredScalarTypes.put("org.springframework.core.io.ByteArrayResource", DynamicTypeID.BINARY);
+        wellKnownDeclaredScalarTypes.put("org.springframework.core.io.FileSystemResource", DynamicTypeID.BINARY);
+        wellKnownDeclaredScalarTypes.put("org.springframework.web.multipart.MultipartFile", DynamicTypeID.BINARY);
+        wellKnownDeclaredScalarTypes.put("org.springframework.http.codec.multipart.FilePart", DynamicTypeID.BINARY);
+
+        // well-known sequence types, by qualified name
+        wellKnownDeclaredSequenceTypes.put(Set.class.getName(), DynamicTypeID.ARRAY);
+        wellKnownDeclaredSequenceTypes.put(List.class.getName(), DynamicTypeID.ARRAY);
+
+        // well-known wrapper types, by qualified name. Spring and reactor are matched by name, like the mapping
+        // annotations, so that neither has to be on the processor's classpath
+        wellKnownWrapperTypes.put(Optional.class.getName(), Wrapper.OPTIONAL);
+        wellKnownWrapperTypes.put("org.springframework.http.ResponseEntity", Wrapper.ENVELOPE);
+        wellKnownWrapperTypes.put("org.springframework.http.HttpEntity", Wrapper.ENVELOPE);
+        wellKnownWrapperTypes.put("org.springframework.http.codec.ServerSentEvent", Wrapper.ENVELOPE);
+        wellKnownWrapperTypes.put(CompletableFuture.class.getName(), Wrapper.ASYNC);
+        wellKnownWrapperTypes.put(CompletionStage.class.getName(), Wrapper.ASYNC);
+        wellKnownWrapperTypes.put(Callable.class.getName(), Wrapper.ASYNC);
+        wellKnownWrapperTypes.put("org.springframework.web.context.request.async.DeferredResult", Wrapper.ASYNC);
+        wellKnownWrapperTypes.put("org.springframework.web.context.request.async.WebAsyncTask", Wrapper.ASYNC);
+        wellKnownWrapperTypes.put("reactor.core.publisher.Mono", Wrapper.ASYNC);
+        wellKnownWrapperTypes.put("reactor.core.publisher.Flux", Wrapper.ELEMENT_STREAM);
+        wellKnownWrapperTypes.put("org.springframework.web.servlet.mvc.method.annotation.SseEmitter", Wrapper.ELEMENT_STREAM);
+        wellKnownWrapperTypes.put("org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter", Wrapper.ELEMENT_STREAM);
+        wellKnownWrapperTypes.put("org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody", Wrapper.BYTE_STREAM);
+        wellKnownWrapperTypes.put("org.springframework.core.io.buffer.DataBuffer", Wrapper.BYTE_STREAM);
+    }
+
+    private final DynamicTypeRegistry typeRegistry;
+    private final ProcessorMetrics metrics;
+    private final Diagnostics diagnostics;
+    /** the first type in the current mapping that couldn't be mapped. Null if every type could be */
+    private TypeMirror unsupportedType;
+
+    public DynamicTypeMapper(DynamicTypeRegistry typeRegistry) {
+        this(typeRegistry, new ProcessorMetrics(), new Diagnostics());
+    }
+
+    public DynamicTypeMapper(DynamicTypeRegistry typeRegistry, ProcessorMetrics metrics, Diagnostics diagnostics) {
+        this.typeRegistry = typeRegistry;
+        this.metrics = metrics;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Map a type and get the ID it is registered under. If the type or anything nested in it can't be mapped, a
+     * warning is reported on the element
+     * @param element the element the type belongs to
+     * @param typeMirror the type to map
+     * @return the ID of the mapped type, or null if the type can't be mapped
+     */
+    public String mapTypeId(Element element, TypeMirror typeMirror) {
+        long start = metrics.start();
+        String typeId = typeRegistry.idOf(typeMirror.accept(this, null));
+        reportUnsupportedType(element);
+        metrics.stop(ProcessorMetrics.Phase.TYPE_MAPPING, start);
+        return typeId;
+    }
+
+    private void reportUnsupportedType(Element element) {
+        if (unsupportedType != null) {
+            TypeMirror type = unsupportedType;
+            unsupportedType = null;
+            diagnostics.warning(element, () -> String.format("type %s of %s is not supported by client-spec", type, element.getSimpleName()));
+        }
+    }
+
+    private DynamicType unsupported(TypeMirror typeMirror) {
+        if (unsupportedType == null) {
+            unsupportedType = typeMirror;
+        }
+
+        return null;
+    }
 
-        // well-known sequence types
-        wellKnownDeclaredSequenceTypes.put(Set.class.getSimpleName(), DynamicTypeID.ARRAY);
-        wellKnownDeclaredSequenceTypes.put(List.class.getSimpleName(), DynamicTypeID.ARRAY);
+    /**
+     * @param qualifiedName the qualified name of a declared type without type arguments
+     * @return the scalar type it maps to, or null if it isn't a well-known scalar
+     */
+    public static DynamicTypeID wellKnownScalar(String qualifiedName) {
+        return wellKnownDeclaredScalarTypes.get(qualifiedName);
     }
 
+    /**
+     * @param qualifiedName the qualified name of a generic declared type
+     * @return the sequence type it maps to, or null if it isn't a well-known sequence
+     */
+    public static DynamicTypeID wellKnownSequence(String qualifiedName) {
+        return wellKnownDeclaredSequenceTypes.get(qualifiedName);
+    }
+
+    /**
+     * @param qualifiedName the qualified name of a declared type
+     * @return how the type wraps its payload, or null if it isn't a well-known wrapper
+     */
+    public static Wrapper wellKnownWrapper(String qualifiedName) {
+        return wellKnownWrapperTypes.get(qualifiedName);
+    }
+
+    /**
+     * Map a handler's return type. Wrappers are peeled off until the payload is reached, and each one that is
+     * peeled off is recorded in the shape
+     * @param handler the handler
+     * @param returnType the handler's return type
+     * @return the shape of the handler's response
+     */
+    public ResponseShape mapResponse(Element handler, TypeMirror returnType) {
+        long start = metrics.start();
+        boolean required = true;
+        boolean envelope = false;
+        boolean async = false;
+        boolean elementStream = false;
+        boolean byteStream = false;
+
+        TypeMirror payload = returnType;
+        while (payload instanceof DeclaredType declaredType) {
+            Wrapper wrapper = wellKnownWrapper(qualifiedName(declaredType));
+            if (wrapper == null) {
+                break;
+            }
+
+            switch (wrapper) {
+                case OPTIONAL -> required = false;
+                case ENVELOPE -> envelope = true;
+                case ASYNC -> async = true;
+                case ELEMENT_STREAM -> {
+                    async = true;
+                    elementStream = true;
+                }
+                case BYTE_STREAM -> {
+                    // a stream of byte buffers is still just bytes on the wire
+                    async = true;
+                    elementStream = false;
+                    byteStream = true;
+                }
+            }
+
+            payload = declaredType.getTypeArguments().isEmpty() ? null : declaredType.getTypeArguments().get(0);
+        }
+
+        DynamicType payloadType;
+        if (byteStream) {
+            payloadType = bytes();
+        } else if (payload == null) {
+            // the payload of a raw wrapper is unknown
+            payloadType = typeRegistry.intern(DynamicType.primitive(DynamicTypeID.ANY));
+        } else {
+            payloadType = payload.accept(this, null);
+        }
+
+        reportUnsupportedType(handler);
+        ResponseShape shape = new ResponseShape(new RequestValue(typeRegistry.idOf(payloadType), required), envelope, async, elementStream, byteStream);
+        metrics.stop(ProcessorMetrics.Phase.TYPE_MAPPING, start);
+        return shape;
+    }
 
     @Override
     public DynamicType visit(TypeMirror typeMirror, Void unused) {
@@ -51,7 +239,7 @@ public class DynamicTypeMapper implements TypeVisitor<DynamicType, Void> {
             }
         };
 
-        return DynamicType.primitive(typeID);
+        return typeRegistry.intern(DynamicType.primitive(typeID));
     }
 
     @Override
@@ -61,31 +249,48 @@ public class DynamicTypeMapper implements TypeVisitor<DynamicType, Void> {
 
     @Override
     public DynamicType visitArray(ArrayType arrayType, Void unused) {
+        if (arrayType.getComponentType().getKind() == TypeKind.BYTE) {
+            return bytes();
+        }
+
         DynamicType elementType = arrayType.getComponentType().accept(this, unused);
-        return new DynamicType(DynamicTypeID.ARRAY, "", List.of(elementType));
+        return typeRegistry.intern(new DynamicType(DynamicTypeID.ARRAY, "", List.of(elementType)));
     }
 
     @Override
     public DynamicType visitDeclared(DeclaredType declaredType, Void unused) {
 
+        // wrappers are transparent outside of responses too, so a Mono<T> request body is a T
+        Wrapper wrapper = wellKnownWrapper(qualifiedName(declaredType));
+        if (wrapper != null) {
+            return visitWrapper(declaredType, wrapper);
+        }
+
+        // enums are sent as the names of their constants. The reference leads to the constants
+        if (declaredType.asElement().getKind() == ElementKind.ENUM) {
+            String reference = registerDeclaringElement(declaredType);
+            return typeRegistry.intern(new DynamicType(DynamicTypeID.STRING, reference, List.of()));
+        }
+
         // if this is not generic
         if (declaredType.getTypeArguments().isEmpty()) {
 
             // figure if this is a well known scalar type
-            DynamicTypeID wellKnownType = wellKnownDeclaredScalarTypes.get(declaredType.asElement().getSimpleName().toString());
+            DynamicTypeID wellKnownType = wellKnownScalar(qualifiedName(declaredType));
             if (wellKnownType != null) {
-                return DynamicType.primitive(wellKnownType);
+                return typeRegistry.intern(DynamicType.primitive(wellKnownType));
             }
 
-            return new DynamicType(DynamicTypeID.USER, declaredType.asElement().getSimpleName().toString(), List.of());
+            String reference = registerDeclaringElement(declaredType);
+            return typeRegistry.intern(new DynamicType(DynamicTypeID.USER, reference, List.of()));
         }
 
         // this is generic, so figure that out
-        DynamicTypeID sequenceTypeID = wellKnownDeclaredSequenceTypes.get(declaredType.asElement().getSimpleName().toString());
+        DynamicTypeID sequenceTypeID = wellKnownSequence(qualifiedName(declaredType));
         if (sequenceTypeID != null) {
             // this type is a well-known sequence type (list, set, etc.). We need to get the inner type
             DynamicType elementType = declaredType.getTypeArguments().get(0).accept(this, unused);
-            return new DynamicType(sequenceTypeID, "", List.of(elementType));
+            return typeRegistry.intern(new DynamicType(sequenceTypeID, "", List.of(elementType)));
         }
 
         // otherwise, this is just another generic. Figure that out
@@ -93,12 +298,48 @@ public class DynamicTypeMapper implements TypeVisitor<DynamicType, Void> {
                 .map(typeVar -> typeVar.accept(this, unused))
                 .toList();
 
-        return new DynamicType(DynamicTypeID.GENERIC, declaredType.asElement().getSimpleName().toString(), genericParams);
+        String reference = registerDeclaringElement(declaredType);
+        return typeRegistry.intern(new DynamicType(DynamicTypeID.GENERIC, reference, genericParams));
+    }
+
+    private DynamicType visitWrapper(DeclaredType declaredType, Wrapper wrapper) {
+        if (wrapper == Wrapper.BYTE_STREAM) {
+            return bytes();
+        }
+
+        DynamicType payloadType = declaredType.getTypeArguments().isEmpty()
+                ? typeRegistry.intern(DynamicType.primitive(DynamicTypeID.ANY))
+                : declaredType.getTypeArguments().get(0).accept(this, null);
+
+        // without a response to flag as streaming, a stream of elements is just a sequence of them
+        if (wrapper == Wrapper.ELEMENT_STREAM) {
+            return typeRegistry.intern(new DynamicType(DynamicTypeID.ARRAY, "", List.of(payloadType)));
+        }
+
+        return payloadType;
+    }
+
+    private static String qualifiedName(DeclaredType declaredType) {
+        return ((TypeElement) declaredType.asElement()).getQualifiedName().toString();
+    }
+
+    private DynamicType bytes() {
+        return typeRegistry.intern(DynamicType.primitive(DynamicTypeID.BINARY));
+    }
+
+    /**
+     * @return the reference name of the declared type
+     */
+    private String registerDeclaringElement(DeclaredType declaredType) {
+        TypeElement element = (TypeElement) declaredType.asElement();
+        String reference = DynamicTypeRegistry.referenceName(element);
+        typeRegistry.registerDeclaringElement(reference, element);
+        return reference;
     }
 
     @Override
     public DynamicType visitError(ErrorType errorType, Void unused) {
-        return null;
+        return unsupported(errorType);
     }
 
     @Override
@@ -110,19 +351,19 @@ public class DynamicTypeMapper implements TypeVisitor<DynamicType, Void> {
     @Override
     public DynamicType visitWildcard(WildcardType wildcardType, Void unused) {
         // TODO this is a bad approximation... but it's good enough for now
-        return DynamicType.primitive(DynamicTypeID.ANY);
+        return typeRegistry.intern(DynamicType.primitive(DynamicTypeID.ANY));
     }
 
     @Override
     public DynamicType visitExecutable(ExecutableType executableType, Void unused) {
-        return null;
+        return unsupported(executableType);
     }
 
     @Override
     public DynamicType visitNoType(NoType noType, Void unused) {
 
         if (noType.getKind() == TypeKind.VOID) {
-            return DynamicType.primitive(DynamicTypeID.VOID);
+            return typeRegistry.intern(DynamicType.primitive(DynamicTypeID.VOID));
         }
 
         return null;
@@ -130,16 +371,16 @@ public class DynamicTypeMapper implements TypeVisitor<DynamicType, Void> {
 
     @Override
     public DynamicType visitUnknown(TypeMirror typeMirror, Void unused) {
-        return null;
+        return unsupported(typeMirror);
     }
 
     @Override
     public DynamicType visitUnion(UnionType unionType, Void unused) {
-        return null;
+        return unsupported(unionType);
     }
 
     @Override
     public DynamicType visitIntersection(IntersectionType intersectionType, Void unused) {
-        return null;
+        return unsupported(intersectionType);
     }
 }
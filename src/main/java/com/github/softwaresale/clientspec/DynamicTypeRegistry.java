@@ -0,0 +1,187 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.APIEndpoint;
+import com.github.softwaresale.clientspec.model.DynamicType;
+import com.github.softwaresale.clientspec.model.RequestValue;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+
+import javax.lang.model.element.TypeElement;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Interns dynamic types so that each distinct type has exactly one canonical instance and a stable ID. The ID is
+ * derived from the type's contents, so the same type gets the same ID in every build.
+ */
+public class DynamicTypeRegistry {
+
+    /** canonical instance to its ID */
+    private final Map<DynamicType, String> typeIds = new HashMap<>();
+    /** ID to its canonical instance. Sorted so that the type table is always in the same order */
+    private final SortedMap<String, DynamicType> typesById = new TreeMap<>();
+    /** qualified name of user types to the element that declares them. Only known for types seen in this compilation */
+    private final Map<String, TypeElement> declaringElements = new HashMap<>();
+
+    /**
+     * Get the canonical instance of a type, registering it if it has not been seen yet. Nested types are interned
+     * as well.
+     * @param type the type to intern. May be null
+     * @return the canonical instance of this type, or null if type is null
+     */
+    public DynamicType intern(DynamicType type) {
+        if (type == null) {
+            return null;
+        }
+
+        String existingId = typeIds.get(type);
+        if (existingId != null) {
+            return typesById.get(existingId);
+        }
+
+        // make sure nested types are canonical before registering this one
+        if (type.nested() != null && !type.nested().isEmpty()) {
+            List<DynamicType> nested = type.nested().stream()
+                    .map(this::intern)
+                    .toList();
+            type = new DynamicType(type.typeID(), type.reference(), nested);
+        }
+
+        String id = computeId(type);
+        typeIds.put(type, id);
+        typesById.put(id, type);
+        return type;
+    }
+
+    /**
+     * Get the ID of a type, interning it if needed
+     * @param type the type to identify. May be null
+     * @return the type's ID, or null if type is null
+     */
+    public String idOf(DynamicType type) {
+        DynamicType canonical = intern(type);
+        if (canonical == null) {
+            return null;
+        }
+
+        return typeIds.get(canonical);
+    }
+
+    /**
+     * Look up a type by ID
+     * @param id the type's ID
+     * @return the type, if it is registered
+     */
+    public Optional<DynamicType> lookup(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(typesById.get(id));
+    }
+
+    /**
+     * Get the name a user or generic type is referenced by. Types are referenced by qualified name, so that classes
+     * with the same simple name in different packages stay apart
+     * @param element the element declaring the type
+     * @return the qualified name of the element, or its simple name if it has none, like local classes
+     */
+    public static String referenceName(TypeElement element) {
+        String qualifiedName = element.getQualifiedName().toString();
+        return qualifiedName.isEmpty() ? element.getSimpleName().toString() : qualifiedName;
+    }
+
+    /**
+     * Record which element declares a user or generic type
+     * @param reference the type's reference name
+     * @param element the element declaring the type
+     */
+    public void registerDeclaringElement(String reference, TypeElement element) {
+        declaringElements.putIfAbsent(reference, element);
+    }
+
+    /**
+     * Find the element that declares a user or generic type
+     * @param reference the type's reference name
+     * @return the declaring element, if it is known
+     */
+    public Optional<TypeElement> declaringElement(String reference) {
+        if (reference == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(declaringElements.get(reference));
+    }
+
+    /**
+     * @return every registered type, sorted by ID
+     */
+    public SortedMap<String, DynamicType> types() {
+        return Collections.unmodifiableSortedMap(typesById);
+    }
+
+    /**
+     * Find every type that a service references, including nested types
+     * @param service the service to inspect
+     * @return the referenced types, keyed by ID
+     */
+    public SortedMap<String, DynamicType> referencedTypes(ServiceSpec service) {
+        Set<String> roots = service.endpoints().stream()
+                .flatMap(endpoint -> requestValues(endpoint).stream())
+                .map(RequestValue::type)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        SortedMap<String, DynamicType> referenced = new TreeMap<>();
+        Deque<String> worklist = new ArrayDeque<>(roots);
+        while (!worklist.isEmpty()) {
+            String id = worklist.pop();
+            DynamicType type = typesById.get(id);
+            if (type == null || referenced.putIfAbsent(id, type) != null) {
+                continue;
+            }
+
+            if (type.nested() != null) {
+                type.nested().stream()
+                        .filter(Objects::nonNull)
+                        .map(typeIds::get)
+                        .forEach(worklist::push);
+            }
+        }
+
+        return referenced;
+    }
+
+    private static List<RequestValue> requestValues(APIEndpoint endpoint) {
+        List<RequestValue> values = new ArrayList<>();
+        values.addAll(endpoint.pathVariables().values());
+        values.addAll(endpoint.queryVariables().values());
+        values.add(endpoint.requestBody());
+        values.add(endpoint.responseBody());
+        return values;
+    }
+
+    /**
+     * IDs look like {@code STRING}, {@code USER:com.example.OrderDto}, {@code ARRAY<USER:com.example.OrderDto>}, or
+     * {@code GENERIC:com.example.Page<USER:com.example.OrderDto>}. Nested types must already be interned.
+     */
+    private String computeId(DynamicType type) {
+        StringBuilder id = new StringBuilder(type.typeID().name());
+        if (type.reference() != null && !type.reference().isEmpty()) {
+            id.append(':').append(type.reference());
+        }
+
+        if (type.nested() != null && !type.nested().isEmpty()) {
+            id.append('<');
+            for (int i = 0; i < type.nested().size(); i++) {
+                if (i > 0) {
+                    id.append(',');
+                }
+                DynamicType nested = type.nested().get(i);
+                id.append(nested == null ? "null" : typeIds.get(nested));
+            }
+            id.append('>');
+        }
+
+        return id.toString();
+    }
+}
@@ -1,101 +1,173 @@
 package com.github.softwaresale.clientspec;
 
-import com.github.softwaresale.clientspec.model.DynamicType;
 import com.github.softwaresale.clientspec.model.EndpointTemplate;
 import com.github.softwaresale.clientspec.model.RequestValue;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestParam;
+import com.github.softwaresale.clientspec.model.TemplateSegment;
 
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
-import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
-import java.util.AbstractMap;
+import javax.lang.model.element.VariableElement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 public class EndpointTemplateParser {
 
-    private static final Logger logger = LoggerFactory.getLogger(EndpointTemplateParser.class);
+    public static EndpointTemplate parse(String endpointTemplate, Element methodElement, DynamicTypeMapper dynamicTypeMapper,
+                                         MappingAnnotations mappingAnnotations) {
+        ExecutableElement executableElement = (ExecutableElement) methodElement;
 
-    /** Finds group definitions in the pattern */
-    private static final Pattern groupFinder;
-    private static final DynamicTypeMapper dynamicTypeMapper = new DynamicTypeMapper();
+        // sort every parameter into path and query variables in a single pass over its annotations. Variables are
+        // kept sorted so that the output is the same on every build
+        Map<String, RequestValue> pathVariables = new TreeMap<>();
+        Map<String, RequestValue> queryVariables = new TreeMap<>();
+        for (VariableElement param : executableElement.getParameters()) {
+            for (AnnotationMirror annotation : param.getAnnotationMirrors()) {
+                switch (mappingAnnotations.kindOf(annotation)) {
+                    case PATH_VARIABLE -> pathVariables.put(variableName(annotation, param),
+                            requestValue(annotation, param, dynamicTypeMapper));
+                    case REQUEST_PARAM -> queryVariables.put(variableName(annotation, param),
+                            requestValue(annotation, param, dynamicTypeMapper));
+                    default -> { }
+                }
+            }
+        }
 
-    static {
-        groupFinder = Pattern.compile("\\{\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*}");
+        // parse the template
+        List<TemplateSegment> segments = tokenize(endpointTemplate);
+        return new EndpointTemplate(flatten(segments), segments, pathVariables, queryVariables);
     }
 
-    public static EndpointTemplate parse(String endpointTemplate, Element methodElement) {
-        ExecutableElement executableElement = (ExecutableElement) methodElement;
-
-        Map<String, RequestValue> pathVariables = extractPathVariables(executableElement);
-        Map<String, RequestValue> queryVariables = extractQueryParameters(methodElement);
+    /**
+     * Split a Spring path template into segments in a single pass. Supports {@code {name}}, {@code {name:regex}},
+     * {@code {*name}} and {@code **}. Everything else is literal text
+     * @param template the template to split
+     * @return the segments of the template, in order
+     */
+    public static List<TemplateSegment> tokenize(String template) {
+        List<TemplateSegment> segments = new ArrayList<>();
+        int literalStart = 0;
+        int index = 0;
+        while (index < template.length()) {
+            char current = template.charAt(index);
+            if (current == '{') {
+                int end = closingBrace(template, index);
+                addLiteral(segments, template, literalStart, index);
+                segments.add(variable(template, template.substring(index + 1, end)));
+                index = end + 1;
+                literalStart = index;
+            } else if (current == '*' && isDoubleWildcard(template, index)) {
+                addLiteral(segments, template, literalStart, index);
+                segments.add(TemplateSegment.catchAll(null));
+                index += 2;
+                literalStart = index;
+            } else {
+                index++;
+            }
+        }
+        addLiteral(segments, template, literalStart, index);
+
+        return segments;
+    }
 
-        String expandedTemplate = groupFinder.matcher(endpointTemplate).replaceAll(matchResult -> {
-            String variableName = matchResult.group(1);
-            return String.format("{{%s}}", variableName);
-        });
+    /**
+     * Join segments back into the flat template format, where every variable is written as {@code {{name}}}
+     * @param segments the segments of a template
+     * @return the flat template
+     */
+    public static String flatten(List<TemplateSegment> segments) {
+        StringBuilder template = new StringBuilder();
+        for (TemplateSegment segment : segments) {
+            if (segment.kind() == TemplateSegment.Kind.LITERAL) {
+                template.append(segment.value());
+            } else if (segment.value() == null) {
+                template.append("**");
+            } else {
+                template.append("{{").append(segment.value()).append("}}");
+            }
+        }
+
+        return template.toString();
+    }
 
-        // parse the template
-        return new EndpointTemplate(expandedTemplate, pathVariables, queryVariables);
+    private static void addLiteral(List<TemplateSegment> segments, String template, int start, int end) {
+        if (end > start) {
+            segments.add(TemplateSegment.literal(template.substring(start, end)));
+        }
     }
 
-    private static Map<String, RequestValue> extractPathVariables(ExecutableElement methodElement) {
-        return methodElement.getParameters().stream()
-                .peek(param -> logger.info("got parameter {}", param.getSimpleName()))
-                .filter(param -> param.getAnnotation(PathVariable.class) != null)
-                .map(param -> {
-                    PathVariable pathVariableAnnotation = param.getAnnotation(PathVariable.class);
+    /**
+     * Find the brace that closes a variable. Regexes can contain braces of their own, like {@code \d{3}}
+     */
+    private static int closingBrace(String template, int open) {
+        int depth = 0;
+        for (int index = open; index < template.length(); index++) {
+            char current = template.charAt(index);
+            if (current == '\\') {
+                index++;
+            } else if (current == '{') {
+                depth++;
+            } else if (current == '}' && --depth == 0) {
+                return index;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("unclosed variable in endpoint template '%s'", template));
+    }
 
-                    // first, try taking the annotation name. If name is specified, take that over value
-                    String pathVariableName = pathVariableAnnotation.value();
-                    if (!pathVariableAnnotation.name().isEmpty()) {
-                        pathVariableName = pathVariableAnnotation.name();
-                    }
+    private static TemplateSegment variable(String template, String body) {
+        String trimmed = body.strip();
+        if (trimmed.startsWith("*")) {
+            return TemplateSegment.catchAll(segmentName(template, trimmed.substring(1)));
+        }
 
-                    // if path variable name is not specified, then use the variable's name
-                    if (pathVariableName.isEmpty()) {
-                        pathVariableName = param.getSimpleName().toString();
-                    }
+        int colon = trimmed.indexOf(':');
+        if (colon >= 0) {
+            return TemplateSegment.constrainedVariable(segmentName(template, trimmed.substring(0, colon)), trimmed.substring(colon + 1));
+        }
 
-                    // we have a variable name, we now need to extract its type
-                    DynamicType dynamicType = param.asType().accept(dynamicTypeMapper, null);
+        return TemplateSegment.variable(segmentName(template, trimmed));
+    }
 
-                    RequestValue requestValue = new RequestValue(dynamicType, pathVariableAnnotation.required());
+    private static String segmentName(String template, String name) {
+        String trimmed = name.strip();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException(String.format("unnamed variable in endpoint template '%s'", template));
+        }
 
-                    return new AbstractMap.SimpleEntry<>(pathVariableName, requestValue);
-                })
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return trimmed;
     }
 
-    private static Map<String, RequestValue> extractQueryParameters(Element methodElement) {
-        return methodElement.getEnclosedElements().stream()
-                .filter(param -> param.getKind() == ElementKind.PARAMETER)
-                .filter(param -> param.getAnnotation(RequestParam.class) != null)
-                .map(param -> {
-                    RequestParam requestParamAnnotation = param.getAnnotation(RequestParam.class);
-
-                    // first, try taking the annotation name. If name is specified, take that over value
-                    String requestParamName = requestParamAnnotation.value();
-                    if (!requestParamAnnotation.name().isEmpty()) {
-                        requestParamName = requestParamAnnotation.name();
-                    }
+    /**
+     * {@code **} is only a wildcard when it makes up a whole path segment
+     */
+    private static boolean isDoubleWildcard(String template, int index) {
+        return index + 1 < template.length() && template.charAt(index + 1) == '*'
+                && (index == 0 || template.charAt(index - 1) == '/')
+                && (index + 2 == template.length() || template.charAt(index + 2) == '/');
+    }
 
-                    // if path variable name is not specified, then use the variable's name
-                    if (requestParamName.isEmpty()) {
-                        requestParamName = param.getSimpleName().toString();
-                    }
+    private static String variableName(AnnotationMirror annotation, VariableElement param) {
+        // first, try taking the annotation name. If name is specified, take that over value
+        String variableName = MappingAnnotations.stringValue(annotation, "value");
+        String name = MappingAnnotations.stringValue(annotation, "name");
+        if (!name.isEmpty()) {
+            variableName = name;
+        }
 
-                    // we have a variable name, we now need to extract its type
-                    DynamicType dynamicType = param.asType().accept(dynamicTypeMapper, null);
+        // if the variable name is not specified, then use the parameter's name
+        if (variableName.isEmpty()) {
+            variableName = param.getSimpleName().toString();
+        }
 
-                    RequestValue requestValue = new RequestValue(dynamicType, requestParamAnnotation.required());
+        return variableName;
+    }
 
-                    return new AbstractMap.SimpleEntry<>(requestParamName, requestValue);
-                })
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private static RequestValue requestValue(AnnotationMirror annotation, VariableElement param, DynamicTypeMapper dynamicTypeMapper) {
+        // we have a variable name, we now need to extract its type
+        String typeId = dynamicTypeMapper.mapTypeId(param, param.asType());
+        return new RequestValue(typeId, MappingAnnotations.booleanValue(annotation, "required", true));
     }
 }
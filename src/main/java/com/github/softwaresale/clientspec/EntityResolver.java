@@ -1,7 +1,208 @@
 package com.github.softwaresale.clientspec;
 
+import com.github.softwaresale.clientspec.model.*;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.util.*;
+
 /**
- * An entity constructs a unique set of entities that are needed to consume this API
+ * An entity constructs a unique set of entities that are needed to consume this API. Entities are found by walking
+ * every type reachable from the API's endpoints with a worklist, so cyclic entity graphs are fine and each entity is
+ * only resolved once no matter how many endpoints refer to it.
  */
 public class EntityResolver {
+
+    private final DynamicTypeRegistry typeRegistry;
+    private final DynamicTypeMapper dynamicTypeMapper;
+    private final Diagnostics diagnostics;
+
+    /** every element that has been resolved, so entities are never resolved twice */
+    private final Map<TypeElement, EntitySpec> resolvedEntities = new HashMap<>();
+    /** IDs of every type directly referenced by an endpoint */
+    private final Set<String> rootTypes = new HashSet<>();
+
+    public EntityResolver(DynamicTypeRegistry typeRegistry) {
+        this(typeRegistry, new ProcessorMetrics(), new Diagnostics());
+    }
+
+    public EntityResolver(DynamicTypeRegistry typeRegistry, ProcessorMetrics metrics, Diagnostics diagnostics) {
+        this.typeRegistry = typeRegistry;
+        this.dynamicTypeMapper = new DynamicTypeMapper(typeRegistry, metrics, diagnostics);
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Add every type a service refers to as a starting point for resolution. Only the type IDs are kept, so the
+     * service itself does not need to stay around
+     * @param service the service to resolve entities for
+     */
+    public void addRoots(ServiceSpec service) {
+        for (APIEndpoint endpoint : service.endpoints()) {
+            endpoint.pathVariables().values().forEach(value -> addRoot(value.type()));
+            endpoint.queryVariables().values().forEach(value -> addRoot(value.type()));
+            addRoot(endpoint.requestBody().type());
+            addRoot(endpoint.responseBody().type());
+        }
+    }
+
+    private void addRoot(String typeId) {
+        if (typeId != null) {
+            rootTypes.add(typeId);
+        }
+    }
+
+    /**
+     * Resolve every entity reachable from the roots that have been added
+     * @return the entities, sorted by name
+     */
+    public List<EntitySpec> resolve() {
+        Deque<String> worklist = new ArrayDeque<>(rootTypes);
+
+        Set<String> visitedTypes = new HashSet<>();
+        SortedMap<String, EntitySpec> entities = new TreeMap<>();
+        while (!worklist.isEmpty()) {
+            String typeId = worklist.pop();
+            if (!visitedTypes.add(typeId)) {
+                continue;
+            }
+
+            DynamicType type = typeRegistry.lookup(typeId).orElse(null);
+            if (type == null) {
+                continue;
+            }
+
+            // generic arguments and array elements may be entities too
+            if (type.nested() != null) {
+                type.nested().stream()
+                        .map(typeRegistry::idOf)
+                        .filter(Objects::nonNull)
+                        .forEach(worklist::push);
+            }
+
+            if (!hasEntity(type)) {
+                continue;
+            }
+
+            Optional<TypeElement> declaringElement = typeRegistry.declaringElement(type.reference());
+            if (declaringElement.isEmpty() || !isEntity(declaringElement.get())) {
+                continue;
+            }
+
+            EntitySpec entity = resolveEntity(declaringElement.get());
+            entities.putIfAbsent(entity.name(), entity);
+
+            // properties may refer to more entities
+            entity.properties().values().stream()
+                    .map(PropertySpec::type)
+                    .filter(Objects::nonNull)
+                    .forEach(worklist::push);
+        }
+
+        return List.copyOf(entities.values());
+    }
+
+    private EntitySpec resolveEntity(TypeElement element) {
+        EntitySpec existing = resolvedEntities.get(element);
+        if (existing != null) {
+            return existing;
+        }
+
+        diagnostics.debug(() -> "resolving entity " + element.getQualifiedName());
+
+        Map<String, PropertySpec> properties = new LinkedHashMap<>();
+        if (element.getKind() == ElementKind.ENUM) {
+            List<String> constants = element.getEnclosedElements().stream()
+                    .filter(enclosed -> enclosed.getKind() == ElementKind.ENUM_CONSTANT)
+                    .map(constant -> constant.getSimpleName().toString())
+                    .toList();
+            EntitySpec entity = new EntitySpec(DynamicTypeRegistry.referenceName(element), properties, constants);
+            resolvedEntities.put(element, entity);
+            return entity;
+        } else if (element.getKind() == ElementKind.RECORD) {
+            for (RecordComponentElement component : element.getRecordComponents()) {
+                addProperty(properties, component);
+            }
+        } else {
+            // walk up the hierarchy so that inherited properties are included. Superclass properties come first
+            Deque<TypeElement> hierarchy = new ArrayDeque<>();
+            for (TypeElement current = element; current != null && isEntity(current); current = superclassOf(current)) {
+                hierarchy.push(current);
+            }
+
+            for (TypeElement current : hierarchy) {
+                addFieldProperties(properties, current);
+            }
+        }
+
+        EntitySpec entity = new EntitySpec(DynamicTypeRegistry.referenceName(element), properties);
+        resolvedEntities.put(element, entity);
+        return entity;
+    }
+
+    private void addFieldProperties(Map<String, PropertySpec> properties, TypeElement element) {
+        Set<String> accessorNames = new HashSet<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.PUBLIC) && method.getParameters().isEmpty()) {
+                accessorNames.add(method.getSimpleName().toString());
+            }
+        }
+
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+
+            // only take fields that are visible, either directly or through a getter
+            String name = field.getSimpleName().toString();
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            boolean visible = modifiers.contains(Modifier.PUBLIC)
+                    || accessorNames.contains("get" + capitalized)
+                    || accessorNames.contains("is" + capitalized);
+
+            if (visible) {
+                addProperty(properties, field);
+            }
+        }
+    }
+
+    private void addProperty(Map<String, PropertySpec> properties, Element property) {
+        TypeMirror type = property.asType();
+        String typeId = dynamicTypeMapper.mapTypeId(property, type);
+        // primitives can never be left out
+        boolean required = type.getKind().isPrimitive();
+        properties.put(property.getSimpleName().toString(), new PropertySpec(typeId, required));
+    }
+
+    /**
+     * User and generic types are described by entities, and so are enums, which are strings with a reference
+     */
+    public static boolean hasEntity(DynamicType type) {
+        return switch (type.typeID()) {
+            case USER, GENERIC -> true;
+            case STRING -> type.reference() != null && !type.reference().isEmpty();
+            default -> false;
+        };
+    }
+
+    private static TypeElement superclassOf(TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    /**
+     * Platform types are either mapped to scalars or are opaque to clients, so they are never entities
+     */
+    private static boolean isEntity(TypeElement element) {
+        String qualifiedName = element.getQualifiedName().toString();
+        return !qualifiedName.startsWith("java.") && !qualifiedName.startsWith("javax.");
+    }
 }
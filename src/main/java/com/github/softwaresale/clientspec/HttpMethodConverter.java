@@ -1,26 +1,21 @@
 package com.github.softwaresale.clientspec;
 
-import org.springframework.http.HttpMethod;
-import org.springframework.web.bind.annotation.*;
+import com.github.softwaresale.clientspec.model.HttpMethod;
 
-import java.util.Arrays;
+import javax.lang.model.element.AnnotationMirror;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
 public class HttpMethodConverter {
 
-    private static final Map<RequestMethod, HttpMethod> mapping = new HashMap<>();
+    /** names of spring's RequestMethod constants to their http methods */
+    private static final Map<String, HttpMethod> mapping = new HashMap<>();
 
     static {
-        mapping.put(RequestMethod.GET, HttpMethod.GET);
-        mapping.put(RequestMethod.POST, HttpMethod.POST);
-        mapping.put(RequestMethod.PUT, HttpMethod.PUT);
-        mapping.put(RequestMethod.DELETE, HttpMethod.DELETE);
-        mapping.put(RequestMethod.HEAD, HttpMethod.HEAD);
-        mapping.put(RequestMethod.OPTIONS, HttpMethod.OPTIONS);
-        mapping.put(RequestMethod.TRACE, HttpMethod.TRACE);
-        mapping.put(RequestMethod.PATCH, HttpMethod.PATCH);
+        for (HttpMethod method : HttpMethod.values()) {
+            mapping.put(method.name(), method);
+        }
     }
 
     /**
@@ -29,9 +24,18 @@ public class HttpMethodConverter {
      * @param requestMapping A request mapping annotation
      * @return An optional HTTP method. If no HTTP Methods are specified, its' empty
      */
-    public static Optional<HttpMethod> getHttpMethod(RequestMapping requestMapping) {
-        return Arrays.stream(requestMapping.method())
+    public static Optional<HttpMethod> getHttpMethod(AnnotationMirror requestMapping) {
+        return MappingAnnotations.enumArrayValue(requestMapping, "method").stream()
                 .findFirst()
-                .flatMap(requestMethod -> Optional.ofNullable(mapping.get(requestMethod)));
+                .flatMap(HttpMethodConverter::getHttpMethod);
+    }
+
+    /**
+     * Get the HTTP method for one of spring's RequestMethod constants
+     * @param requestMethod the name of the constant
+     * @return the HTTP method, if there is one with that name
+     */
+    public static Optional<HttpMethod> getHttpMethod(String requestMethod) {
+        return Optional.ofNullable(mapping.get(requestMethod));
     }
 }
@@ -0,0 +1,801 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.EntitySpec;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Generates a Jackson serializer and deserializer for each resolved entity, along with a module that registers them.
+ * The generated code calls getters, setters, and constructors directly and matches property names with a switch, so
+ * bean introspection and reflective property access are skipped.
+ * <p>
+ * Only entities whose Jackson mapping can be derived from their shape get codecs. Anything Jackson could map
+ * differently, like Jackson annotations, non-public types, or properties that can only be set through a private
+ * field, is left to Jackson. Deserializers are also skipped for generic entities and inner classes.
+ */
+public class JacksonCodecGenerator {
+
+    public static final String MODULE_CLASS = "EntityJacksonModule";
+
+    private static final String JACKSON_PACKAGE = "com.fasterxml.jackson.";
+
+    private final Filer filer;
+    private final Elements elementUtils;
+    private final Types typeUtils;
+    private final DynamicTypeRegistry typeRegistry;
+    private final String packageName;
+    private final Diagnostics diagnostics;
+
+    /** every entity that has been looked at, by qualified name */
+    private final Set<String> seenEntities = new HashSet<>();
+    /** class names that have been taken, so entities with the same simple name don't overwrite each other */
+    private final Set<String> classNames = new HashSet<>();
+    /** codecs that have been written, in the order they were written */
+    private final List<Codec> codecs = new ArrayList<>();
+    private boolean moduleWritten;
+
+    /**
+     * @param entityType the qualified name of the entity
+     * @param serializer the simple name of its serializer
+     * @param deserializer the simple name of its deserializer, or null if it doesn't have one
+     */
+    private record Codec(String entityType, String serializer, String deserializer) {
+    }
+
+    /**
+     * A single JSON property of an entity
+     * @param name the name of the property in JSON
+     * @param readType the type that is serialized. Null if the property can only be written
+     * @param read the member that reads the property, like {@code getId()} or {@code id}
+     * @param writeType the type that is deserialized. Null if the property can't be written
+     * @param write the member that writes the property: a setter name, or a field name if {@code writeField} is set
+     * @param writeField if the property is written to a public field
+     */
+    private record Property(String name, TypeMirror readType, String read, TypeMirror writeType, String write, boolean writeField) {
+
+        Property withRead(TypeMirror readType, String read) {
+            return new Property(name, readType, read, writeType, write, writeField);
+        }
+
+        Property withWrite(TypeMirror writeType, String write, boolean writeField) {
+            return new Property(name, readType, read, writeType, write, writeField);
+        }
+    }
+
+    public JacksonCodecGenerator(Filer filer, Elements elementUtils, Types typeUtils, DynamicTypeRegistry typeRegistry,
+                                 String packageName, Diagnostics diagnostics) {
+        this.filer = filer;
+        this.elementUtils = elementUtils;
+        this.typeUtils = typeUtils;
+        this.typeRegistry = typeRegistry;
+        this.packageName = packageName;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Write codecs for every entity that doesn't have them yet. Entities found after the module was written can't
+     * be registered anymore, so they are reported and left to Jackson
+     * @param entities the resolved entities
+     * @param originatingElements every controller that contributed to the spec
+     */
+    public void generate(List<EntitySpec> entities, Element... originatingElements) throws IOException {
+        for (EntitySpec entity : entities) {
+            // Jackson writes enums by name on its own, so they never need codecs
+            if (!entity.values().isEmpty()) {
+                continue;
+            }
+
+            Optional<TypeElement> declaringElement = typeRegistry.declaringElement(entity.name());
+            if (declaringElement.isEmpty() || !seenEntities.add(declaringElement.get().getQualifiedName().toString())) {
+                continue;
+            }
+
+            TypeElement element = declaringElement.get();
+            if (moduleWritten) {
+                diagnostics.warning(element, () -> String.format("%s was found after %s was written, leaving it to Jackson",
+                        element.getSimpleName(), MODULE_CLASS));
+                continue;
+            }
+
+            generate(element, originatingElements);
+        }
+    }
+
+    /**
+     * @return if codecs have been written that no module registers yet
+     */
+    public boolean hasPendingModule() {
+        return !moduleWritten && !codecs.isEmpty();
+    }
+
+    /**
+     * Write the module that registers every codec. No more codecs can be written after this
+     * @param originatingElements every controller that contributed to the spec
+     */
+    public void writeModule(Element... originatingElements) throws IOException {
+        StringBuilder registrations = new StringBuilder();
+        for (Codec codec : codecs) {
+            registrations.append("        serializers.put(").append(codec.entityType()).append(".class, ")
+                    .append(codec.serializer()).append("::new);\n");
+            if (codec.deserializer() != null) {
+                registrations.append("        deserializers.put(").append(codec.entityType()).append(".class, ")
+                        .append(codec.deserializer()).append("::new);\n");
+            }
+        }
+
+        String source = header()
+                .append("/**\n")
+                .append(" * Registers the generated serializers and deserializers. Registration is skipped on mappers whose naming,\n")
+                .append(" * inclusion, or mix-ins change how entities are mapped, so that they keep using Jackson's bean mapping\n")
+                .append(" */\n")
+                .append(JavaClientGenerator.GENERATED_ANNOTATION).append('\n')
+                .append("public final class ").append(MODULE_CLASS).append(" extends com.fasterxml.jackson.databind.Module {\n\n")
+                .append("    @Override\n")
+                .append("    public String getModuleName() {\n")
+                .append("        return \"").append(MODULE_CLASS).append("\";\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public com.fasterxml.jackson.core.Version version() {\n")
+                .append("        return com.fasterxml.jackson.core.Version.unknownVersion();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void setupModule(SetupContext context) {\n")
+                .append("        if (context.getOwner() instanceof com.fasterxml.jackson.databind.ObjectMapper mapper && !supports(mapper)) {\n")
+                .append("            return;\n")
+                .append("        }\n\n")
+                .append("        java.util.Map<Class<?>, java.util.function.Supplier<com.fasterxml.jackson.databind.JsonSerializer<?>>> serializers = new java.util.HashMap<>();\n")
+                .append("        java.util.Map<Class<?>, java.util.function.Supplier<com.fasterxml.jackson.databind.JsonDeserializer<?>>> deserializers = new java.util.HashMap<>();\n")
+                .append(registrations)
+                .append("""
+
+                                // only exact matches, so that subclasses keep their own properties
+                                context.addSerializers(new com.fasterxml.jackson.databind.ser.Serializers.Base() {
+                                    @Override
+                                    public com.fasterxml.jackson.databind.JsonSerializer<?> findSerializer(com.fasterxml.jackson.databind.SerializationConfig config,
+                                                                                                         com.fasterxml.jackson.databind.JavaType type,
+                                                                                                         com.fasterxml.jackson.databind.BeanDescription beanDesc) {
+                                        java.util.function.Supplier<com.fasterxml.jackson.databind.JsonSerializer<?>> serializer = serializers.get(type.getRawClass());
+                                        return serializer == null ? null : serializer.get();
+                                    }
+                                });
+                                // codecs hold on to the codecs of their properties, so each mapper gets its own
+                                context.addDeserializers(new com.fasterxml.jackson.databind.deser.Deserializers.Base() {
+                                    @Override
+                                    public com.fasterxml.jackson.databind.JsonDeserializer<?> findBeanDeserializer(com.fasterxml.jackson.databind.JavaType type,
+                                                                                                                 com.fasterxml.jackson.databind.DeserializationConfig config,
+                                                                                                                 com.fasterxml.jackson.databind.BeanDescription beanDesc) {
+                                        java.util.function.Supplier<com.fasterxml.jackson.databind.JsonDeserializer<?>> deserializer = deserializers.get(type.getRawClass());
+                                        return deserializer == null ? null : deserializer.get();
+                                    }
+                                });
+                            }
+
+                            private static boolean supports(com.fasterxml.jackson.databind.ObjectMapper mapper) {
+                                com.fasterxml.jackson.databind.SerializationConfig config = mapper.getSerializationConfig();
+                                com.fasterxml.jackson.annotation.JsonInclude.Include inclusion = config.getDefaultPropertyInclusion().getValueInclusion();
+                                return config.getPropertyNamingStrategy() == null
+                                        && (inclusion == com.fasterxml.jackson.annotation.JsonInclude.Include.ALWAYS
+                                            || inclusion == com.fasterxml.jackson.annotation.JsonInclude.Include.USE_DEFAULTS)
+                                        && mapper.mixInCount() == 0
+                                        && !config.isEnabled(com.fasterxml.jackson.databind.MapperFeature.USE_STD_BEAN_NAMING)
+                                        && !config.isEnabled(com.fasterxml.jackson.databind.MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES);
+                            }
+
+                            static void writeString(com.fasterxml.jackson.core.JsonGenerator gen, com.fasterxml.jackson.databind.SerializerProvider provider,
+                                                    String value) throws java.io.IOException {
+                                if (value == null) {
+                                    provider.defaultSerializeNull(gen);
+                                } else {
+                                    gen.writeString(value);
+                                }
+                            }
+
+                            static void write(com.fasterxml.jackson.core.JsonGenerator gen, com.fasterxml.jackson.databind.SerializerProvider provider,
+                                              com.fasterxml.jackson.databind.JsonSerializer<Object> serializer, Object value) throws java.io.IOException {
+                                if (value == null) {
+                                    provider.defaultSerializeNull(gen);
+                                } else {
+                                    serializer.serialize(value, gen, provider);
+                                }
+                            }
+
+                            static Object read(com.fasterxml.jackson.core.JsonParser p, com.fasterxml.jackson.databind.DeserializationContext ctxt,
+                                               com.fasterxml.jackson.databind.JsonDeserializer<Object> deserializer) throws java.io.IOException {
+                                if (p.currentToken() == com.fasterxml.jackson.core.JsonToken.VALUE_NULL) {
+                                    return deserializer.getNullValue(ctxt);
+                                }
+
+                                return deserializer.deserialize(p, ctxt);
+                            }
+                        }
+                        """)
+                .toString();
+
+        write(MODULE_CLASS, source, originatingElements);
+        moduleWritten = true;
+    }
+
+    private void generate(TypeElement element, Element... originatingElements) throws IOException {
+        String reason = unsupportedReason(element);
+        if (reason != null) {
+            diagnostics.debug(element, () -> "no codecs for " + element.getSimpleName() + ": " + reason);
+            return;
+        }
+
+        boolean isRecord = element.getKind() == ElementKind.RECORD;
+        List<Property> properties = isRecord ? recordProperties(element) : beanProperties(element);
+        if (properties == null || properties.stream().noneMatch(property -> property.readType() != null)) {
+            // Jackson fails on beans without properties, so keep that behavior
+            diagnostics.debug(element, () -> "no codecs for " + element.getSimpleName() + ": its properties are ambiguous or empty");
+            return;
+        }
+
+        String entityType = element.getQualifiedName().toString();
+        String serializer = className(element.getSimpleName() + "Serializer");
+        write(serializer, serializerSource(element, serializer, properties), originatingElements);
+
+        String deserializer = null;
+        if (canDeserialize(element, properties)) {
+            deserializer = className(element.getSimpleName() + "Deserializer");
+            String source = isRecord
+                    ? recordDeserializerSource(entityType, deserializer, properties)
+                    : beanDeserializerSource(entityType, deserializer, properties);
+            write(deserializer, source, originatingElements);
+        } else {
+            diagnostics.debug(element, () -> "no deserializer for " + element.getSimpleName() + ": it can't be built without reflection");
+        }
+
+        codecs.add(new Codec(entityType, serializer, deserializer));
+    }
+
+    private String unsupportedReason(TypeElement element) {
+        if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+            return "only classes and records are supported";
+        }
+        if (element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "it is abstract";
+        }
+        if (!JavaClientGenerator.isAccessible(element)) {
+            return "it is not public";
+        }
+        if (hasJacksonAnnotations(element)) {
+            return "it uses Jackson annotations";
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the properties Jackson would find with its default settings: public getters and public fields are read,
+     * and public setters and public non-final fields are written. Property names follow Jackson's default naming
+     * @return the properties, or null if they are ambiguous
+     */
+    private List<Property> beanProperties(TypeElement element) {
+        DeclaredType entityType = (DeclaredType) element.asType();
+        Map<String, Property> properties = new LinkedHashMap<>();
+
+        for (VariableElement field : ElementFilter.fieldsIn(elementUtils.getAllMembers(element))) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+
+            String name = field.getSimpleName().toString();
+            TypeMirror type = typeUtils.asMemberOf(entityType, field);
+            Property property = new Property(name, type, name, null, null, false);
+            properties.put(name, modifiers.contains(Modifier.FINAL) ? property : property.withWrite(type, name, true));
+        }
+
+        Set<String> getters = new HashSet<>();
+        Set<String> setters = new HashSet<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elementUtils.getAllMembers(element))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || isObjectMember(method)) {
+                continue;
+            }
+
+            String methodName = method.getSimpleName().toString();
+            TypeMirror returnType = method.getReturnType();
+            if (method.getParameters().isEmpty() && returnType.getKind() != TypeKind.VOID) {
+                String name;
+                if (methodName.startsWith("get") && methodName.length() > 3) {
+                    name = propertyName(methodName, 3);
+                } else if (methodName.startsWith("is") && methodName.length() > 2 && isBoolean(returnType)) {
+                    name = propertyName(methodName, 2);
+                } else {
+                    continue;
+                }
+
+                if (!getters.add(name)) {
+                    // getX and isX for the same property
+                    return null;
+                }
+                TypeMirror readType = ((ExecutableType) typeUtils.asMemberOf(entityType, method)).getReturnType();
+                properties.compute(name, (key, existing) -> (existing == null ? new Property(name, null, null, null, null, false) : existing)
+                        .withRead(readType, methodName + "()"));
+            } else if (method.getParameters().size() == 1 && methodName.startsWith("set") && methodName.length() > 3) {
+                String name = propertyName(methodName, 3);
+                if (!setters.add(name) || !method.getTypeParameters().isEmpty()) {
+                    // overloaded or generic setters need Jackson to pick one
+                    return null;
+                }
+                TypeMirror writeType = ((ExecutableType) typeUtils.asMemberOf(entityType, method)).getParameterTypes().get(0);
+                properties.compute(name, (key, existing) -> (existing == null ? new Property(name, null, null, null, null, false) : existing)
+                        .withWrite(writeType, methodName, false));
+            }
+        }
+
+        return new ArrayList<>(properties.values());
+    }
+
+    /**
+     * Records are read through their accessors and built through their canonical constructor
+     * @return the properties, or null if the record has getters that Jackson would pick up as well
+     */
+    private List<Property> recordProperties(TypeElement element) {
+        Set<String> accessors = new HashSet<>();
+        List<Property> properties = new ArrayList<>();
+        for (RecordComponentElement component : element.getRecordComponents()) {
+            String name = component.getSimpleName().toString();
+            accessors.add(name);
+            properties.add(new Property(name, component.asType(), name + "()", component.asType(), null, false));
+        }
+
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            String methodName = method.getSimpleName().toString();
+            boolean getterName = methodName.startsWith("get") || methodName.startsWith("is");
+            if (getterName && !accessors.contains(methodName) && method.getParameters().isEmpty()
+                    && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)) {
+                return null;
+            }
+        }
+
+        return properties;
+    }
+
+    private boolean canDeserialize(TypeElement element, List<Property> properties) {
+        if (!element.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        if (element.getNestingKind() == NestingKind.MEMBER && !element.getModifiers().contains(Modifier.STATIC)
+                && element.getKind() != ElementKind.RECORD) {
+            return false;
+        }
+        for (Property property : properties) {
+            // Jackson would fall back to a private field or a getter that returns a mutable collection
+            if (property.writeType() == null || !isNameable(property.writeType())) {
+                return false;
+            }
+        }
+
+        if (element.getKind() == ElementKind.RECORD) {
+            return ElementFilter.constructorsIn(element.getEnclosedElements()).stream()
+                    .anyMatch(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC)
+                            && constructor.getParameters().size() == properties.size());
+        }
+
+        return ElementFilter.constructorsIn(element.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC) && constructor.getParameters().isEmpty());
+    }
+
+    private String serializerSource(TypeElement element, String className, List<Property> properties) {
+        String entityType = element.getQualifiedName().toString();
+        String valueType = element.getTypeParameters().isEmpty() ? entityType : wildcardType(element);
+
+        StringBuilder names = new StringBuilder();
+        StringBuilder fields = new StringBuilder();
+        StringBuilder resolve = new StringBuilder();
+        StringBuilder writes = new StringBuilder();
+        int index = 0;
+        for (Property property : properties) {
+            if (property.readType() == null) {
+                continue;
+            }
+
+            // names are encoded once, like Jackson's own property writers do
+            names.append("    private static final com.fasterxml.jackson.core.io.SerializedString name").append(index)
+                    .append(" = new com.fasterxml.jackson.core.io.SerializedString(").append(JavaClientGenerator.literal(property.name())).append(");\n");
+            writes.append("        gen.writeFieldName(name").append(index).append(");\n");
+
+            String value = "value." + property.read();
+            String finalType = finalTypeName(property.readType());
+            if (finalType != null) {
+                // the runtime class can only be the declared one, so its serializer can be looked up once
+                fields.append("    private com.fasterxml.jackson.databind.JsonSerializer<Object> serializer").append(index).append(";\n");
+                resolve.append("        serializer").append(index).append(" = provider.findTypedValueSerializer(")
+                        .append(finalType).append(".class, true, null);\n");
+                writes.append("        ").append(MODULE_CLASS).append(".write(gen, provider, serializer").append(index)
+                        .append(", ").append(value).append(");\n");
+            } else {
+                writes.append("        ").append(writeValue(property.readType(), value)).append(";\n");
+            }
+            index++;
+        }
+
+        StringBuilder source = header()
+                .append(JavaClientGenerator.GENERATED_ANNOTATION).append('\n')
+                .append("final class ").append(className).append(" extends com.fasterxml.jackson.databind.ser.std.StdSerializer<")
+                .append(valueType).append(">");
+        if (!resolve.isEmpty()) {
+            source.append("\n        implements com.fasterxml.jackson.databind.ser.ResolvableSerializer");
+        }
+        source.append(" {\n\n")
+                .append("    private static final long serialVersionUID = 1L;\n\n")
+                .append(names)
+                .append(fields)
+                .append('\n')
+                .append("    ").append(className).append("() {\n")
+                .append("        super(").append(entityType).append(".class, false);\n")
+                .append("    }\n\n");
+        if (!resolve.isEmpty()) {
+            source.append("    @Override\n")
+                    .append("    public void resolve(com.fasterxml.jackson.databind.SerializerProvider provider) ")
+                    .append("throws com.fasterxml.jackson.databind.JsonMappingException {\n")
+                    .append(resolve)
+                    .append("    }\n\n");
+        }
+
+        return source
+                .append("    @Override\n")
+                .append("    public void serialize(").append(valueType).append(" value, com.fasterxml.jackson.core.JsonGenerator gen, ")
+                .append("com.fasterxml.jackson.databind.SerializerProvider provider) throws java.io.IOException {\n")
+                .append("        gen.writeStartObject(value);\n")
+                .append("        writeProperties(value, gen, provider);\n")
+                .append("        gen.writeEndObject();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void serializeWithType(").append(valueType).append(" value, com.fasterxml.jackson.core.JsonGenerator gen, ")
+                .append("com.fasterxml.jackson.databind.SerializerProvider provider,\n")
+                .append("                                  com.fasterxml.jackson.databind.jsontype.TypeSerializer typeSer) throws java.io.IOException {\n")
+                .append("        com.fasterxml.jackson.core.type.WritableTypeId typeId = typeSer.writeTypePrefix(gen, ")
+                .append("typeSer.typeId(value, com.fasterxml.jackson.core.JsonToken.START_OBJECT));\n")
+                .append("        writeProperties(value, gen, provider);\n")
+                .append("        typeSer.writeTypeSuffix(gen, typeId);\n")
+                .append("    }\n\n")
+                .append("    private void writeProperties(").append(valueType).append(" value, com.fasterxml.jackson.core.JsonGenerator gen, ")
+                .append("com.fasterxml.jackson.databind.SerializerProvider provider) throws java.io.IOException {\n")
+                .append(writes)
+                .append("    }\n")
+                .append("}\n")
+                .toString();
+    }
+
+    /**
+     * @return the name of a final, non-generic declared type other than String, or null if the type is anything else
+     */
+    private static String finalTypeName(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED || !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        boolean isFinal = element.getModifiers().contains(Modifier.FINAL) || element.getKind() == ElementKind.RECORD;
+        if (!isFinal || element.getQualifiedName().contentEquals(String.class.getName()) || !JavaClientGenerator.isAccessible(element)) {
+            return null;
+        }
+
+        return element.getQualifiedName().toString();
+    }
+
+    /**
+     * Scalars are written directly. Everything else goes through the provider, which caches serializers by class
+     */
+    private static String writeValue(TypeMirror type, String value) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "gen.writeBoolean(" + value + ")";
+            case BYTE -> "gen.writeNumber((int) " + value + ")";
+            case SHORT, INT, LONG, FLOAT, DOUBLE -> "gen.writeNumber(" + value + ")";
+            case CHAR -> "gen.writeString(String.valueOf(" + value + "))";
+            default -> type.toString().equals(String.class.getName())
+                    ? MODULE_CLASS + ".writeString(gen, provider, " + value + ")"
+                    : "provider.defaultSerializeValue(" + value + ", gen)";
+        };
+    }
+
+    private String beanDeserializerSource(String entityType, String className, List<Property> properties) {
+        StringBuilder cases = new StringBuilder();
+        int index = 0;
+        for (Property property : properties) {
+            String read = readValue(property.writeType(), index);
+            cases.append("                case ").append(JavaClientGenerator.literal(property.name())).append(" -> ");
+            if (property.writeField()) {
+                cases.append("value.").append(property.write()).append(" = ").append(read).append(";\n");
+            } else {
+                cases.append("value.").append(property.write()).append('(').append(read).append(");\n");
+            }
+            index++;
+        }
+
+        String body = "        " + entityType + " value = new " + entityType + "();\n"
+                + readLoop(entityType, cases)
+                + "        return value;\n";
+        return deserializerSource(entityType, className, properties, body);
+    }
+
+    private String recordDeserializerSource(String entityType, String className, List<Property> properties) {
+        StringBuilder locals = new StringBuilder();
+        StringBuilder cases = new StringBuilder();
+        List<String> arguments = new ArrayList<>();
+        int index = 0;
+        for (Property property : properties) {
+            // missing components get their default value, like Jackson's record support
+            locals.append("        ").append(property.writeType()).append(" value").append(index).append(" = ")
+                    .append(defaultValue(property.writeType())).append(";\n");
+            cases.append("                case ").append(JavaClientGenerator.literal(property.name())).append(" -> value").append(index)
+                    .append(" = ").append(readValue(property.writeType(), index)).append(";\n");
+            arguments.add("value" + index);
+            index++;
+        }
+
+        String body = locals
+                + readLoop(entityType, cases)
+                + "        return new " + entityType + "(" + String.join(", ", arguments) + ");\n";
+        return deserializerSource(entityType, className, properties, body);
+    }
+
+    private static String readLoop(String entityType, StringBuilder cases) {
+        return "        for (; token == com.fasterxml.jackson.core.JsonToken.FIELD_NAME; token = p.nextToken()) {\n"
+                + "            String name = p.currentName();\n"
+                + "            p.nextToken();\n"
+                + "            switch (name) {\n"
+                + cases
+                + "                default -> ctxt.handleUnknownProperty(p, this, " + entityType + ".class, name);\n"
+                + "            }\n"
+                + "        }\n";
+    }
+
+    private String deserializerSource(String entityType, String className, List<Property> properties, String body) {
+        StringBuilder fields = new StringBuilder();
+        StringBuilder resolve = new StringBuilder();
+        int index = 0;
+        for (Property property : properties) {
+            fields.append("    private com.fasterxml.jackson.databind.JsonDeserializer<Object> deserializer").append(index).append(";\n");
+            resolve.append("        deserializer").append(index).append(" = ctxt.findRootValueDeserializer(")
+                    .append(javaType(property.writeType())).append(");\n");
+            index++;
+        }
+
+        return header()
+                .append(JavaClientGenerator.GENERATED_ANNOTATION).append('\n')
+                .append("final class ").append(className).append(" extends com.fasterxml.jackson.databind.deser.std.StdDeserializer<")
+                .append(entityType).append(">\n")
+                .append("        implements com.fasterxml.jackson.databind.deser.ResolvableDeserializer {\n\n")
+                .append("    private static final long serialVersionUID = 1L;\n\n")
+                .append(fields)
+                .append('\n')
+                .append("    ").append(className).append("() {\n")
+                .append("        super(").append(entityType).append(".class);\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void resolve(com.fasterxml.jackson.databind.DeserializationContext ctxt) ")
+                .append("throws com.fasterxml.jackson.databind.JsonMappingException {\n")
+                .append(resolve)
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public ").append(entityType).append(" deserialize(com.fasterxml.jackson.core.JsonParser p, ")
+                .append("com.fasterxml.jackson.databind.DeserializationContext ctxt) throws java.io.IOException {\n")
+                .append("        com.fasterxml.jackson.core.JsonToken token = p.currentToken();\n")
+                .append("        if (token == com.fasterxml.jackson.core.JsonToken.START_OBJECT) {\n")
+                .append("            token = p.nextToken();\n")
+                .append("        } else if (token != com.fasterxml.jackson.core.JsonToken.FIELD_NAME && token != com.fasterxml.jackson.core.JsonToken.END_OBJECT) {\n")
+                .append("            return (").append(entityType).append(") ctxt.handleUnexpectedToken(").append(entityType).append(".class, p);\n")
+                .append("        }\n\n")
+                .append(body)
+                .append("    }\n")
+                .append("}\n")
+                .toString();
+    }
+
+    private static String readValue(TypeMirror type, int index) {
+        return "(" + boxedName(type) + ") " + MODULE_CLASS + ".read(p, ctxt, deserializer" + index + ")";
+    }
+
+    private static String javaType(TypeMirror type) {
+        if (type.getKind().isPrimitive() || type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return "ctxt.constructType(" + rawName(type) + ".class)";
+        }
+
+        return "ctxt.getTypeFactory().constructType(new com.fasterxml.jackson.core.type.TypeReference<" + type + ">() {})";
+    }
+
+    private static String rawName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+
+        return type.toString();
+    }
+
+    private static String boxedName(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "java.lang.Boolean";
+            case BYTE -> "java.lang.Byte";
+            case SHORT -> "java.lang.Short";
+            case INT -> "java.lang.Integer";
+            case LONG -> "java.lang.Long";
+            case CHAR -> "java.lang.Character";
+            case FLOAT -> "java.lang.Float";
+            case DOUBLE -> "java.lang.Double";
+            default -> type.toString();
+        };
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "false";
+            case BYTE -> "(byte) 0";
+            case SHORT -> "(short) 0";
+            case INT -> "0";
+            case LONG -> "0L";
+            case CHAR -> "'\\0'";
+            case FLOAT -> "0f";
+            case DOUBLE -> "0d";
+            default -> "null";
+        };
+    }
+
+    /**
+     * @return if the type can be written in source as-is, without type variables or type annotations
+     */
+    private static boolean isNameable(TypeMirror type) {
+        if (!type.getAnnotationMirrors().isEmpty()) {
+            return false;
+        }
+
+        return switch (type.getKind()) {
+            case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE -> true;
+            case ARRAY -> isNameable(((ArrayType) type).getComponentType());
+            case DECLARED -> ((DeclaredType) type).getTypeArguments().stream().allMatch(JacksonCodecGenerator::isNameable);
+            case WILDCARD -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isBoolean(TypeMirror type) {
+        return type.getKind() == TypeKind.BOOLEAN || type.toString().equals(Boolean.class.getName());
+    }
+
+    private static boolean isObjectMember(Element member) {
+        return ((TypeElement) member.getEnclosingElement()).getQualifiedName().contentEquals(Object.class.getName());
+    }
+
+    /**
+     * Jackson's default naming: the prefix is dropped and the leading run of upper case letters is lower cased, so
+     * {@code getURL} is {@code url}
+     */
+    private static String propertyName(String methodName, int prefixLength) {
+        StringBuilder name = new StringBuilder(methodName.length() - prefixLength);
+        int index = prefixLength;
+        for (; index < methodName.length(); index++) {
+            char current = methodName.charAt(index);
+            char lower = Character.toLowerCase(current);
+            if (current == lower) {
+                break;
+            }
+            name.append(lower);
+        }
+
+        return name.append(methodName, index, methodName.length()).toString();
+    }
+
+    /**
+     * @return if the type, its members, or any of its supertypes carry annotations that Jackson would act on
+     */
+    private boolean hasJacksonAnnotations(TypeElement element) {
+        Set<Element> visited = new HashSet<>();
+        Deque<TypeMirror> worklist = new ArrayDeque<>(List.of(element.asType()));
+        while (!worklist.isEmpty()) {
+            TypeMirror type = worklist.pop();
+            Element typeElement = typeUtils.asElement(type);
+            if (typeElement == null || !visited.add(typeElement)) {
+                continue;
+            }
+            if (hasJacksonAnnotation(typeElement)) {
+                return true;
+            }
+            worklist.addAll(typeUtils.directSupertypes(type));
+        }
+
+        for (Element member : elementUtils.getAllMembers(element)) {
+            if (hasJacksonAnnotation(member)) {
+                return true;
+            }
+            if (member instanceof ExecutableElement executable) {
+                for (VariableElement parameter : executable.getParameters()) {
+                    if (hasJacksonAnnotation(parameter)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (RecordComponentElement component : element.getRecordComponents()) {
+            if (hasJacksonAnnotation(component)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean hasJacksonAnnotation(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            String name = annotationType.getQualifiedName().toString();
+            // @ConstructorProperties makes Jackson use that constructor as a creator
+            if (name.startsWith(JACKSON_PACKAGE) || name.equals("java.beans.ConstructorProperties")) {
+                return true;
+            }
+
+            // annotations bundled with @JacksonAnnotationsInside
+            for (AnnotationMirror meta : annotationType.getAnnotationMirrors()) {
+                if (((TypeElement) meta.getAnnotationType().asElement()).getQualifiedName().toString().startsWith(JACKSON_PACKAGE)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static String wildcardType(TypeElement element) {
+        return element.getQualifiedName() + "<" + String.join(", ", Collections.nCopies(element.getTypeParameters().size(), "?")) + ">";
+    }
+
+    private String className(String base) {
+        String className = base;
+        for (int suffix = 2; !classNames.add(className); suffix++) {
+            className = base + suffix;
+        }
+
+        return className;
+    }
+
+    private StringBuilder header() {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        return source;
+    }
+
+    private void write(String className, String source, Element... originatingElements) throws IOException {
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        JavaFileObject sourceFile = filer.createSourceFile(qualifiedName, originatingElements);
+        try (Writer writer = new BufferedWriter(sourceFile.openWriter())) {
+            writer.write(source);
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.APIEndpoint;
+import com.github.softwaresale.clientspec.model.DynamicType;
+import com.github.softwaresale.clientspec.model.DynamicTypeID;
+import com.github.softwaresale.clientspec.model.RequestValue;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+import com.github.softwaresale.clientspec.model.TemplateSegment;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a Java client for each service, built on {@code java.net.http.HttpClient}. Every service gets an
+ * interface with a {@code CompletableFuture} method per endpoint and a package-private implementation. The path
+ * template of each endpoint is compiled into plain string appends, and Jackson readers and writers are created once
+ * per client, so a call needs no reflection and no template parsing.
+ * <p>
+ * Request and response bodies use the same classes as the controllers. Types that can't be referenced from the
+ * client package, like package-private entities, fall back to {@code Object}. Multipart uploads are not supported,
+ * so endpoints that take files as request parameters are left out.
+ */
+public class JavaClientGenerator {
+
+    static final String GENERATED_ANNOTATION = "@javax.annotation.processing.Generated(\"" + ControllerProcessor.class.getName() + "\")";
+    private static final String SUPPORT_CLASS = "ClientSupport";
+    private static final String EXCEPTION_CLASS = "ClientResponseException";
+    /** names of locals in generated methods, which parameters can't use */
+    private static final Set<String> reservedNames = Set.of("url", "uri", "queryStart", "request", "body", "response");
+
+    private final Filer filer;
+    private final DynamicTypeRegistry typeRegistry;
+    private final String packageName;
+    private final Diagnostics diagnostics;
+
+    /** class names that have been taken, so services with the same simple name don't overwrite each other */
+    private final Set<String> classNames = new HashSet<>();
+    private boolean supportWritten;
+
+    public JavaClientGenerator(Filer filer, DynamicTypeRegistry typeRegistry, String packageName, Diagnostics diagnostics) {
+        this.filer = filer;
+        this.typeRegistry = typeRegistry;
+        this.packageName = packageName;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Write the client interface and implementation for a service. The support classes every client shares are
+     * written along with the first service
+     * @param service the service to write a client for
+     * @param originatingElement the controller the service came from
+     */
+    public void generate(ServiceSpec service, Element originatingElement) throws IOException {
+        if (!supportWritten) {
+            write(EXCEPTION_CLASS, exceptionSource(), originatingElement);
+            write(SUPPORT_CLASS, supportSource(), originatingElement);
+            supportWritten = true;
+        }
+
+        String interfaceName = service.name() + "Client";
+        for (int suffix = 2; !classNames.add(interfaceName); suffix++) {
+            interfaceName = service.name() + suffix + "Client";
+        }
+
+        List<ClientMethod> methods = clientMethods(service);
+        write(interfaceName, interfaceSource(service, interfaceName, methods), originatingElement);
+        write(interfaceName + "Impl", implementationSource(interfaceName, methods), originatingElement);
+    }
+
+    /**
+     * A single generated method
+     * @param name the name of the method
+     * @param endpoint the endpoint it calls
+     * @param parameters the method's parameters, in order: path variables, query variables, then the request body
+     * @param responseType the type the returned future completes with
+     */
+    private record ClientMethod(String name, APIEndpoint endpoint, List<ClientParameter> parameters, String responseType) {
+    }
+
+    /**
+     * @param name the name of the parameter
+     * @param type the Java type of the parameter
+     * @param wireName the name of the variable in the template or query. Null for the request body
+     */
+    private record ClientParameter(String name, String type, String wireName) {
+    }
+
+    private List<ClientMethod> clientMethods(ServiceSpec service) {
+        List<ClientMethod> methods = new ArrayList<>();
+        Map<String, Integer> nameCounts = new HashMap<>();
+        for (APIEndpoint endpoint : service.endpoints()) {
+            if (endpoint.queryVariables().values().stream().anyMatch(this::isBinary)) {
+                diagnostics.info(() -> String.format("%s.%s takes a file, leaving it out of the client", service.name(), endpoint.name()));
+                continue;
+            }
+
+            // overloaded handlers could otherwise end up with the same signature
+            int count = nameCounts.merge(endpoint.name(), 1, Integer::sum);
+            String name = count == 1 ? endpoint.name() : endpoint.name() + count;
+
+            Set<String> parameterNames = new HashSet<>();
+            List<ClientParameter> parameters = new ArrayList<>();
+            for (TemplateSegment segment : endpoint.segments()) {
+                if (segment.kind() == TemplateSegment.Kind.LITERAL) {
+                    continue;
+                }
+                String wireName = segment.value() == null ? "remainingPath" : segment.value();
+                RequestValue value = endpoint.pathVariables().get(wireName);
+                String type = value == null ? "java.lang.String" : javaType(value.type());
+                parameters.add(new ClientParameter(parameterName(wireName, parameterNames), type, wireName));
+            }
+            endpoint.queryVariables().forEach((wireName, value) ->
+                    parameters.add(new ClientParameter(parameterName(wireName, parameterNames), javaType(value.type()), wireName)));
+            if (!isVoid(endpoint.requestBody())) {
+                parameters.add(new ClientParameter("body", javaType(endpoint.requestBody().type()), null));
+            }
+
+            String responseType;
+            if (endpoint.byteStream()) {
+                responseType = "java.io.InputStream";
+            } else if (endpoint.elementStream()) {
+                responseType = "java.util.stream.Stream<" + javaType(endpoint.responseBody().type()) + ">";
+            } else if (isVoid(endpoint.responseBody())) {
+                responseType = "java.lang.Void";
+            } else {
+                responseType = javaType(endpoint.responseBody().type());
+            }
+
+            methods.add(new ClientMethod(name, endpoint, parameters, responseType));
+        }
+
+        return methods;
+    }
+
+    private String interfaceSource(ServiceSpec service, String interfaceName, List<ClientMethod> methods) {
+        StringBuilder source = header();
+        source.append("/**\n")
+                .append(" * Client for {@code ").append(service.name()).append("}\n")
+                .append(" */\n")
+                .append(GENERATED_ANNOTATION).append('\n')
+                .append("public interface ").append(interfaceName).append(" {\n\n")
+                .append("    /**\n")
+                .append("     * @param httpClient sends the requests. Its executor runs the callbacks, so virtual threads work well here\n")
+                .append("     * @param baseUri the URI the service's paths are relative to\n")
+                .append("     * @param objectMapper reads and writes bodies\n")
+                .append("     */\n")
+                .append("    static ").append(interfaceName).append(" create(java.net.http.HttpClient httpClient, java.net.URI baseUri, ")
+                .append("com.fasterxml.jackson.databind.ObjectMapper objectMapper) {\n")
+                .append("        return new ").append(interfaceName).append("Impl(httpClient, baseUri, objectMapper);\n")
+                .append("    }\n");
+
+        for (ClientMethod method : methods) {
+            source.append("\n    /**\n")
+                    .append("     * {@code ").append(method.endpoint().method()).append(' ')
+                    .append(escapeJavadoc(template(method.endpoint().segments()))).append("}\n");
+            if (method.endpoint().elementStream() && !method.endpoint().byteStream()) {
+                source.append("     * Elements are decoded as the stream is consumed. Close it to release the connection\n");
+            }
+            source.append("     */\n")
+                    .append("    ").append(signature(method)).append(";\n");
+        }
+
+        return source.append("}\n").toString();
+    }
+
+    private String implementationSource(String interfaceName, List<ClientMethod> methods) {
+        StringBuilder fields = new StringBuilder();
+        StringBuilder constructor = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        for (ClientMethod method : methods) {
+            APIEndpoint endpoint = method.endpoint();
+            boolean hasJsonBody = !isVoid(endpoint.requestBody()) && !isBinary(endpoint.requestBody());
+            boolean hasJsonResponse = !endpoint.byteStream() && !isVoid(endpoint.responseBody()) && !isBinary(endpoint.responseBody());
+            // without variables, the whole URI can be built once
+            boolean staticUri = method.parameters().stream().allMatch(parameter -> parameter.wireName() == null);
+
+            if (staticUri) {
+                fields.append("    private final java.net.URI ").append(method.name()).append("Uri;\n");
+                constructor.append("        this.").append(method.name()).append("Uri = java.net.URI.create(baseUrl + ")
+                        .append(literal(EndpointTemplateParser.flatten(endpoint.segments()))).append(");\n");
+            }
+            if (hasJsonBody) {
+                fields.append("    private final com.fasterxml.jackson.databind.ObjectWriter ").append(method.name()).append("Writer;\n");
+                constructor.append("        this.").append(method.name()).append("Writer = objectMapper.writerFor(")
+                        .append(typeReference(javaType(endpoint.requestBody().type()))).append(");\n");
+            }
+            if (hasJsonResponse) {
+                fields.append("    private final com.fasterxml.jackson.databind.ObjectReader ").append(method.name()).append("Reader;\n");
+                constructor.append("        this.").append(method.name()).append("Reader = objectMapper.readerFor(")
+                        .append(typeReference(javaType(endpoint.responseBody().type()))).append(");\n");
+            }
+
+            body.append("\n    @Override\n")
+                    .append("    public ").append(signature(method)).append(" {\n");
+            if (staticUri) {
+                body.append("        java.net.URI uri = ").append(method.name()).append("Uri;\n");
+            } else {
+                appendUrl(body, method);
+            }
+
+            body.append("        java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder(uri)\n");
+            String accept = accept(endpoint, hasJsonResponse);
+            if (accept != null) {
+                body.append("                .header(\"Accept\", ").append(literal(accept)).append(")\n");
+            }
+            if (isVoid(endpoint.requestBody())) {
+                body.append("                .method(").append(literal(endpoint.method()))
+                        .append(", java.net.http.HttpRequest.BodyPublishers.noBody())\n");
+            } else {
+                String contentType = endpoint.consumes().isEmpty()
+                        ? (hasJsonBody ? "application/json" : "application/octet-stream")
+                        : endpoint.consumes().get(0);
+                String bytes = hasJsonBody ? SUPPORT_CLASS + ".write(" + method.name() + "Writer, body)" : "body";
+                body.append("                .header(\"Content-Type\", ").append(literal(contentType)).append(")\n")
+                        .append("                .method(").append(literal(endpoint.method()))
+                        .append(", java.net.http.HttpRequest.BodyPublishers.ofByteArray(").append(bytes).append("))\n");
+            }
+            body.append("                .build();\n");
+
+            String bodyHandler;
+            String result;
+            if (endpoint.byteStream()) {
+                bodyHandler = "ofInputStream()";
+                result = SUPPORT_CLASS + ".stream(response)";
+            } else if (!hasJsonResponse) {
+                bodyHandler = "ofByteArray()";
+                result = isVoid(endpoint.responseBody()) ? SUPPORT_CLASS + ".discard(response)" : SUPPORT_CLASS + ".bytes(response)";
+            } else if (endpoint.elementStream()) {
+                // elements are decoded straight off the connection, so the body is never held in memory
+                bodyHandler = "ofInputStream()";
+                result = SUPPORT_CLASS + ".readStream(response, " + method.name() + "Reader)";
+            } else {
+                bodyHandler = "ofByteArray()";
+                result = SUPPORT_CLASS + ".read(response, " + method.name() + "Reader)";
+            }
+            body.append("        return httpClient.sendAsync(request, java.net.http.HttpResponse.BodyHandlers.").append(bodyHandler).append(")\n")
+                    .append("                .thenApply(response -> ").append(result).append(");\n")
+                    .append("    }\n");
+        }
+
+        return header()
+                .append(GENERATED_ANNOTATION).append('\n')
+                .append("final class ").append(interfaceName).append("Impl implements ").append(interfaceName).append(" {\n\n")
+                .append("    private final java.net.http.HttpClient httpClient;\n")
+                .append("    private final String baseUrl;\n")
+                .append(fields)
+                .append('\n')
+                .append("    ").append(interfaceName).append("Impl(java.net.http.HttpClient httpClient, java.net.URI baseUri, ")
+                .append("com.fasterxml.jackson.databind.ObjectMapper objectMapper) {\n")
+                .append("        this.httpClient = httpClient;\n")
+                .append("        this.baseUrl = ").append(SUPPORT_CLASS).append(".baseUrl(baseUri);\n")
+                .append(constructor)
+                .append("    }\n")
+                .append(body)
+                .append("}\n")
+                .toString();
+    }
+
+    /**
+     * Append the statements that build an endpoint's URL. Literals are appended as constants, and only the
+     * variables are encoded at call time
+     */
+    private void appendUrl(StringBuilder body, ClientMethod method) {
+        APIEndpoint endpoint = method.endpoint();
+        Map<String, String> parameterNames = method.parameters().stream()
+                .filter(parameter -> parameter.wireName() != null)
+                .collect(Collectors.toMap(ClientParameter::wireName, ClientParameter::name, (first, second) -> first));
+
+        body.append("        StringBuilder url = new StringBuilder(baseUrl);\n");
+        for (TemplateSegment segment : endpoint.segments()) {
+            String name = segment.value() == null ? "remainingPath" : segment.value();
+            switch (segment.kind()) {
+                case LITERAL -> body.append("        url.append(").append(literal(segment.value())).append(");\n");
+                case VARIABLE, CONSTRAINED_VARIABLE -> body.append("        ").append(SUPPORT_CLASS).append(".appendPathSegment(url, ")
+                        .append(literal(name)).append(", ").append(parameterNames.get(name)).append(");\n");
+                case CATCH_ALL -> body.append("        ").append(SUPPORT_CLASS).append(".appendPath(url, ")
+                        .append(literal(name)).append(", ").append(parameterNames.get(name)).append(");\n");
+            }
+        }
+
+        if (!endpoint.queryVariables().isEmpty()) {
+            body.append("        int queryStart = url.length();\n");
+            for (ClientParameter parameter : method.parameters()) {
+                if (parameter.wireName() != null && endpoint.queryVariables().containsKey(parameter.wireName())) {
+                    // names are known up front, so they are encoded here instead of on every call
+                    String encodedName = URLEncoder.encode(parameter.wireName(), StandardCharsets.UTF_8);
+                    body.append("        ").append(SUPPORT_CLASS).append(".appendQuery(url, queryStart, ")
+                            .append(literal(encodedName)).append(", ").append(parameter.name()).append(");\n");
+                }
+            }
+        }
+
+        body.append("        java.net.URI uri = java.net.URI.create(url.toString());\n");
+    }
+
+    private String signature(ClientMethod method) {
+        String parameters = method.parameters().stream()
+                .map(parameter -> parameter.type() + " " + parameter.name())
+                .collect(Collectors.joining(", "));
+        return "java.util.concurrent.CompletableFuture<" + method.responseType() + "> " + method.name() + "(" + parameters + ")";
+    }
+
+    private static String accept(APIEndpoint endpoint, boolean hasJsonResponse) {
+        if (!endpoint.produces().isEmpty()) {
+            return String.join(", ", endpoint.produces());
+        }
+        if (hasJsonResponse) {
+            return "application/json";
+        }
+
+        return isVoid(endpoint.responseBody()) ? null : "*/*";
+    }
+
+    private boolean isBinary(RequestValue value) {
+        return typeRegistry.lookup(value.type())
+                .map(type -> type.typeID() == DynamicTypeID.BINARY)
+                .orElse(false);
+    }
+
+    private static boolean isVoid(RequestValue value) {
+        return value == null || value.type() == null || value.type().equals(DynamicTypeID.VOID.name());
+    }
+
+    /**
+     * @param typeId the ID of a type in the type table
+     * @return the Java type that a client uses for it. Primitives are boxed so that they can be type arguments
+     */
+    private String javaType(String typeId) {
+        return typeRegistry.lookup(typeId)
+                .map(this::javaType)
+                .orElse("java.lang.Object");
+    }
+
+    private String javaType(DynamicType type) {
+        if (type == null) {
+            return "java.lang.Object";
+        }
+
+        return switch (type.typeID()) {
+            case VOID -> "java.lang.Void";
+            case CHAR -> "java.lang.Character";
+            case STRING -> "java.lang.String";
+            case INTEGER -> "java.lang.Long";
+            case FLOAT -> "java.lang.Double";
+            case BOOLEAN -> "java.lang.Boolean";
+            case BINARY -> "byte[]";
+            case ANY -> "java.lang.Object";
+            case ARRAY -> "java.util.List<" + javaType(type.nested().get(0)) + ">";
+            case USER, GENERIC -> declaredType(type);
+        };
+    }
+
+    private String declaredType(DynamicType type) {
+        TypeElement element = typeRegistry.declaringElement(type.reference())
+                .filter(JavaClientGenerator::isAccessible)
+                .orElse(null);
+        if (element == null) {
+            return "java.lang.Object";
+        }
+
+        String name = element.getQualifiedName().toString();
+        if (type.nested() == null || type.nested().isEmpty()) {
+            return name;
+        }
+        if (element.getTypeParameters().size() != type.nested().size()) {
+            return "java.lang.Object";
+        }
+
+        return type.nested().stream()
+                .map(this::javaType)
+                .collect(Collectors.joining(", ", name + "<", ">"));
+    }
+
+    /**
+     * @return if a type and every type enclosing it are public, so that the client package can refer to it
+     */
+    static boolean isAccessible(TypeElement element) {
+        for (Element current = element; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            if (!current.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String typeReference(String type) {
+        return "new com.fasterxml.jackson.core.type.TypeReference<" + type + ">() {}";
+    }
+
+    /**
+     * Turn a path or query variable name into a parameter name that is unique within its method
+     */
+    private static String parameterName(String wireName, Set<String> taken) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = false;
+        for (char current : wireName.toCharArray()) {
+            if (!Character.isJavaIdentifierPart(current)) {
+                upper = name.length() > 0;
+            } else if (upper) {
+                name.append(Character.toUpperCase(current));
+                upper = false;
+            } else {
+                name.append(current);
+            }
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name.insert(0, '_');
+        }
+
+        String base = name.toString();
+        if (SourceVersion.isKeyword(base) || reservedNames.contains(base)) {
+            base = base + "Value";
+        }
+
+        String unique = base;
+        for (int suffix = 2; !taken.add(unique); suffix++) {
+            unique = base + suffix;
+        }
+
+        return unique;
+    }
+
+    static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char current : value.toCharArray()) {
+            switch (current) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> literal.append(current);
+            }
+        }
+
+        return literal.append('"').toString();
+    }
+
+    /**
+     * Write segments back in Spring's template syntax, for documentation
+     */
+    private static String template(List<TemplateSegment> segments) {
+        StringBuilder template = new StringBuilder();
+        for (TemplateSegment segment : segments) {
+            switch (segment.kind()) {
+                case LITERAL -> template.append(segment.value());
+                case VARIABLE -> template.append('{').append(segment.value()).append('}');
+                case CONSTRAINED_VARIABLE -> template.append('{').append(segment.value()).append(':').append(segment.pattern()).append('}');
+                case CATCH_ALL -> template.append(segment.value() == null ? "**" : "{*" + segment.value() + "}");
+            }
+        }
+
+        return template.toString();
+    }
+
+    private static String escapeJavadoc(String value) {
+        return value.replace("*/", "*&#47;").replace("@", "{@literal @}");
+    }
+
+    private StringBuilder header() {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        return source;
+    }
+
+    private String exceptionSource() {
+        return header()
+                .append("/**\n")
+                .append(" * Thrown when a service responds with a status outside of 2xx\n")
+                .append(" */\n")
+                .append(GENERATED_ANNOTATION).append('\n')
+                .append("public class ").append(EXCEPTION_CLASS).append(" extends RuntimeException {\n\n")
+                .append("    private static final long serialVersionUID = 1L;\n\n")
+                .append("    private final int statusCode;\n")
+                .append("    private final byte[] body;\n\n")
+                .append("    public ").append(EXCEPTION_CLASS).append("(String method, java.net.URI uri, int statusCode, byte[] body) {\n")
+                .append("        super(method + \" \" + uri + \" responded with \" + statusCode);\n")
+                .append("        this.statusCode = statusCode;\n")
+                .append("        this.body = body;\n")
+                .append("    }\n\n")
+                .append("    public int statusCode() {\n")
+                .append("        return statusCode;\n")
+                .append("    }\n\n")
+                .append("    public byte[] body() {\n")
+                .append("        return body;\n")
+                .append("    }\n")
+                .append("}\n")
+                .toString();
+    }
+
+    private String supportSource() {
+        return header()
+                .append("/**\n")
+                .append(" * Helpers shared by every generated client\n")
+                .append(" */\n")
+                .append(GENERATED_ANNOTATION).append('\n')
+                .append("final class ").append(SUPPORT_CLASS).append(" {\n\n")
+                .append("""
+                            private ClientSupport() {
+                            }
+
+                            static String baseUrl(java.net.URI baseUri) {
+                                String baseUrl = baseUri.toString();
+                                return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+                            }
+
+                            static void appendPathSegment(StringBuilder url, String name, Object value) {
+                                url.append(encode(String.valueOf(java.util.Objects.requireNonNull(value, name))));
+                            }
+
+                            /** appends a catch-all variable, which may span several segments */
+                            static void appendPath(StringBuilder url, String name, Object value) {
+                                String path = String.valueOf(java.util.Objects.requireNonNull(value, name));
+                                int start = path.startsWith("/") && url.charAt(url.length() - 1) == '/' ? 1 : 0;
+                                for (int slash = path.indexOf('/', start); slash >= 0; slash = path.indexOf('/', start)) {
+                                    url.append(encode(path.substring(start, slash))).append('/');
+                                    start = slash + 1;
+                                }
+                                url.append(encode(path.substring(start)));
+                            }
+
+                            /** appends a query parameter, skipping nulls and repeating the parameter for each element of a collection */
+                            static void appendQuery(StringBuilder url, int queryStart, String encodedName, Object value) {
+                                if (value == null) {
+                                    return;
+                                }
+                                if (value instanceof Iterable<?> values) {
+                                    for (Object element : values) {
+                                        appendQuery(url, queryStart, encodedName, element);
+                                    }
+                                    return;
+                                }
+
+                                url.append(url.length() == queryStart ? '?' : '&')
+                                        .append(encodedName)
+                                        .append('=')
+                                        .append(encode(String.valueOf(value)));
+                            }
+
+                            static byte[] write(com.fasterxml.jackson.databind.ObjectWriter writer, Object value) {
+                                try {
+                                    return writer.writeValueAsBytes(value);
+                                } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+                                    throw new java.io.UncheckedIOException(e);
+                                }
+                            }
+
+                            static <T> T read(java.net.http.HttpResponse<byte[]> response, com.fasterxml.jackson.databind.ObjectReader reader) {
+                                byte[] body = checkStatus(response);
+                                if (body.length == 0) {
+                                    return null;
+                                }
+
+                                try {
+                                    return reader.readValue(body);
+                                } catch (java.io.IOException e) {
+                                    throw new java.io.UncheckedIOException(e);
+                                }
+                            }
+
+                            /**
+                             * lazily reads a stream of elements, sent either as a JSON array or as newline-delimited JSON.
+                             * Closing the stream closes the body
+                             */
+                            static <T> java.util.stream.Stream<T> readStream(java.net.http.HttpResponse<java.io.InputStream> response, com.fasterxml.jackson.databind.ObjectReader reader) {
+                                java.io.InputStream body = stream(response);
+                                com.fasterxml.jackson.databind.MappingIterator<T> values;
+                                try {
+                                    values = reader.readValues(body);
+                                } catch (java.io.IOException e) {
+                                    close(body);
+                                    throw new java.io.UncheckedIOException(e);
+                                }
+
+                                return java.util.stream.StreamSupport.stream(java.util.Spliterators.spliteratorUnknownSize(values, java.util.Spliterator.ORDERED), false)
+                                        .onClose(() -> close(values));
+                            }
+
+                            static byte[] bytes(java.net.http.HttpResponse<byte[]> response) {
+                                return checkStatus(response);
+                            }
+
+                            static Void discard(java.net.http.HttpResponse<byte[]> response) {
+                                checkStatus(response);
+                                return null;
+                            }
+
+                            static java.io.InputStream stream(java.net.http.HttpResponse<java.io.InputStream> response) {
+                                if (response.statusCode() / 100 == 2) {
+                                    return response.body();
+                                }
+
+                                try (java.io.InputStream body = response.body()) {
+                                    throw new ClientResponseException(response.request().method(), response.uri(), response.statusCode(), body.readAllBytes());
+                                } catch (java.io.IOException e) {
+                                    throw new java.io.UncheckedIOException(e);
+                                }
+                            }
+
+                            private static void close(java.io.Closeable closeable) {
+                                try {
+                                    closeable.close();
+                                } catch (java.io.IOException e) {
+                                    throw new java.io.UncheckedIOException(e);
+                                }
+                            }
+
+                            private static byte[] checkStatus(java.net.http.HttpResponse<byte[]> response) {
+                                if (response.statusCode() / 100 != 2) {
+                                    throw new ClientResponseException(response.request().method(), response.uri(), response.statusCode(), response.body());
+                                }
+
+                                return response.body();
+                            }
+
+                            /** percent-encodes a value. Spaces become %20, which is valid in paths as well as queries */
+                            private static String encode(String value) {
+                                return java.net.URLEncoder.encode(value, java.nio.charset.StandardCharsets.UTF_8).replace("+", "%20");
+                            }
+                        }
+                        """)
+                .toString();
+    }
+
+    private void write(String className, String source, Element originatingElement) throws IOException {
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        JavaFileObject sourceFile = filer.createSourceFile(qualifiedName, originatingElement);
+        try (Writer writer = new BufferedWriter(sourceFile.openWriter())) {
+            writer.write(source);
+        }
+    }
+}
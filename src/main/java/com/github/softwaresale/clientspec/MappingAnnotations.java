@@ -0,0 +1,217 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.annotation.CacheHint;
+import com.github.softwaresale.clientspec.util.Pair;
+
+import javax.lang.model.element.*;
+import java.util.*;
+
+/**
+ * Reads spring's web annotations straight from annotation mirrors. Each annotation type is matched against the
+ * annotations we know about once, after which dispatch is a single lookup by its element. Values are read from the
+ * annotation values that were actually written, so no annotation proxies are ever created.
+ * <p>
+ * Annotations are matched by their fully qualified name, so spring itself never needs to be on the processor path.
+ */
+public class MappingAnnotations {
+
+    public enum Kind {
+        REST_CONTROLLER,
+        REQUEST_MAPPING,
+        GET_MAPPING,
+        POST_MAPPING,
+        PUT_MAPPING,
+        DELETE_MAPPING,
+        PATCH_MAPPING,
+        PATH_VARIABLE,
+        REQUEST_PARAM,
+        REQUEST_BODY,
+        CACHEABLE,
+        CACHE_HINT,
+        /** an annotation we don't care about */
+        OTHER;
+
+        public boolean isHandlerMapping() {
+            return this.ordinal() >= REQUEST_MAPPING.ordinal() && this.ordinal() <= PATCH_MAPPING.ordinal();
+        }
+    }
+
+    private static final String SPRING_WEB_ANNOTATIONS = "org.springframework.web.bind.annotation.";
+
+    private static final Map<String, Kind> kindsByName = new HashMap<>();
+
+    static {
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "RestController", Kind.REST_CONTROLLER);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "RequestMapping", Kind.REQUEST_MAPPING);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "GetMapping", Kind.GET_MAPPING);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "PostMapping", Kind.POST_MAPPING);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "PutMapping", Kind.PUT_MAPPING);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "DeleteMapping", Kind.DELETE_MAPPING);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "PatchMapping", Kind.PATCH_MAPPING);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "PathVariable", Kind.PATH_VARIABLE);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "RequestParam", Kind.REQUEST_PARAM);
+        kindsByName.put(SPRING_WEB_ANNOTATIONS + "RequestBody", Kind.REQUEST_BODY);
+        kindsByName.put("org.springframework.cache.annotation.Cacheable", Kind.CACHEABLE);
+        kindsByName.put(CacheHint.class.getName(), Kind.CACHE_HINT);
+    }
+
+    /** annotation types that have already been matched */
+    private final Map<Element, Kind> kindsByElement = new HashMap<>();
+
+    /**
+     * Figure out which annotation a mirror is
+     * @param mirror the annotation
+     * @return the kind of annotation
+     */
+    public Kind kindOf(AnnotationMirror mirror) {
+        Element annotationElement = mirror.getAnnotationType().asElement();
+        Kind kind = kindsByElement.get(annotationElement);
+        if (kind == null) {
+            kind = kindOf(((TypeElement) annotationElement).getQualifiedName().toString());
+            kindsByElement.put(annotationElement, kind);
+        }
+
+        return kind;
+    }
+
+    /**
+     * Figure out which annotation a type name is
+     * @param qualifiedName the fully qualified name of an annotation type
+     * @return the kind of annotation
+     */
+    public static Kind kindOf(String qualifiedName) {
+        return kindsByName.getOrDefault(qualifiedName, Kind.OTHER);
+    }
+
+    /**
+     * Find an annotation on an element
+     * @param element the annotated element
+     * @param kind the annotation to find
+     * @return the annotation, if the element has it
+     */
+    public Optional<AnnotationMirror> find(Element element, Kind kind) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (kindOf(mirror) == kind) {
+                return Optional.of(mirror);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Find the request mapping annotation on a handler method
+     * @param element the method
+     * @return the kind of mapping and the annotation, if this method is a handler
+     */
+    public Optional<Pair<Kind, AnnotationMirror>> findHandlerMapping(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Kind kind = kindOf(mirror);
+            if (kind.isHandlerMapping()) {
+                return Optional.of(Pair.of(kind, mirror));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Get the explicitly set value of an annotation attribute. Defaults are not included
+     * @param mirror the annotation
+     * @param name the attribute name
+     * @return the value, if it was set
+     */
+    public static Optional<Object> value(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return Optional.of(entry.getValue().getValue());
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Get every explicitly set value of an annotation. Defaults are not included
+     * @param mirror the annotation
+     * @return the values, keyed by attribute name
+     */
+    public static Map<String, Object> values(AnnotationMirror mirror) {
+        Map<String, Object> values = new HashMap<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            values.put(entry.getKey().getSimpleName().toString(), entry.getValue().getValue());
+        }
+
+        return values;
+    }
+
+    /**
+     * Get a string attribute
+     * @return the value, or the empty string if it was not set
+     */
+    public static String stringValue(AnnotationMirror mirror, String name) {
+        return value(mirror, name)
+                .map(Object::toString)
+                .orElse("");
+    }
+
+    /**
+     * Get a boolean attribute
+     * @return the value, or the default value if it was not set
+     */
+    public static boolean booleanValue(AnnotationMirror mirror, String name, boolean defaultValue) {
+        return value(mirror, name)
+                .map(value -> (Boolean) value)
+                .orElse(defaultValue);
+    }
+
+    /**
+     * Get a string array attribute
+     * @return the values, or an empty array if it was not set
+     */
+    public static String[] stringArrayValue(AnnotationMirror mirror, String name) {
+        return arrayValue(mirror, name).stream()
+                .map(Object::toString)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Get an enum array attribute
+     * @return the names of the enum constants, or an empty list if it was not set
+     */
+    public static List<String> enumArrayValue(AnnotationMirror mirror, String name) {
+        return arrayValue(mirror, name).stream()
+                .map(value -> ((VariableElement) value).getSimpleName().toString())
+                .toList();
+    }
+
+    private static List<Object> arrayValue(AnnotationMirror mirror, String name) {
+        Optional<Object> value = value(mirror, name);
+        if (value.isEmpty()) {
+            return List.of();
+        }
+
+        // arrays are lists of annotation values, but a lone value may not be wrapped
+        if (value.get() instanceof List<?> values) {
+            return values.stream()
+                    .map(element -> ((AnnotationValue) element).getValue())
+                    .toList();
+        }
+
+        return List.of(value.get());
+    }
+
+    /**
+     * Read the path of a mapping annotation. Path is an alias for value, so take path if it is set
+     * @param mirror a mapping annotation
+     * @return the path components
+     */
+    public static String[] path(AnnotationMirror mirror) {
+        String[] path = stringArrayValue(mirror, "path");
+        if (path.length > 0) {
+            return path;
+        }
+
+        return stringArrayValue(mirror, "value");
+    }
+}
@@ -0,0 +1,444 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Writes an API spec as an OpenAPI 3 document. Every entity becomes a component schema that the operations refer to
+ * with {@code $ref}, so the document can be served as a static file instead of being built by scanning handlers at
+ * startup.
+ * <p>
+ * Paths are relative, so no servers are listed. Catch-all variables become regular path parameters, and generic
+ * entities refer to the schema of their raw type, as OpenAPI can't express either. For the same reason, only the
+ * first of several operations with the same method and path is written, and the others are reported as warnings.
+ */
+public class OpenApiWriter {
+
+    public static final String OPENAPI_VERSION = "3.0.3";
+
+    /** what an undeclared request body is read as, same as Spring's default */
+    private static final String DEFAULT_CONSUMES = "application/json";
+    /** an undeclared response can be rendered as whatever the client accepts */
+    private static final String DEFAULT_PRODUCES = "*/*";
+    private static final String BINARY_MEDIA_TYPE = "application/octet-stream";
+    private static final String MULTIPART_MEDIA_TYPE = "multipart/form-data";
+    private static final String SCHEMA_PREFIX = "#/components/schemas/";
+
+    /** operations are listed in the order HTTP methods are usually documented in */
+    private static final Comparator<String> methodOrder = Comparator.comparingInt(OpenApiWriter::methodRank)
+            .thenComparing(Comparator.naturalOrder());
+
+    private final ObjectMapper objectMapper;
+    private final Diagnostics diagnostics;
+
+    /** the type table of the spec being written */
+    private SortedMap<String, DynamicType> types = Collections.emptySortedMap();
+    /** schema names of every entity, keyed by entity name */
+    private final Map<String, String> schemaNames = new HashMap<>();
+
+    public OpenApiWriter(ObjectMapper objectMapper, Diagnostics diagnostics) {
+        this.objectMapper = objectMapper;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Write a spec. A writer can only be used once
+     * @param apiSpec the spec to write. It should already be hashed
+     * @param output where to write to. Not closed
+     */
+    public void write(APISpec apiSpec, Writer output) throws IOException {
+        this.types = apiSpec.types();
+
+        // schemas are named after their simple names, unless several entities share one
+        Map<String, Integer> displayNames = new HashMap<>();
+        apiSpec.entities().forEach(entity -> displayNames.merge(DynamicType.displayName(entity.name()), 1, Integer::sum));
+        for (EntitySpec entity : apiSpec.entities()) {
+            String displayName = DynamicType.displayName(entity.name());
+            schemaNames.putIfAbsent(entity.name(), schemaName(displayNames.get(displayName) == 1 ? displayName : entity.name()));
+        }
+
+        try (JsonGenerator generator = objectMapper.createGenerator(output)) {
+            // the output belongs to the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generator.writeStartObject();
+            generator.writeStringField("openapi", OPENAPI_VERSION);
+            generator.writeObjectFieldStart("info");
+            generator.writeStringField("title", apiSpec.name());
+            // the hash changes whenever the API does, which is what the version is for
+            generator.writeStringField("version", apiSpec.hash() == null ? "0" : apiSpec.hash());
+            generator.writeEndObject();
+
+            writeTags(generator, apiSpec.services());
+            writePaths(generator, apiSpec.services());
+            writeComponents(generator, apiSpec.entities());
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeTags(JsonGenerator generator, List<ServiceSpec> services) throws IOException {
+        generator.writeArrayFieldStart("tags");
+        Set<String> seen = new HashSet<>();
+        for (ServiceSpec service : services) {
+            if (seen.add(service.name())) {
+                generator.writeStartObject();
+                generator.writeStringField("name", service.name());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private void writePaths(JsonGenerator generator, List<ServiceSpec> services) throws IOException {
+        // several handlers can share a path with different methods, so operations have to be grouped first
+        SortedMap<String, SortedMap<String, Operation>> paths = new TreeMap<>();
+        for (ServiceSpec service : services) {
+            for (APIEndpoint endpoint : service.endpoints()) {
+                // routes that differ by a constraint, media type, or request condition end up on the same path,
+                // and a path can only have one operation per method, so the first one is kept
+                String path = path(endpoint.segments());
+                Operation operation = new Operation(service.name(), endpoint);
+                Operation existing = paths.computeIfAbsent(path, key -> new TreeMap<>(methodOrder))
+                        .putIfAbsent(endpoint.method(), operation);
+                if (existing != null) {
+                    diagnostics.warning(() -> "OpenAPI document leaves out " + operation + " because "
+                            + endpoint.method() + " " + path + " is already documented by " + existing);
+                }
+            }
+        }
+
+        // operation IDs have to be unique across the document
+        Map<String, Integer> operationIds = new HashMap<>();
+        generator.writeObjectFieldStart("paths");
+        for (Map.Entry<String, SortedMap<String, Operation>> path : paths.entrySet()) {
+            generator.writeObjectFieldStart(path.getKey());
+            for (Map.Entry<String, Operation> operation : path.getValue().entrySet()) {
+                APIEndpoint endpoint = operation.getValue().endpoint();
+                int count = operationIds.merge(endpoint.name(), 1, Integer::sum);
+                String operationId = count == 1 ? endpoint.name() : endpoint.name() + "_" + (count - 1);
+
+                generator.writeObjectFieldStart(operation.getKey().toLowerCase(Locale.ROOT));
+                writeOperation(generator, operation.getValue().service(), operationId, endpoint);
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeOperation(JsonGenerator generator, String service, String operationId, APIEndpoint endpoint) throws IOException {
+        generator.writeArrayFieldStart("tags");
+        generator.writeString(service);
+        generator.writeEndArray();
+        generator.writeStringField("operationId", operationId);
+
+        // uploaded files can't be query parameters, so they go into a multipart body instead
+        Map<String, RequestValue> parts = new TreeMap<>();
+        Map<String, RequestValue> queryVariables = new TreeMap<>();
+        for (Map.Entry<String, RequestValue> variable : endpoint.queryVariables().entrySet()) {
+            if (isBinary(types.get(variable.getValue().type()))) {
+                parts.put(variable.getKey(), variable.getValue());
+            } else {
+                queryVariables.put(variable.getKey(), variable.getValue());
+            }
+        }
+
+        boolean hasPathVariables = endpoint.segments().stream().anyMatch(segment -> segment.kind() != TemplateSegment.Kind.LITERAL);
+        if (hasPathVariables || !queryVariables.isEmpty()) {
+            writeParameters(generator, endpoint, queryVariables);
+        }
+
+        if (!parts.isEmpty() || !isVoid(endpoint.requestBody())) {
+            writeRequestBody(generator, endpoint, parts);
+        }
+
+        generator.writeObjectFieldStart("responses");
+        generator.writeObjectFieldStart("200");
+        generator.writeStringField("description", "OK");
+        if (!isVoid(endpoint.responseBody())) {
+            writeResponseContent(generator, endpoint);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private void writeParameters(JsonGenerator generator, APIEndpoint endpoint, Map<String, RequestValue> queryVariables) throws IOException {
+        generator.writeArrayFieldStart("parameters");
+        for (TemplateSegment segment : endpoint.segments()) {
+            if (segment.kind() == TemplateSegment.Kind.LITERAL) {
+                continue;
+            }
+
+            String name = variableName(segment);
+            RequestValue value = endpoint.pathVariables().get(name);
+            generator.writeStartObject();
+            generator.writeStringField("name", name);
+            generator.writeStringField("in", "path");
+            generator.writeBooleanField("required", true);
+            generator.writeFieldName("schema");
+            if (value == null || segment.kind() == TemplateSegment.Kind.CONSTRAINED_VARIABLE) {
+                // variables without a parameter are only ever bound as text
+                generator.writeStartObject();
+                generator.writeStringField("type", "string");
+                if (segment.pattern() != null) {
+                    generator.writeStringField("pattern", segment.pattern());
+                }
+                generator.writeEndObject();
+            } else {
+                writeSchema(generator, types.get(value.type()));
+            }
+            generator.writeEndObject();
+        }
+        for (Map.Entry<String, RequestValue> variable : queryVariables.entrySet()) {
+            generator.writeStartObject();
+            generator.writeStringField("name", variable.getKey());
+            generator.writeStringField("in", "query");
+            generator.writeBooleanField("required", variable.getValue().required());
+            generator.writeFieldName("schema");
+            writeSchema(generator, types.get(variable.getValue().type()));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeRequestBody(JsonGenerator generator, APIEndpoint endpoint, Map<String, RequestValue> parts) throws IOException {
+        generator.writeObjectFieldStart("requestBody");
+        generator.writeObjectFieldStart("content");
+        if (parts.isEmpty()) {
+            DynamicType type = types.get(endpoint.requestBody().type());
+            for (String mediaType : mediaTypes(endpoint.consumes(), isBinary(type) ? BINARY_MEDIA_TYPE : DEFAULT_CONSUMES)) {
+                generator.writeObjectFieldStart(mediaType);
+                generator.writeFieldName("schema");
+                writeSchema(generator, type);
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            if (endpoint.requestBody().required()) {
+                generator.writeBooleanField("required", true);
+            }
+        } else {
+            List<String> multipartTypes = endpoint.consumes().stream()
+                    .filter(mediaType -> mediaType.startsWith("multipart/"))
+                    .toList();
+            for (String mediaType : mediaTypes(multipartTypes, MULTIPART_MEDIA_TYPE)) {
+                generator.writeObjectFieldStart(mediaType);
+                generator.writeObjectFieldStart("schema");
+                writeObjectSchema(generator, parts);
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            if (parts.values().stream().anyMatch(RequestValue::required)) {
+                generator.writeBooleanField("required", true);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeResponseContent(JsonGenerator generator, APIEndpoint endpoint) throws IOException {
+        DynamicType type = types.get(endpoint.responseBody().type());
+        generator.writeObjectFieldStart("content");
+        for (String mediaType : mediaTypes(endpoint.produces(), DEFAULT_PRODUCES)) {
+            generator.writeObjectFieldStart(mediaType);
+            generator.writeFieldName("schema");
+            if (endpoint.elementStream() && !isStreamingMediaType(mediaType)) {
+                // without a streaming media type, the elements are collected into a single array
+                generator.writeStartObject();
+                generator.writeStringField("type", "array");
+                generator.writeFieldName("items");
+                writeSchema(generator, type);
+                generator.writeEndObject();
+            } else {
+                writeSchema(generator, type);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeComponents(JsonGenerator generator, List<EntitySpec> entities) throws IOException {
+        generator.writeObjectFieldStart("components");
+        generator.writeObjectFieldStart("schemas");
+        Set<String> written = new HashSet<>();
+        for (EntitySpec entity : entities) {
+            if (!written.add(entity.name())) {
+                continue;
+            }
+
+            generator.writeObjectFieldStart(schemaNames.get(entity.name()));
+            if (entity.values().isEmpty()) {
+                Map<String, RequestValue> properties = new LinkedHashMap<>();
+                entity.properties().forEach((name, property) -> properties.put(name, new RequestValue(property.type(), property.required())));
+                writeObjectSchema(generator, properties);
+            } else {
+                // enums are written as the names of their constants
+                generator.writeStringField("type", "string");
+                generator.writeArrayFieldStart("enum");
+                for (String constant : entity.values()) {
+                    generator.writeString(constant);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write the fields of an object schema, without the enclosing braces
+     */
+    private void writeObjectSchema(JsonGenerator generator, Map<String, RequestValue> properties) throws IOException {
+        generator.writeStringField("type", "object");
+        generator.writeObjectFieldStart("properties");
+        List<String> required = new ArrayList<>();
+        for (Map.Entry<String, RequestValue> property : properties.entrySet()) {
+            generator.writeFieldName(property.getKey());
+            writeSchema(generator, types.get(property.getValue().type()));
+            if (property.getValue().required()) {
+                required.add(property.getKey());
+            }
+        }
+        generator.writeEndObject();
+
+        // an empty required list is not allowed
+        if (!required.isEmpty()) {
+            generator.writeArrayFieldStart("required");
+            for (String name : required) {
+                generator.writeString(name);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeSchema(JsonGenerator generator, DynamicType type) throws IOException {
+        generator.writeStartObject();
+        if (type != null) {
+            switch (type.typeID()) {
+                case STRING -> {
+                    String schemaName = type.reference() == null ? null : schemaNames.get(type.reference());
+                    if (schemaName == null) {
+                        generator.writeStringField("type", "string");
+                    } else {
+                        // an enum
+                        generator.writeStringField("$ref", SCHEMA_PREFIX + schemaName);
+                    }
+                }
+                case CHAR -> {
+                    generator.writeStringField("type", "string");
+                    generator.writeNumberField("minLength", 1);
+                    generator.writeNumberField("maxLength", 1);
+                }
+                case INTEGER -> generator.writeStringField("type", "integer");
+                case FLOAT -> generator.writeStringField("type", "number");
+                case BOOLEAN -> generator.writeStringField("type", "boolean");
+                case BINARY -> {
+                    generator.writeStringField("type", "string");
+                    generator.writeStringField("format", "binary");
+                }
+                case ARRAY -> {
+                    generator.writeStringField("type", "array");
+                    generator.writeFieldName("items");
+                    writeSchema(generator, type.nested() == null || type.nested().isEmpty() ? null : type.nested().get(0));
+                }
+                case USER, GENERIC -> {
+                    String schemaName = schemaNames.get(type.reference());
+                    if (schemaName == null) {
+                        // types without an entity can't be described any further
+                        generator.writeStringField("type", "object");
+                    } else {
+                        generator.writeStringField("$ref", SCHEMA_PREFIX + schemaName);
+                    }
+                }
+                // anything else can be any value
+                case VOID, ANY -> { }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private boolean isVoid(RequestValue value) {
+        if (value == null) {
+            return true;
+        }
+
+        DynamicType type = types.get(value.type());
+        return type == null || type.typeID() == DynamicTypeID.VOID;
+    }
+
+    private static boolean isBinary(DynamicType type) {
+        return type != null && type.typeID() == DynamicTypeID.BINARY;
+    }
+
+    private static boolean isStreamingMediaType(String mediaType) {
+        return mediaType.startsWith("text/event-stream") || mediaType.startsWith("application/x-ndjson")
+                || mediaType.contains("stream+json");
+    }
+
+    private static List<String> mediaTypes(List<String> declared, String fallback) {
+        if (declared == null || declared.isEmpty()) {
+            return List.of(fallback);
+        }
+
+        // the same media type can be declared more than once
+        return new ArrayList<>(new LinkedHashSet<>(declared));
+    }
+
+    /**
+     * Render a template as an OpenAPI path. Every variable becomes a plain {@code {name}}
+     */
+    private static String path(List<TemplateSegment> segments) {
+        StringBuilder path = new StringBuilder();
+        for (TemplateSegment segment : segments) {
+            if (segment.kind() == TemplateSegment.Kind.LITERAL) {
+                path.append(segment.value());
+            } else {
+                path.append('{').append(variableName(segment)).append('}');
+            }
+        }
+
+        if (path.isEmpty() || path.charAt(0) != '/') {
+            path.insert(0, '/');
+        }
+        return path.toString();
+    }
+
+    private static String variableName(TemplateSegment segment) {
+        // an anonymous catch-all still needs a parameter to go with it
+        return segment.value() == null ? "remainingPath" : segment.value();
+    }
+
+    /**
+     * Component names may only use letters, digits, dots, dashes, and underscores
+     */
+    private static String schemaName(String entityName) {
+        StringBuilder name = new StringBuilder(entityName.length());
+        for (int i = 0; i < entityName.length(); i++) {
+            char current = entityName.charAt(i);
+            boolean allowed = (current >= 'a' && current <= 'z') || (current >= 'A' && current <= 'Z')
+                    || (current >= '0' && current <= '9') || current == '.' || current == '-' || current == '_';
+            name.append(allowed ? current : '_');
+        }
+        return name.toString();
+    }
+
+    private static int methodRank(String method) {
+        try {
+            return HttpMethod.valueOf(method.toUpperCase(Locale.ROOT)).ordinal();
+        } catch (IllegalArgumentException e) {
+            return HttpMethod.values().length;
+        }
+    }
+
+    private record Operation(String service, APIEndpoint endpoint) {
+        @Override
+        public String toString() {
+            return service + "." + endpoint.name();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.softwaresale.clientspec;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timers and counters for the processor. Metrics are off unless enabled, in which case every call is a single
+ * branch and nothing is allocated or timed.
+ * <p>
+ * Phase timings are inclusive: handler visits include the type mapping and template parsing they do, and
+ * processing includes everything.
+ */
+public class ProcessorMetrics {
+
+    public enum Phase {
+        PROCESS,
+        DISCOVERY,
+        VISIT_HANDLER,
+        TYPE_MAPPING,
+        TEMPLATE_PARSING,
+        ENTITY_RESOLUTION,
+        SERIALIZATION,
+        CLIENT_GENERATION,
+        CODEC_GENERATION,
+    }
+
+    public enum Counter {
+        CONTROLLERS,
+        ENDPOINTS,
+        UNIQUE_TYPES,
+        ENTITIES,
+        CACHE_HITS,
+        CACHE_MISSES,
+    }
+
+    /**
+     * Timing for a single phase
+     * @param calls how many times the phase ran
+     * @param nanos total time spent in the phase
+     */
+    public record PhaseTiming(long calls, long nanos) {
+    }
+
+    /**
+     * Snapshot of every metric
+     * @param phases timings, keyed by phase name
+     * @param counters counts, keyed by counter name
+     */
+    public record MetricsReport(Map<String, PhaseTiming> phases, Map<String, Long> counters) {
+    }
+
+    private boolean enabled;
+    private final long[] phaseCalls = new long[Phase.values().length];
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] counters = new long[Counter.values().length];
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Start timing a phase
+     * @return the start time, to be passed to {@link #stop(Phase, long)}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Stop timing a phase
+     * @param phase the phase that was timed
+     * @param start the value returned by {@link #start()}
+     */
+    public void stop(Phase phase, long start) {
+        if (enabled) {
+            phaseNanos[phase.ordinal()] += System.nanoTime() - start;
+            phaseCalls[phase.ordinal()]++;
+        }
+    }
+
+    public void increment(Counter counter) {
+        add(counter, 1);
+    }
+
+    public void add(Counter counter, long amount) {
+        if (enabled) {
+            counters[counter.ordinal()] += amount;
+        }
+    }
+
+    public void set(Counter counter, long value) {
+        if (enabled) {
+            counters[counter.ordinal()] = value;
+        }
+    }
+
+    public long get(Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    /**
+     * @return a snapshot of every metric
+     */
+    public MetricsReport report() {
+        Map<String, PhaseTiming> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            phases.put(key(phase), new PhaseTiming(phaseCalls[phase.ordinal()], phaseNanos[phase.ordinal()]));
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            counts.put(key(counter), counters[counter.ordinal()]);
+        }
+
+        return new MetricsReport(phases, counts);
+    }
+
+    /**
+     * @return a single line summary of the metrics
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "client-spec: %d controllers, %d endpoints, %d types, %d entities, %d/%d cache hits in %.1f ms (",
+                get(Counter.CONTROLLERS), get(Counter.ENDPOINTS), get(Counter.UNIQUE_TYPES), get(Counter.ENTITIES),
+                get(Counter.CACHE_HITS), get(Counter.CACHE_HITS) + get(Counter.CACHE_MISSES),
+                millis(Phase.PROCESS)));
+
+        for (Phase phase : Phase.values()) {
+            if (phase == Phase.PROCESS) {
+                continue;
+            }
+            if (phase.ordinal() > Phase.PROCESS.ordinal() + 1) {
+                summary.append(", ");
+            }
+            summary.append(String.format(Locale.ROOT, "%s %.1f ms", key(phase), millis(phase)));
+        }
+
+        return summary.append(')').toString();
+    }
+
+    private double millis(Phase phase) {
+        return phaseNanos[phase.ordinal()] / 1_000_000.0;
+    }
+
+    private static String key(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,10 +1,9 @@
 package com.github.softwaresale.clientspec;
 
 import com.github.softwaresale.clientspec.model.APIEndpointMetadata;
-import org.springframework.http.HttpMethod;
-import org.springframework.web.bind.annotation.*;
+import com.github.softwaresale.clientspec.model.HttpMethod;
 
-import java.lang.annotation.Annotation;
+import javax.lang.model.element.AnnotationMirror;
 import java.util.Optional;
 
 /**
@@ -12,66 +11,26 @@ import java.util.Optional;
  */
 public class RequestMappingDecomposer {
 
-    public static <T extends Annotation> Optional<APIEndpointMetadata> convert(T annotation) {
-        if (annotation instanceof RequestMapping requestMapping) {
-            return Optional.of(convertRequestMapping(requestMapping));
-        } else if (annotation instanceof GetMapping requestMapping) {
-            return Optional.of(convertGetMapping(requestMapping));
-        } else if (annotation instanceof DeleteMapping requestMapping) {
-            return Optional.of(convertDeleteMapping(requestMapping));
-        } else if (annotation instanceof PutMapping requestMapping) {
-            return Optional.of(convertPutMapping(requestMapping));
-        } else if (annotation instanceof PatchMapping requestMapping) {
-            return Optional.of(convertPatchMapping(requestMapping));
-        } else if (annotation instanceof PostMapping requestMapping) {
-            return Optional.of(convertPostMapping(requestMapping));
-        } else {
-            return Optional.empty();
-        }
+    public static Optional<APIEndpointMetadata> convert(MappingAnnotations.Kind kind, AnnotationMirror annotation) {
+        return switch (kind) {
+            case REQUEST_MAPPING -> Optional.of(convertRequestMapping(annotation));
+            case GET_MAPPING -> Optional.of(convertMapping(annotation, HttpMethod.GET));
+            case POST_MAPPING -> Optional.of(convertMapping(annotation, HttpMethod.POST));
+            case PUT_MAPPING -> Optional.of(convertMapping(annotation, HttpMethod.PUT));
+            case PATCH_MAPPING -> Optional.of(convertMapping(annotation, HttpMethod.PATCH));
+            case DELETE_MAPPING -> Optional.of(convertMapping(annotation, HttpMethod.DELETE));
+            default -> Optional.empty();
+        };
     }
 
-    private static APIEndpointMetadata convertRequestMapping(RequestMapping mapping) {
+    private static APIEndpointMetadata convertRequestMapping(AnnotationMirror mapping) {
         HttpMethod method = HttpMethodConverter.getHttpMethod(mapping).orElseThrow();
-        return new APIEndpointMetadata(mapping.path(), method);
+        return convertMapping(mapping, method);
     }
 
-    private static APIEndpointMetadata convertGetMapping(GetMapping mapping) {
-        String[] path = mapping.value();
-        if (mapping.path().length > 0) {
-            path = mapping.path();
-        }
-        return new APIEndpointMetadata(path, HttpMethod.GET);
-    }
-
-    private static APIEndpointMetadata convertPostMapping(PostMapping mapping) {
-        String[] path = mapping.value();
-        if (mapping.path().length > 0) {
-            path = mapping.path();
-        }
-        return new APIEndpointMetadata(path, HttpMethod.POST);
-    }
-
-    private static APIEndpointMetadata convertPutMapping(PutMapping mapping) {
-        String[] path = mapping.value();
-        if (mapping.path().length > 0) {
-            path = mapping.path();
-        }
-        return new APIEndpointMetadata(path, HttpMethod.PUT);
-    }
-
-    private static APIEndpointMetadata convertPatchMapping(PatchMapping mapping) {
-        String[] path = mapping.value();
-        if (mapping.path().length > 0) {
-            path = mapping.path();
-        }
-        return new APIEndpointMetadata(path, HttpMethod.PATCH);
-    }
-
-    private static APIEndpointMetadata convertDeleteMapping(DeleteMapping mapping) {
-        String[] path = mapping.value();
-        if (mapping.path().length > 0) {
-            path = mapping.path();
-        }
-        return new APIEndpointMetadata(path, HttpMethod.DELETE);
+    private static APIEndpointMetadata convertMapping(AnnotationMirror mapping, HttpMethod method) {
+        return new APIEndpointMetadata(MappingAnnotations.path(mapping), method,
+                MappingAnnotations.stringArrayValue(mapping, "consumes"),
+                MappingAnnotations.stringArrayValue(mapping, "produces"));
     }
 }
@@ -0,0 +1,273 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.APIEndpoint;
+import com.github.softwaresale.clientspec.model.RouteNode;
+import com.github.softwaresale.clientspec.model.RouteTarget;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+import com.github.softwaresale.clientspec.model.TemplateSegment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Index of every route in an API. Paths are split into segments, with one trie level per segment. Literal segments
+ * get their own child, constrained variables share a child per regex, every other variable segment at a level
+ * shares a single wildcard child, and a catch-all ends the path, so resolving a path takes one step per segment.
+ * Routes that end at the same node with the same method are told apart by their conditions: the media types they
+ * consume and produce, and the params and headers they require.
+ * A path segment that mixes text and variables, like {@code {name}.json}, is indexed as a constrained variable
+ * whose regex matches the whole segment.
+ */
+public class RouteTrie {
+
+    private final RouteNode root;
+    /** compiled constraint regexes, so they are only compiled once */
+    private final Map<String, Pattern> patterns = new HashMap<>();
+
+    public RouteTrie() {
+        this(new RouteNode());
+    }
+
+    /**
+     * @param root a previously built index
+     */
+    public RouteTrie(RouteNode root) {
+        this.root = root;
+    }
+
+    public RouteNode root() {
+        return root;
+    }
+
+    /**
+     * Add every endpoint of a service
+     * @param service the service to add
+     * @return a description of every route that conflicts with one that was already added
+     */
+    public List<String> add(ServiceSpec service) {
+        List<String> conflicts = new ArrayList<>();
+        for (APIEndpoint endpoint : service.endpoints()) {
+            add(service.name(), endpoint, List.of()).ifPresent(conflicts::add);
+        }
+
+        return conflicts;
+    }
+
+    /**
+     * Add a single endpoint. Its media types are conditions of the route, along with any other request conditions
+     * @param service the name of the endpoint's service
+     * @param endpoint the endpoint to add
+     * @param requestConditions conditions on the params and headers of requests, like {@code params:version=2}
+     * @return a description of the conflict, if this route collides with an existing one
+     */
+    public Optional<String> add(String service, APIEndpoint endpoint, List<String> requestConditions) {
+        List<String> conditions = new ArrayList<>(requestConditions);
+        endpoint.consumes().forEach(mediaType -> conditions.add("consumes:" + mediaType));
+        endpoint.produces().forEach(mediaType -> conditions.add("produces:" + mediaType));
+        conditions.sort(null);
+
+        return add(endpoint.method(), endpoint.segments(),
+                new RouteTarget(service, endpoint.name(), endpoint.endpoint(), List.copyOf(conditions)));
+    }
+
+    /**
+     * Add a single route. Routes with the same method and path shape only conflict if their conditions are the same
+     * @param method the HTTP method of the route
+     * @param segments the tokenized template of the route
+     * @param target the endpoint the route goes to
+     * @return a description of the conflict, if this route collides with an existing one
+     */
+    public Optional<String> add(String method, List<TemplateSegment> segments, RouteTarget target) {
+        RouteNode node = root;
+        for (TemplateSegment step : pathSegments(segments)) {
+            node = switch (step.kind()) {
+                case LITERAL -> node.getLiterals().computeIfAbsent(step.value(), key -> new RouteNode());
+                case CONSTRAINED_VARIABLE -> node.getConstrained().computeIfAbsent(step.pattern(), key -> new RouteNode());
+                case VARIABLE -> {
+                    if (node.getVariable() == null) {
+                        node.setVariable(new RouteNode());
+                    }
+                    yield node.getVariable();
+                }
+                case CATCH_ALL -> {
+                    if (node.getCatchAll() == null) {
+                        node.setCatchAll(new RouteNode());
+                    }
+                    yield node.getCatchAll();
+                }
+            };
+        }
+
+        List<RouteTarget> targets = node.getRoutes().computeIfAbsent(method, key -> new ArrayList<>());
+        Optional<RouteTarget> existing = targets.stream()
+                .filter(route -> route.conditions().equals(target.conditions()))
+                .findFirst();
+        if (existing.isEmpty()) {
+            targets.add(target);
+            return Optional.empty();
+        }
+
+        // identical templates are duplicates. Otherwise, only the variable names differ, so the routes are ambiguous
+        RouteTarget conflicting = existing.get();
+        String kind = conflicting.template().equals(target.template()) ? "duplicate" : "ambiguous";
+        String conditions = target.conditions().isEmpty() ? "" : " " + target.conditions();
+        return Optional.of(String.format("%s route %s %s%s: %s.%s conflicts with %s.%s (%s)", kind, method, target.template(),
+                conditions, target.service(), target.endpoint(), conflicting.service(), conflicting.endpoint(),
+                conflicting.template()));
+    }
+
+    /**
+     * Find the route for a request. Literal segments take precedence over constrained variables, which take
+     * precedence over other variables, which take precedence over catch-alls. Conditions are not checked, so when
+     * routes only differ by their conditions, the first one that was added is returned
+     * @param method the HTTP method of the request
+     * @param path the request path
+     * @return the matched route, if any
+     */
+    public Optional<RouteTarget> resolve(String method, String path) {
+        return resolve(root, segments(path), 0, method);
+    }
+
+    private Optional<RouteTarget> resolve(RouteNode node, List<String> segments, int index, String method) {
+        if (index == segments.size()) {
+            Optional<RouteTarget> target = firstRoute(node, method);
+            if (target.isEmpty() && node.getCatchAll() != null) {
+                // catch-alls also match an empty remainder
+                target = firstRoute(node.getCatchAll(), method);
+            }
+            return target;
+        }
+
+        String segment = segments.get(index);
+        RouteNode literal = node.getLiterals().get(segment);
+        if (literal != null) {
+            Optional<RouteTarget> target = resolve(literal, segments, index + 1, method);
+            if (target.isPresent()) {
+                return target;
+            }
+        }
+
+        for (Map.Entry<String, RouteNode> constrained : node.getConstrained().entrySet()) {
+            if (patterns.computeIfAbsent(constrained.getKey(), Pattern::compile).matcher(segment).matches()) {
+                Optional<RouteTarget> target = resolve(constrained.getValue(), segments, index + 1, method);
+                if (target.isPresent()) {
+                    return target;
+                }
+            }
+        }
+
+        if (node.getVariable() != null) {
+            Optional<RouteTarget> target = resolve(node.getVariable(), segments, index + 1, method);
+            if (target.isPresent()) {
+                return target;
+            }
+        }
+
+        if (node.getCatchAll() != null) {
+            return firstRoute(node.getCatchAll(), method);
+        }
+
+        return Optional.empty();
+    }
+
+    private static Optional<RouteTarget> firstRoute(RouteNode node, String method) {
+        List<RouteTarget> targets = node.getRoutes().get(method);
+        if (targets == null || targets.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(targets.get(0));
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+
+        return segments;
+    }
+
+    /**
+     * Regroup template segments into one step per path segment. Literal steps hold the text of a single path
+     * segment, and nothing after a catch-all is indexed
+     */
+    private static List<TemplateSegment> pathSegments(List<TemplateSegment> segments) {
+        List<TemplateSegment> steps = new ArrayList<>();
+        List<TemplateSegment> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (TemplateSegment segment : segments) {
+            switch (segment.kind()) {
+                case LITERAL -> {
+                    for (int i = 0; i < segment.value().length(); i++) {
+                        char current = segment.value().charAt(i);
+                        if (current == '/') {
+                            endLiteral(parts, literal);
+                            endPathSegment(steps, parts);
+                        } else {
+                            literal.append(current);
+                        }
+                    }
+                }
+                case VARIABLE, CONSTRAINED_VARIABLE -> {
+                    endLiteral(parts, literal);
+                    parts.add(segment);
+                }
+                case CATCH_ALL -> {
+                    endLiteral(parts, literal);
+                    endPathSegment(steps, parts);
+                    steps.add(segment);
+                    return steps;
+                }
+            }
+        }
+        endLiteral(parts, literal);
+        endPathSegment(steps, parts);
+
+        return steps;
+    }
+
+    private static void endLiteral(List<TemplateSegment> parts, StringBuilder literal) {
+        if (!literal.isEmpty()) {
+            parts.add(TemplateSegment.literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * A path segment that mixes text and variables, like {@code {name}.json}, only matches what fits the whole
+     * segment, so it is indexed as a constrained variable with a regex for the whole segment
+     */
+    private static void endPathSegment(List<TemplateSegment> steps, List<TemplateSegment> parts) {
+        if (parts.size() == 1) {
+            steps.add(parts.get(0));
+        } else if (parts.size() > 1) {
+            StringBuilder pattern = new StringBuilder();
+            String name = null;
+            for (TemplateSegment part : parts) {
+                switch (part.kind()) {
+                    case LITERAL -> pattern.append(Pattern.quote(part.value()));
+                    case VARIABLE -> pattern.append("[^/]+");
+                    default -> pattern.append("(?:").append(part.pattern()).append(')');
+                }
+                if (name == null && part.kind() != TemplateSegment.Kind.LITERAL) {
+                    name = part.value();
+                }
+            }
+            steps.add(TemplateSegment.constrainedVariable(name, pattern.toString()));
+        }
+        parts.clear();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads an API spec written by {@link ShardedSpecWriter}. Only the manifest is read up front, and every other shard
+ * is read when it is asked for, so consumers only pay for the services they use.
+ */
+public class ShardedSpecReader {
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final SpecManifest manifest;
+
+    /**
+     * Read the manifest of a sharded spec
+     * @param directory the {@code client-spec} directory holding the manifest
+     * @param objectMapper used to read the shards
+     * @return a reader over the shards
+     */
+    public static ShardedSpecReader open(Path directory, ObjectMapper objectMapper) throws IOException {
+        SpecManifest manifest = objectMapper.readValue(directory.resolve(ShardedSpecWriter.MANIFEST_FILE).toFile(), SpecManifest.class);
+        return new ShardedSpecReader(directory, objectMapper, manifest);
+    }
+
+    private ShardedSpecReader(Path directory, ObjectMapper objectMapper, SpecManifest manifest) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.manifest = manifest;
+    }
+
+    public SpecManifest manifest() {
+        return manifest;
+    }
+
+    /**
+     * Read a single service
+     * @param name the name of the service
+     * @return the service, if it exists
+     */
+    public Optional<ServiceSpec> service(String name) throws IOException {
+        for (ServiceShard shard : manifest.services()) {
+            if (shard.name().equals(name)) {
+                return Optional.of(service(shard));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Read the shard of a single service
+     * @param shard the service's entry in the manifest
+     * @return the service
+     */
+    public ServiceSpec service(ServiceShard shard) throws IOException {
+        return objectMapper.readValue(directory.resolve(shard.file()).toFile(), ServiceSpec.class);
+    }
+
+    /**
+     * @return the type table and entities shared by every service
+     */
+    public EntityShard entities() throws IOException {
+        return objectMapper.readValue(directory.resolve(manifest.entities()).toFile(), EntityShard.class);
+    }
+
+    /**
+     * Read every shard. Services are read in parallel on the common fork/join pool
+     * @return the whole spec
+     */
+    public APISpec readAll() throws IOException {
+        List<ServiceSpec> services;
+        try {
+            services = manifest.services().parallelStream()
+                    .map(shard -> {
+                        try {
+                            return service(shard);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        EntityShard entities = entities();
+        return new APISpec(manifest.name(), manifest.hash(), entities.types(), entities.entities(), services);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.*;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Writes an API spec as one file per service under {@code client-spec/}, so that consumers can load services
+ * independently and in parallel. Services are written as soon as they are visited, to a file named after the
+ * qualified name of their controller, so that the same sources always produce the same files. The type table and
+ * entities go into a shared shard, and a manifest lists every shard.
+ */
+public class ShardedSpecWriter {
+
+    public static final String SHARD_DIRECTORY = "client-spec/";
+    public static final String MANIFEST_FILE = "manifest.json";
+    public static final String ENTITIES_FILE = "entities.json";
+    private static final String SERVICE_DIRECTORY = "services/";
+
+    private final Filer filer;
+    private final ObjectMapper objectMapper;
+
+    private final List<ServiceShard> services = new ArrayList<>();
+
+    public ShardedSpecWriter(Filer filer, ObjectMapper objectMapper) {
+        this.filer = filer;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the shard for a single service
+     * @param service the service to write. It should already be hashed
+     * @param controllerClass the controller the service came from
+     */
+    public void writeService(ServiceSpec service, TypeElement controllerClass) throws IOException {
+        // services are named after their simple name, which several controllers can share
+        String file = SERVICE_DIRECTORY + DynamicTypeRegistry.referenceName(controllerClass) + ".json";
+        write(file, service, controllerClass);
+        services.add(new ServiceShard(service.name(), file, service.endpoints().size(), service.hash()));
+    }
+
+    /**
+     * Write the shared shard and the manifest. No more services can be written after this
+     * @param name the name of the API
+     * @param hash content hash of the whole API
+     * @param types the full type table
+     * @param entities every resolved entity
+     * @param originatingElements every controller that contributed to the spec
+     */
+    public void finish(String name, String hash, SortedMap<String, DynamicType> types, List<EntitySpec> entities,
+                       Element... originatingElements) throws IOException {
+        write(ENTITIES_FILE, new EntityShard(types, entities), originatingElements);
+
+        List<ServiceShard> sortedServices = new ArrayList<>(services);
+        sortedServices.sort(Comparator.comparing(ServiceShard::name).thenComparing(ServiceShard::file));
+        write(MANIFEST_FILE, new SpecManifest(name, hash, ENTITIES_FILE, sortedServices), originatingElements);
+    }
+
+    private void write(String file, Object value, Element... originatingElements) throws IOException {
+        FileObject shardFile = filer.createResource(StandardLocation.SOURCE_OUTPUT, "", SHARD_DIRECTORY + file, originatingElements);
+        try (Writer outputWriter = new BufferedWriter(shardFile.openWriter())) {
+            objectMapper.writeValue(outputWriter, value);
+        }
+    }
+}
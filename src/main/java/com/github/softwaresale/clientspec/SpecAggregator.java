@@ -0,0 +1,385 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.APIEndpoint;
+import com.github.softwaresale.clientspec.model.APISpec;
+import com.github.softwaresale.clientspec.model.DynamicType;
+import com.github.softwaresale.clientspec.model.EntitySpec;
+import com.github.softwaresale.clientspec.model.PropertySpec;
+import com.github.softwaresale.clientspec.model.RequestValue;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Merges the specs that modules embed under {@link ControllerProcessor#EMBEDDED_SPEC_DIRECTORY} into a single spec,
+ * without visiting any of their controllers again. Fragments are streamed one service and entity at a time.
+ * <p>
+ * Types are shared by ID and entities by name, so each only appears once. If two fragments define an entity
+ * differently, the conflict is reported and every definition of that entity is namespaced with the name of the API
+ * it came from, so {@code demo.Order} from {@code billing} becomes {@code billing.demo.Order}. Types, properties, and
+ * endpoints that refer to it are updated to match, so shared entities that refer to it are namespaced as well. If two
+ * fragments have a service with the same name, every one of those services is prefixed with the name of the API it
+ * came from. Fragments that share an API name, like modules that never set one, are told apart by the order they were
+ * added in, so the first two {@code service} fragments become {@code service-1} and {@code service-2}.
+ */
+public class SpecAggregator {
+
+    /** where a module's embedded spec lives */
+    public static final String EMBEDDED_SPEC = ControllerProcessor.EMBEDDED_SPEC_DIRECTORY + ControllerProcessor.API_SPEC_FILE;
+
+    private final ObjectMapper objectMapper;
+    /** every fragment that was added, in order. Entities can only be namespaced once every fragment is known */
+    private final List<APISpec> fragments = new ArrayList<>();
+    /** the first definition of every entity, for finding conflicts */
+    private final Map<String, EntitySpec> entities = new HashMap<>();
+    /** where each entity came from, for reporting conflicts */
+    private final Map<String, String> entitySources = new HashMap<>();
+    /** names of entities that are defined differently by different fragments */
+    private final Set<String> conflictingEntities = new HashSet<>();
+
+    public SpecAggregator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Add every embedded spec visible to a class loader
+     * @param classLoader the class loader to search
+     * @return any conflicts between fragments
+     */
+    public List<String> addClasspath(ClassLoader classLoader) throws IOException {
+        List<String> conflicts = new ArrayList<>();
+        Enumeration<URL> fragments = classLoader.getResources(EMBEDDED_SPEC);
+        while (fragments.hasMoreElements()) {
+            URL fragment = fragments.nextElement();
+            try (InputStream inputStream = fragment.openStream()) {
+                conflicts.addAll(add(inputStream, fragment.toString()));
+            }
+        }
+
+        return conflicts;
+    }
+
+    /**
+     * Add the embedded spec of a module
+     * @param input a jar or class directory with an embedded spec, or a spec file
+     * @return any conflicts with fragments that were already added
+     */
+    public List<String> addPath(Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            Path fragment = input.resolve(EMBEDDED_SPEC);
+            if (!Files.isRegularFile(fragment)) {
+                return List.of(String.format("%s has no embedded spec", input));
+            }
+
+            try (InputStream inputStream = Files.newInputStream(fragment)) {
+                return add(inputStream, fragment.toString());
+            }
+        }
+
+        if (input.getFileName().toString().endsWith(".json")) {
+            try (InputStream inputStream = Files.newInputStream(input)) {
+                return add(inputStream, input.toString());
+            }
+        }
+
+        try (ZipFile archive = new ZipFile(input.toFile())) {
+            ZipEntry entry = archive.getEntry(EMBEDDED_SPEC);
+            if (entry == null) {
+                return List.of(String.format("%s has no embedded spec", input));
+            }
+
+            try (InputStream inputStream = archive.getInputStream(entry)) {
+                return add(inputStream, input + "!/" + EMBEDDED_SPEC);
+            }
+        }
+    }
+
+    /**
+     * Add a single spec
+     * @param fragment the spec, as written by the processor
+     * @param source where the spec came from, for reporting conflicts
+     * @return any conflicts with fragments that were already added
+     */
+    public List<String> add(InputStream fragment, String source) throws IOException {
+        List<String> conflicts = new ArrayList<>();
+        // the API name is written first, but don't rely on it
+        String apiName = null;
+        SortedMap<String, DynamicType> fragmentTypes = new TreeMap<>();
+        List<EntitySpec> fragmentEntities = new ArrayList<>();
+        List<ServiceSpec> fragmentServices = new ArrayList<>();
+
+        try (JsonParser parser = objectMapper.createParser(fragment)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException(String.format("%s is not a client spec", source));
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> apiName = parser.getText();
+                    case "types" -> {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String typeId = parser.currentName();
+                            parser.nextToken();
+                            fragmentTypes.put(typeId, parser.readValueAs(DynamicType.class));
+                        }
+                    }
+                    case "entities" -> {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            EntitySpec entity = parser.readValueAs(EntitySpec.class);
+                            checkEntity(entity, source, conflicts);
+                            fragmentEntities.add(entity);
+                        }
+                    }
+                    case "services" -> {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            fragmentServices.add(parser.readValueAs(ServiceSpec.class));
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        String fragmentName = apiName != null ? apiName : ControllerProcessor.DEFAULT_API_NAME;
+        fragments.add(new APISpec(fragmentName, null, fragmentTypes, fragmentEntities, fragmentServices));
+        return conflicts;
+    }
+
+    private void checkEntity(EntitySpec entity, String source, List<String> conflicts) {
+        EntitySpec existing = entities.putIfAbsent(entity.name(), entity);
+        if (existing == null) {
+            entitySources.put(entity.name(), source);
+        } else if (!existing.equals(entity)) {
+            conflictingEntities.add(entity.name());
+            conflicts.add(String.format("entity %s in %s differs from the one in %s, namespacing both by API name",
+                    entity.name(), source, entitySources.get(entity.name())));
+        }
+    }
+
+    /**
+     * Build the merged spec
+     * @param name the name of the merged API
+     * @return the merged spec, with services sorted and every hash up to date
+     * @throws IllegalStateException if namespacing gives an entity or service the name of a different one
+     */
+    public APISpec build(String name) {
+        Map<String, Long> nameCounts = new HashMap<>();
+        fragments.forEach(fragment -> fragment.services()
+                .forEach(service -> nameCounts.merge(service.name(), 1L, Long::sum)));
+
+        Set<String> namespacedEntities = namespacedEntities();
+        List<String> qualifiers = qualifiers();
+
+        // only types that refer to a namespaced entity get a new ID, and the registry computes it
+        DynamicTypeRegistry renamedTypes = new DynamicTypeRegistry();
+        SortedMap<String, DynamicType> mergedTypes = new TreeMap<>();
+        SortedMap<String, EntitySpec> mergedEntities = new TreeMap<>();
+        List<ServiceSpec> mergedServices = new ArrayList<>();
+        Set<String> serviceNames = new HashSet<>();
+        for (int i = 0; i < fragments.size(); i++) {
+            APISpec fragment = fragments.get(i);
+            String qualifier = qualifiers.get(i);
+            Map<String, String> entityNames = new HashMap<>();
+            for (EntitySpec entity : fragment.entities()) {
+                if (namespacedEntities.contains(entity.name())) {
+                    entityNames.put(entity.name(), qualifier + "." + entity.name());
+                }
+            }
+
+            Map<String, String> typeIds = new HashMap<>();
+            fragment.types().forEach((typeId, type) -> {
+                DynamicType renamed = rename(type, entityNames);
+                String renamedId = renamed.equals(type) ? typeId : renamedTypes.idOf(renamed);
+                if (!renamedId.equals(typeId)) {
+                    typeIds.put(typeId, renamedId);
+                }
+                // type IDs describe the whole type, so equal IDs are equal types
+                mergedTypes.putIfAbsent(renamedId, renamed);
+            });
+
+            for (EntitySpec entity : fragment.entities()) {
+                Map<String, PropertySpec> properties = new LinkedHashMap<>();
+                entity.properties().forEach((property, spec) ->
+                        properties.put(property, new PropertySpec(typeIds.getOrDefault(spec.type(), spec.type()), spec.required())));
+                String entityName = entityNames.getOrDefault(entity.name(), entity.name());
+                EntitySpec renamed = new EntitySpec(entityName, properties, entity.values());
+                // entities that are not namespaced are the same in every fragment that has them
+                EntitySpec existing = mergedEntities.putIfAbsent(entityName, renamed);
+                if (existing != null && !existing.equals(renamed)) {
+                    throw new IllegalStateException(String.format("namespaced entity %s from %s collides with another entity of that name",
+                            entityName, qualifier));
+                }
+            }
+
+            for (ServiceSpec service : fragment.services()) {
+                String serviceName = nameCounts.get(service.name()) > 1 ? qualify(qualifier, service.name()) : service.name();
+                if (!serviceNames.add(serviceName)) {
+                    throw new IllegalStateException(String.format("service %s from %s collides with another service of that name",
+                            serviceName, qualifier));
+                }
+                if (!serviceName.equals(service.name()) || !typeIds.isEmpty()) {
+                    // renaming changes the content, so the hash has to be taken again
+                    List<APIEndpoint> endpoints = service.endpoints().stream()
+                            .map(endpoint -> retype(endpoint, typeIds))
+                            .toList();
+                    service = new ServiceSpec(serviceName, null, endpoints);
+                }
+                if (service.hash() == null) {
+                    service = service.withHash(SpecHasher.hashService(objectMapper, service));
+                }
+
+                mergedServices.add(service);
+            }
+        }
+        mergedServices.sort(Comparator.comparing(ServiceSpec::name).thenComparing(ServiceSpec::hash));
+
+        List<EntitySpec> entityList = new ArrayList<>(mergedEntities.values());
+        String hash = SpecHasher.hashSpec(objectMapper, name, mergedServices.stream().map(ServiceSpec::hash).toList(),
+                mergedTypes, entityList);
+        return new APISpec(name, hash, mergedTypes, entityList, mergedServices);
+    }
+
+    /**
+     * Pick what each fragment's entities and services are namespaced with. That is the fragment's API name, unless
+     * several fragments share it, in which case they are numbered in the order they were added
+     * @return the qualifier of every fragment, in the same order as the fragments
+     */
+    private List<String> qualifiers() {
+        Map<String, Long> nameCounts = new HashMap<>();
+        fragments.forEach(fragment -> nameCounts.merge(fragment.name(), 1L, Long::sum));
+
+        // a numbered qualifier must not take the name of another fragment either
+        Set<String> taken = new HashSet<>(nameCounts.keySet());
+        Map<String, Integer> nextIndex = new HashMap<>();
+        List<String> qualifiers = new ArrayList<>(fragments.size());
+        for (APISpec fragment : fragments) {
+            String qualifier = fragment.name();
+            if (nameCounts.get(qualifier) > 1) {
+                do {
+                    qualifier = fragment.name() + "-" + nextIndex.merge(fragment.name(), 1, Integer::sum);
+                } while (!taken.add(qualifier));
+            }
+            qualifiers.add(qualifier);
+        }
+
+        return qualifiers;
+    }
+
+    /**
+     * Find every entity that has to be namespaced. Besides the conflicting ones, an entity that several fragments
+     * share differs between them once its references to namespaced entities are updated, so it is namespaced too
+     */
+    private Set<String> namespacedEntities() {
+        Map<String, Long> definitions = new HashMap<>();
+        fragments.forEach(fragment -> fragment.entities()
+                .forEach(entity -> definitions.merge(entity.name(), 1L, Long::sum)));
+
+        Set<String> namespaced = new HashSet<>(conflictingEntities);
+        boolean changed = !namespaced.isEmpty();
+        while (changed) {
+            changed = false;
+            for (APISpec fragment : fragments) {
+                for (EntitySpec entity : fragment.entities()) {
+                    if (definitions.get(entity.name()) > 1 && !namespaced.contains(entity.name())
+                            && entity.properties().values().stream()
+                                    .anyMatch(property -> refersTo(fragment.types().get(property.type()), namespaced))) {
+                        namespaced.add(entity.name());
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        return namespaced;
+    }
+
+    private static boolean refersTo(DynamicType type, Set<String> entityNames) {
+        if (type == null) {
+            return false;
+        }
+
+        if (type.reference() != null && entityNames.contains(type.reference())) {
+            return true;
+        }
+
+        return type.nested() != null && type.nested().stream().anyMatch(nested -> refersTo(nested, entityNames));
+    }
+
+    /**
+     * Point a type at the new names of namespaced entities
+     * @return the renamed type, or an equal type if nothing in it was renamed
+     */
+    private static DynamicType rename(DynamicType type, Map<String, String> entityNames) {
+        if (type == null || entityNames.isEmpty()) {
+            return type;
+        }
+
+        List<DynamicType> nested = type.nested() == null ? null : type.nested().stream()
+                .map(nestedType -> rename(nestedType, entityNames))
+                .toList();
+        String reference = type.reference() == null ? null : entityNames.getOrDefault(type.reference(), type.reference());
+        return new DynamicType(type.typeID(), reference, nested);
+    }
+
+    private static APIEndpoint retype(APIEndpoint endpoint, Map<String, String> typeIds) {
+        if (typeIds.isEmpty()) {
+            return endpoint;
+        }
+
+        return new APIEndpoint(endpoint.name(), endpoint.endpoint(), endpoint.segments(), endpoint.method(),
+                retype(endpoint.pathVariables(), typeIds), retype(endpoint.queryVariables(), typeIds),
+                retype(endpoint.requestBody(), typeIds), retype(endpoint.responseBody(), typeIds), endpoint.async(),
+                endpoint.elementStream(), endpoint.byteStream(), endpoint.consumes(), endpoint.produces(), endpoint.cache());
+    }
+
+    private static Map<String, RequestValue> retype(Map<String, RequestValue> values, Map<String, String> typeIds) {
+        Map<String, RequestValue> retyped = new LinkedHashMap<>();
+        values.forEach((name, value) -> retyped.put(name, retype(value, typeIds)));
+        return retyped;
+    }
+
+    private static RequestValue retype(RequestValue value, Map<String, String> typeIds) {
+        return new RequestValue(typeIds.getOrDefault(value.type(), value.type()), value.required());
+    }
+
+    /**
+     * Prefix a service with the API it came from, so that {@code orders} and {@code HealthController} become
+     * {@code OrdersHealthController}
+     */
+    private static String qualify(String apiName, String serviceName) {
+        StringBuilder qualified = new StringBuilder(apiName.length() + serviceName.length());
+        boolean upper = true;
+        for (char c : apiName.toCharArray()) {
+            if (!Character.isLetterOrDigit(c)) {
+                upper = true;
+            } else {
+                qualified.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+
+        return qualified.append(serviceName).toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.*;
+
+import java.util.*;
+
+/**
+ * Compares a new API spec against a previous one. Services are compared one at a time as they are visited, so the
+ * new spec never has to be held in memory as a whole.
+ */
+public class SpecDeltaBuilder {
+
+    private final String name;
+    private final Map<String, ServiceSpec> previousServices = new HashMap<>();
+    private final Map<String, EntitySpec> previousEntities = new HashMap<>();
+
+    /** names of every service in the new spec, so that the rest of the previous services can be marked removed */
+    private final Set<String> currentServices = new HashSet<>();
+    private final List<ServiceSpec> addedServices = new ArrayList<>();
+    private final List<ServiceDelta> changedServices = new ArrayList<>();
+    private final List<EntitySpec> addedEntities = new ArrayList<>();
+    private final List<String> removedEntities = new ArrayList<>();
+    private final List<EntitySpec> changedEntities = new ArrayList<>();
+
+    /**
+     * @param previous the previous spec. Use an empty spec if there is none, and everything will be added
+     */
+    public SpecDeltaBuilder(APISpec previous) {
+        this.name = previous.name();
+        previous.services().forEach(service -> previousServices.put(service.name(), service));
+        previous.entities().forEach(entity -> previousEntities.put(entity.name(), entity));
+    }
+
+    /**
+     * Compare a service of the new spec against its previous version
+     * @param service the new version of the service
+     */
+    public void compareService(ServiceSpec service) {
+        currentServices.add(service.name());
+
+        ServiceSpec previous = previousServices.get(service.name());
+        if (previous == null) {
+            addedServices.add(service);
+        } else if (!previous.equals(service)) {
+            changedServices.add(compareEndpoints(previous, service));
+        }
+    }
+
+    /**
+     * Compare every entity of the new spec against the previous ones
+     * @param entities every entity of the new spec
+     */
+    public void compareEntities(List<EntitySpec> entities) {
+        Set<String> currentEntities = new HashSet<>();
+        for (EntitySpec entity : entities) {
+            currentEntities.add(entity.name());
+
+            EntitySpec previous = previousEntities.get(entity.name());
+            if (previous == null) {
+                addedEntities.add(entity);
+            } else if (!previous.equals(entity)) {
+                changedEntities.add(entity);
+            }
+        }
+
+        previousEntities.keySet().stream()
+                .filter(entity -> !currentEntities.contains(entity))
+                .sorted()
+                .forEach(removedEntities::add);
+    }
+
+    /**
+     * @return the delta between the previous spec and everything that was compared
+     */
+    public SpecDelta build() {
+        List<String> removedServices = previousServices.keySet().stream()
+                .filter(service -> !currentServices.contains(service))
+                .sorted()
+                .toList();
+
+        return new SpecDelta(name, addedServices, removedServices, changedServices, addedEntities, removedEntities, changedEntities);
+    }
+
+    private static ServiceDelta compareEndpoints(ServiceSpec previous, ServiceSpec current) {
+        Map<String, List<APIEndpoint>> previousEndpoints = endpointsByName(previous);
+        Map<String, List<APIEndpoint>> currentEndpoints = endpointsByName(current);
+
+        List<APIEndpoint> added = new ArrayList<>();
+        List<APIEndpoint> changed = new ArrayList<>();
+        currentEndpoints.forEach((endpointName, endpoints) -> {
+            List<APIEndpoint> previousVersion = previousEndpoints.get(endpointName);
+            if (previousVersion == null) {
+                added.addAll(endpoints);
+            } else if (!previousVersion.equals(endpoints)) {
+                changed.addAll(endpoints);
+            }
+        });
+
+        List<String> removed = previousEndpoints.keySet().stream()
+                .filter(endpointName -> !currentEndpoints.containsKey(endpointName))
+                .sorted()
+                .toList();
+
+        return new ServiceDelta(current.name(), added, removed, changed);
+    }
+
+    private static Map<String, List<APIEndpoint>> endpointsByName(ServiceSpec service) {
+        Map<String, List<APIEndpoint>> endpoints = new LinkedHashMap<>();
+        for (APIEndpoint endpoint : service.endpoints()) {
+            endpoints.computeIfAbsent(endpoint.name(), key -> new ArrayList<>()).add(endpoint);
+        }
+
+        return endpoints;
+    }
+}
@@ -0,0 +1,267 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.DynamicType;
+import com.github.softwaresale.clientspec.model.HandlerRoute;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+import com.github.softwaresale.clientspec.model.VisitedController;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * On-disk cache of service specs. Each controller gets its own fragment, which is keyed by a fingerprint of the
+ * controller's signature and of every type its handlers reference. Unchanged controllers can then reuse their
+ * fragment instead of being visited again. Controllers that reported errors or warnings are not cached, so that they
+ * are visited and reported again by the next build.
+ */
+public class SpecFragmentCache {
+
+    /** Bump this whenever the shape of the generated model changes so that old fragments are invalidated */
+    private static final String FRAGMENT_VERSION = "16";
+
+    /**
+     * A single cached controller
+     * @param fingerprint the fingerprint of the controller that produced this service
+     * @param service the cached service
+     * @param routes the route of every endpoint of the service, in the same order
+     * @param types every type the service refers to, keyed by type ID
+     * @param declaringElements qualified names of the classes declaring user types, keyed by reference name
+     */
+    record SpecFragment(String fingerprint, ServiceSpec service, List<HandlerRoute> routes, Map<String, DynamicType> types,
+                        Map<String, String> declaringElements) {
+    }
+
+    private final Path cacheDirectory;
+    private final DynamicTypeRegistry typeRegistry;
+    private final Elements elementUtils;
+    private final ObjectMapper objectMapper;
+    private final ProcessorMetrics metrics;
+    private final Diagnostics diagnostics;
+
+    public SpecFragmentCache(Path cacheDirectory, DynamicTypeRegistry typeRegistry, Elements elementUtils, ObjectMapper objectMapper,
+                             ProcessorMetrics metrics, Diagnostics diagnostics) {
+        this.cacheDirectory = cacheDirectory;
+        this.typeRegistry = typeRegistry;
+        this.elementUtils = elementUtils;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Get the cached service for a controller, or visit it and cache the result if the controller changed
+     * @param controllerClass the controller to look up
+     * @param visitor used to visit the controller on a cache miss
+     * @return the visited controller
+     */
+    public VisitedController computeIfAbsent(TypeElement controllerClass, Function<TypeElement, VisitedController> visitor) {
+        String fingerprint = fingerprint(controllerClass);
+        Path fragmentPath = cacheDirectory.resolve(controllerClass.getQualifiedName() + ".json");
+
+        Optional<VisitedController> cachedController = load(fragmentPath, fingerprint);
+        if (cachedController.isPresent()) {
+            diagnostics.debug(controllerClass, () -> "reusing cached fragment for " + controllerClass.getQualifiedName());
+            metrics.increment(ProcessorMetrics.Counter.CACHE_HITS);
+            return cachedController.get();
+        }
+
+        metrics.increment(ProcessorMetrics.Counter.CACHE_MISSES);
+
+        int problemCount = diagnostics.getProblemCount();
+        VisitedController visitedController = visitor.apply(controllerClass);
+        if (diagnostics.getProblemCount() != problemCount) {
+            diagnostics.debug(controllerClass, () -> "not caching " + controllerClass.getQualifiedName() + " since it reported problems");
+            return visitedController;
+        }
+
+        ServiceSpec service = visitedController.service();
+        SortedMap<String, DynamicType> types = typeRegistry.referencedTypes(service);
+        Map<String, String> declaringElements = new TreeMap<>();
+        for (DynamicType type : types.values()) {
+            typeRegistry.declaringElement(type.reference())
+                    .ifPresent(element -> declaringElements.put(type.reference(), element.getQualifiedName().toString()));
+        }
+
+        store(fragmentPath, new SpecFragment(fingerprint, service, visitedController.routes(), types, declaringElements));
+        return visitedController;
+    }
+
+    private Optional<VisitedController> load(Path fragmentPath, String fingerprint) {
+        if (!Files.isRegularFile(fragmentPath)) {
+            return Optional.empty();
+        }
+
+        try {
+            SpecFragment fragment = objectMapper.readValue(fragmentPath.toFile(), SpecFragment.class);
+            if (fingerprint.equals(fragment.fingerprint())) {
+                // the service only refers to types by ID, so make sure they end up in the type table
+                fragment.types().values().forEach(typeRegistry::intern);
+                // entities are resolved from their declaring elements, which are not part of the fragment
+                fragment.declaringElements().forEach((reference, qualifiedName) -> {
+                    TypeElement element = elementUtils.getTypeElement(qualifiedName);
+                    if (element != null) {
+                        typeRegistry.registerDeclaringElement(reference, element);
+                    }
+                });
+                return Optional.of(new VisitedController(fragment.service(), fragment.routes()));
+            }
+        } catch (IOException e) {
+            // a corrupt fragment is just a cache miss
+            diagnostics.warning(() -> "could not read cached fragment " + fragmentPath + ": " + e.getMessage());
+        }
+
+        return Optional.empty();
+    }
+
+    private void store(Path fragmentPath, SpecFragment fragment) {
+        try {
+            Files.createDirectories(cacheDirectory);
+            // write to a temp file first so that concurrent builds never see a partial fragment
+            Path tempPath = Files.createTempFile(cacheDirectory, "fragment", ".tmp");
+            objectMapper.writeValue(tempPath.toFile(), fragment);
+            Files.move(tempPath, fragmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            diagnostics.warning(() -> "could not write cached fragment " + fragmentPath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fingerprint a controller. This covers everything the controller visitor reads: the annotations on the
+     * controller, its handlers, and their parameters, as well as the fully qualified types of every parameter and
+     * return value. The members of every type reachable from the handlers are included too, so changing an entity
+     * invalidates the fragments of every controller that uses it.
+     * @param controllerClass the controller to fingerprint
+     * @return a hex encoded digest of the controller
+     */
+    static String fingerprint(TypeElement controllerClass) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, FRAGMENT_VERSION);
+        update(digest, controllerClass.getQualifiedName());
+        update(digest, controllerClass.getAnnotationMirrors());
+
+        for (Element enclosed : controllerClass.getEnclosedElements()) {
+            if (enclosed.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+
+            ExecutableElement method = (ExecutableElement) enclosed;
+            update(digest, method.getSimpleName());
+            update(digest, method.getAnnotationMirrors());
+            update(digest, method.getReturnType());
+            for (VariableElement param : method.getParameters()) {
+                update(digest, param.getSimpleName());
+                update(digest, param.getAnnotationMirrors());
+                update(digest, param.asType());
+            }
+        }
+
+        updateReferencedTypes(digest, controllerClass);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash the declaration of every type reachable from the handlers of a controller, the same way entities are
+     * reached. Uses a worklist, so cyclic types are fine. JDK types can't change between builds, so they are skipped
+     */
+    private static void updateReferencedTypes(MessageDigest digest, TypeElement controllerClass) {
+        Deque<TypeMirror> worklist = new ArrayDeque<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(controllerClass.getEnclosedElements())) {
+            worklist.add(method.getReturnType());
+            method.getParameters().forEach(param -> worklist.add(param.asType()));
+        }
+
+        Set<String> visited = new HashSet<>();
+        while (!worklist.isEmpty()) {
+            TypeMirror type = worklist.pop();
+            switch (type.getKind()) {
+                case ARRAY -> worklist.push(((ArrayType) type).getComponentType());
+                case WILDCARD -> {
+                    WildcardType wildcard = (WildcardType) type;
+                    if (wildcard.getExtendsBound() != null) {
+                        worklist.push(wildcard.getExtendsBound());
+                    }
+                    if (wildcard.getSuperBound() != null) {
+                        worklist.push(wildcard.getSuperBound());
+                    }
+                }
+                case TYPEVAR -> {
+                    if (visited.add("typevar:" + type)) {
+                        worklist.push(((TypeVariable) type).getUpperBound());
+                    }
+                }
+                case INTERSECTION -> worklist.addAll(((IntersectionType) type).getBounds());
+                case DECLARED -> {
+                    DeclaredType declaredType = (DeclaredType) type;
+                    worklist.addAll(declaredType.getTypeArguments());
+
+                    TypeElement element = (TypeElement) declaredType.asElement();
+                    String name = element.getQualifiedName().toString();
+                    if (isJdkType(name) || !visited.add(name)) {
+                        continue;
+                    }
+
+                    update(digest, name);
+                    update(digest, element.getKind());
+                    update(digest, element.getModifiers());
+                    update(digest, element.getAnnotationMirrors());
+                    update(digest, element.getSuperclass());
+                    update(digest, element.getInterfaces());
+                    worklist.push(element.getSuperclass());
+
+                    // accessors decide which fields are properties, so every member counts. Only properties lead to
+                    // more entities though
+                    for (Element member : element.getEnclosedElements()) {
+                        update(digest, member.getKind());
+                        update(digest, member.getSimpleName());
+                        update(digest, member.getModifiers());
+                        update(digest, member.getAnnotationMirrors());
+                        update(digest, member.asType());
+                        boolean property = member.getKind() == ElementKind.RECORD_COMPONENT
+                                || (member.getKind() == ElementKind.FIELD && !member.getModifiers().contains(Modifier.STATIC));
+                        if (property) {
+                            worklist.push(member.asType());
+                        }
+                    }
+                }
+                default -> { }
+            }
+        }
+    }
+
+    private static boolean isJdkType(String qualifiedName) {
+        return qualifiedName.startsWith("java.") || qualifiedName.startsWith("javax.") || qualifiedName.startsWith("jdk.");
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        // separator so that adjacent values can't run together
+        digest.update((byte) 0);
+    }
+}
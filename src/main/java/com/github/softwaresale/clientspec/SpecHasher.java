@@ -0,0 +1,80 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.DynamicType;
+import com.github.softwaresale.clientspec.model.EntitySpec;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Computes content hashes for the spec. Hashes are taken over the canonical JSON of the spec, so two builds that
+ * produce the same spec always produce the same hash.
+ */
+public class SpecHasher {
+
+    /**
+     * Hash a single service
+     * @param objectMapper used to serialize the service
+     * @param service the service to hash. Any hash it already has is ignored
+     * @return a hex encoded digest of the service
+     */
+    public static String hashService(ObjectMapper objectMapper, ServiceSpec service) {
+        MessageDigest digest = newDigest();
+        digest.update(serialize(objectMapper, service.withHash(null)));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash a whole spec. Services are combined by their hashes, which are sorted first, so the hash does not depend
+     * on the order services were visited in
+     * @param objectMapper used to serialize types and entities
+     * @param name the name of the API
+     * @param serviceHashes the hash of every service
+     * @param types the full type table
+     * @param entities every entity
+     * @return a hex encoded digest of the spec
+     */
+    public static String hashSpec(ObjectMapper objectMapper, String name, Collection<String> serviceHashes,
+                                  SortedMap<String, DynamicType> types, List<EntitySpec> entities) {
+        MessageDigest digest = newDigest();
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+
+        List<String> sortedServiceHashes = new ArrayList<>(serviceHashes);
+        sortedServiceHashes.sort(null);
+        for (String serviceHash : sortedServiceHashes) {
+            digest.update(serviceHash.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        digest.update(serialize(objectMapper, types));
+        digest.update((byte) 0);
+        digest.update(serialize(objectMapper, entities));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static byte[] serialize(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.DynamicType;
+import com.github.softwaresale.clientspec.model.EntitySpec;
+import com.github.softwaresale.clientspec.model.ServiceSpec;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Writes an API spec incrementally. Services are written as soon as they are visited so that they do not need to
+ * be kept around. Types and entities are only complete once every service has been seen, so they are written last.
+ * The output has the same shape as a serialized {@link com.github.softwaresale.clientspec.model.APISpec}.
+ */
+public class StreamingSpecWriter implements Closeable {
+
+    private final JsonGenerator generator;
+
+    public StreamingSpecWriter(Writer output, ObjectMapper objectMapper, String apiName) throws IOException {
+        this.generator = objectMapper.createGenerator(new BufferedWriter(output));
+        this.generator.writeStartObject();
+        this.generator.writeStringField("name", apiName);
+        this.generator.writeArrayFieldStart("services");
+    }
+
+    /**
+     * Write a single service. The service is not referenced after this returns
+     * @param service the service to write
+     */
+    public void writeService(ServiceSpec service) throws IOException {
+        generator.writeObject(service);
+    }
+
+    /**
+     * Finish the document. No more services can be written after this
+     * @param types the full type table
+     * @param entities every resolved entity
+     * @param hash content hash of the whole spec. It can only be known once everything has been written, so it
+     *             comes last
+     */
+    public void finish(SortedMap<String, DynamicType> types, List<EntitySpec> entities, String hash) throws IOException {
+        generator.writeEndArray();
+        generator.writeObjectField("types", types);
+        generator.writeObjectField("entities", entities);
+        generator.writeStringField("hash", hash);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
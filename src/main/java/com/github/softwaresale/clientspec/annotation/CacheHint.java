@@ -0,0 +1,29 @@
+package com.github.softwaresale.clientspec.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tells generated clients how they may cache and retry a handler. Overrides what is derived from the handler's HTTP
+ * method and its caching annotations. On a controller, applies to every handler that doesn't have its own hint.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface CacheHint {
+
+    /** if clients may cache responses. Only handlers with a safe HTTP method, like GET, can be cacheable */
+    boolean cacheable() default true;
+
+    /** how long a cached response is fresh for, in seconds. Negative if the server decides */
+    long maxAge() default -1;
+
+    /** if clients should revalidate cached responses with conditional requests */
+    boolean conditional() default false;
+
+    /** if the handler can be retried even though its HTTP method is not idempotent */
+    boolean idempotent() default false;
+}
@@ -0,0 +1,77 @@
+package com.github.softwaresale.clientspec.binary;
+
+/**
+ * Layout of the binary API spec. Everything is a big-endian int unless stated otherwise.
+ * <p>
+ * The file starts with a header:
+ * <pre>
+ *     magic, version, api name string, spec hash string
+ *     (offset, count) for each section, in the order of the section constants below
+ * </pre>
+ * Every section except string data is an array of fixed-width records, so the n-th record of a section is at
+ * {@code offset + n * recordSize}. Strings and types are referred to by their index in their table, and -1 means
+ * null. Services are sorted by name so that they can be binary searched.
+ */
+final class BinarySpecFormat {
+
+    static final int MAGIC = 0x43535043; // "CSPC"
+    static final int VERSION = 7;
+
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_API_NAME = 8;
+    static final int HEADER_HASH = 12;
+    static final int HEADER_SECTIONS = 16;
+
+    /** string index: offset of each string in string data */
+    static final int SECTION_STRING_INDEX = 0;
+    /** string data: each string is its UTF-8 byte length followed by the bytes. Count is the size in bytes */
+    static final int SECTION_STRING_DATA = 1;
+    /** types: id string, type id ordinal, reference string, first nested type ref, nested count */
+    static final int SECTION_TYPES = 2;
+    /** type refs: index of a nested type */
+    static final int SECTION_TYPE_REFS = 3;
+    /** services: name string, hash string, first endpoint, endpoint count */
+    static final int SECTION_SERVICES = 4;
+    /** endpoints: name, endpoint, method, first path variable, path variable count, first query variable,
+     * query variable count, request body type, response body type, flags, first template segment, segment count,
+     * first media type, consumes count, produces count, cache max age in seconds */
+    static final int SECTION_ENDPOINTS = 5;
+    /** named values, used for path variables, query variables and properties: name string, type, required */
+    static final int SECTION_VALUES = 6;
+    /** entities: name string, first property value, property count, first enum constant, enum constant count */
+    static final int SECTION_ENTITIES = 7;
+    /** template segments: kind ordinal, value string, pattern string */
+    static final int SECTION_SEGMENTS = 8;
+    /** media types: media type string. An endpoint's consumed media types are followed by the ones it produces */
+    static final int SECTION_MEDIA_TYPES = 9;
+    /** enum constants: constant name string */
+    static final int SECTION_ENUM_CONSTANTS = 10;
+    static final int SECTION_COUNT = 11;
+
+    static final int HEADER_SIZE = HEADER_SECTIONS + SECTION_COUNT * 8;
+
+    static final int STRING_INDEX_SIZE = 4;
+    static final int TYPE_SIZE = 20;
+    static final int TYPE_REF_SIZE = 4;
+    static final int SERVICE_SIZE = 16;
+    static final int ENDPOINT_SIZE = 64;
+    static final int VALUE_SIZE = 12;
+    static final int ENTITY_SIZE = 20;
+    static final int SEGMENT_SIZE = 12;
+    static final int MEDIA_TYPE_SIZE = 4;
+    static final int ENUM_CONSTANT_SIZE = 4;
+
+    static final int FLAG_REQUEST_BODY_REQUIRED = 1;
+    static final int FLAG_RESPONSE_BODY_REQUIRED = 1 << 1;
+    static final int FLAG_ASYNC = 1 << 2;
+    static final int FLAG_ELEMENT_STREAM = 1 << 3;
+    static final int FLAG_BYTE_STREAM = 1 << 4;
+    static final int FLAG_SAFE = 1 << 5;
+    static final int FLAG_IDEMPOTENT = 1 << 6;
+    static final int FLAG_CACHEABLE = 1 << 7;
+    static final int FLAG_CONDITIONAL = 1 << 8;
+
+    private BinarySpecFormat() {
+    }
+}
@@ -0,0 +1,319 @@
+package com.github.softwaresale.clientspec.binary;
+
+import com.github.softwaresale.clientspec.model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static com.github.softwaresale.clientspec.binary.BinarySpecFormat.*;
+
+/**
+ * Random-access reader for binary API specs. Nothing is decoded up front: services, endpoints, and types are only
+ * decoded when they are asked for. The reader only uses absolute reads, so it is safe to share between threads.
+ */
+public class BinarySpecReader {
+
+    private static final DynamicTypeID[] typeIDs = DynamicTypeID.values();
+    private static final TemplateSegment.Kind[] segmentKinds = TemplateSegment.Kind.values();
+
+    private final ByteBuffer buffer;
+    private final int[] offsets = new int[SECTION_COUNT];
+    private final int[] counts = new int[SECTION_COUNT];
+
+    /**
+     * Memory-map a binary spec file
+     * @param path the file to open
+     * @return a reader over the mapped file
+     */
+    public static BinarySpecReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new BinarySpecReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public BinarySpecReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if (buffer.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IllegalArgumentException("not a binary client spec");
+        }
+
+        int version = buffer.getInt(HEADER_VERSION);
+        if (version != VERSION) {
+            throw new IllegalArgumentException(String.format("unsupported binary client spec version %d", version));
+        }
+
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            offsets[section] = buffer.getInt(HEADER_SECTIONS + section * 8);
+            counts[section] = buffer.getInt(HEADER_SECTIONS + section * 8 + 4);
+        }
+    }
+
+    /**
+     * @return the name of the API
+     */
+    public String name() {
+        return string(buffer.getInt(HEADER_API_NAME));
+    }
+
+    /**
+     * @return the content hash of the API, or null if the spec was not hashed
+     */
+    public String hash() {
+        return string(buffer.getInt(HEADER_HASH));
+    }
+
+    /**
+     * @return the number of services in this API
+     */
+    public int serviceCount() {
+        return counts[SECTION_SERVICES];
+    }
+
+    /**
+     * @param serviceIndex index of a service. Services are sorted by name
+     * @return the name of the service
+     */
+    public String serviceName(int serviceIndex) {
+        return string(buffer.getInt(record(SECTION_SERVICES, SERVICE_SIZE, serviceIndex)));
+    }
+
+    /**
+     * Find a service by name
+     * @param name the name of the service
+     * @return the index of the service, if it exists
+     */
+    public OptionalInt findService(String name) {
+        int low = 0;
+        int high = serviceCount() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = serviceName(middle).compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return OptionalInt.of(middle);
+            }
+        }
+
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Decode a service by name
+     * @param name the name of the service
+     * @return the service, if it exists
+     */
+    public Optional<ServiceSpec> service(String name) {
+        OptionalInt serviceIndex = findService(name);
+        if (serviceIndex.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(service(serviceIndex.getAsInt()));
+    }
+
+    /**
+     * Decode a service and all of its endpoints
+     * @param serviceIndex the index of the service
+     * @return the decoded service
+     */
+    public ServiceSpec service(int serviceIndex) {
+        int position = record(SECTION_SERVICES, SERVICE_SIZE, serviceIndex);
+        int endpointCount = buffer.getInt(position + 12);
+
+        List<APIEndpoint> endpoints = new ArrayList<>(endpointCount);
+        for (int i = 0; i < endpointCount; i++) {
+            endpoints.add(endpoint(serviceIndex, i));
+        }
+
+        return new ServiceSpec(string(buffer.getInt(position)), string(buffer.getInt(position + 4)), endpoints);
+    }
+
+    /**
+     * @param serviceIndex the index of a service
+     * @return the number of endpoints the service has
+     */
+    public int endpointCount(int serviceIndex) {
+        return buffer.getInt(record(SECTION_SERVICES, SERVICE_SIZE, serviceIndex) + 12);
+    }
+
+    /**
+     * Decode a single endpoint of a service
+     * @param serviceIndex the index of the service
+     * @param endpointIndex the index of the endpoint within its service
+     * @return the decoded endpoint
+     */
+    public APIEndpoint endpoint(int serviceIndex, int endpointIndex) {
+        int servicePosition = record(SECTION_SERVICES, SERVICE_SIZE, serviceIndex);
+        if (endpointIndex < 0 || endpointIndex >= buffer.getInt(servicePosition + 12)) {
+            throw new IndexOutOfBoundsException(endpointIndex);
+        }
+
+        int position = record(SECTION_ENDPOINTS, ENDPOINT_SIZE, buffer.getInt(servicePosition + 8) + endpointIndex);
+        int flags = buffer.getInt(position + 36);
+        int firstMediaType = buffer.getInt(position + 48);
+        int consumesCount = buffer.getInt(position + 52);
+
+        return new APIEndpoint(string(buffer.getInt(position)),
+                string(buffer.getInt(position + 4)),
+                segments(buffer.getInt(position + 40), buffer.getInt(position + 44)),
+                string(buffer.getInt(position + 8)),
+                values(buffer.getInt(position + 12), buffer.getInt(position + 16)),
+                values(buffer.getInt(position + 20), buffer.getInt(position + 24)),
+                new RequestValue(typeId(buffer.getInt(position + 28)), (flags & FLAG_REQUEST_BODY_REQUIRED) != 0),
+                new RequestValue(typeId(buffer.getInt(position + 32)), (flags & FLAG_RESPONSE_BODY_REQUIRED) != 0),
+                (flags & FLAG_ASYNC) != 0,
+                (flags & FLAG_ELEMENT_STREAM) != 0,
+                (flags & FLAG_BYTE_STREAM) != 0,
+                mediaTypes(firstMediaType, consumesCount),
+                mediaTypes(firstMediaType + consumesCount, buffer.getInt(position + 56)),
+                new CacheHints((flags & FLAG_SAFE) != 0,
+                        (flags & FLAG_IDEMPOTENT) != 0,
+                        (flags & FLAG_CACHEABLE) != 0,
+                        buffer.getInt(position + 60),
+                        (flags & FLAG_CONDITIONAL) != 0));
+    }
+
+    /**
+     * Decode a type and everything nested in it
+     * @param typeIndex the index of the type
+     * @return the decoded type
+     */
+    public DynamicType type(int typeIndex) {
+        int position = record(SECTION_TYPES, TYPE_SIZE, typeIndex);
+        DynamicTypeID typeID = typeIDs[buffer.getInt(position + 4)];
+        String reference = string(buffer.getInt(position + 8));
+        int firstNested = buffer.getInt(position + 12);
+        int nestedCount = buffer.getInt(position + 16);
+
+        List<DynamicType> nested = null;
+        if (reference != null) {
+            // mapped types always have a nested list, primitives never do
+            nested = new ArrayList<>(nestedCount);
+            for (int i = 0; i < nestedCount; i++) {
+                int nestedIndex = buffer.getInt(offsets[SECTION_TYPE_REFS] + (firstNested + i) * TYPE_REF_SIZE);
+                nested.add(nestedIndex < 0 ? null : type(nestedIndex));
+            }
+        }
+
+        return new DynamicType(typeID, reference, nested);
+    }
+
+    /**
+     * @return every type in the API, keyed by type ID
+     */
+    public SortedMap<String, DynamicType> types() {
+        SortedMap<String, DynamicType> types = new TreeMap<>();
+        for (int i = 0; i < counts[SECTION_TYPES]; i++) {
+            types.put(typeId(i), type(i));
+        }
+
+        return types;
+    }
+
+    /**
+     * @return every entity in the API
+     */
+    public List<EntitySpec> entities() {
+        List<EntitySpec> entities = new ArrayList<>(counts[SECTION_ENTITIES]);
+        for (int i = 0; i < counts[SECTION_ENTITIES]; i++) {
+            int position = record(SECTION_ENTITIES, ENTITY_SIZE, i);
+            Map<String, PropertySpec> properties = new LinkedHashMap<>();
+            values(buffer.getInt(position + 4), buffer.getInt(position + 8))
+                    .forEach((name, value) -> properties.put(name, new PropertySpec(value.type(), value.required())));
+            entities.add(new EntitySpec(string(buffer.getInt(position)), properties,
+                    enumConstants(buffer.getInt(position + 12), buffer.getInt(position + 16))));
+        }
+
+        return entities;
+    }
+
+    /**
+     * Decode the whole spec
+     * @return the decoded spec
+     */
+    public APISpec readAll() {
+        List<ServiceSpec> services = new ArrayList<>(serviceCount());
+        for (int i = 0; i < serviceCount(); i++) {
+            services.add(service(i));
+        }
+
+        return new APISpec(name(), hash(), types(), entities(), services);
+    }
+
+    private Map<String, RequestValue> values(int firstValue, int valueCount) {
+        Map<String, RequestValue> values = new LinkedHashMap<>();
+        for (int i = 0; i < valueCount; i++) {
+            int position = record(SECTION_VALUES, VALUE_SIZE, firstValue + i);
+            values.put(string(buffer.getInt(position)),
+                    new RequestValue(typeId(buffer.getInt(position + 4)), buffer.getInt(position + 8) != 0));
+        }
+
+        return values;
+    }
+
+    private List<TemplateSegment> segments(int firstSegment, int segmentCount) {
+        List<TemplateSegment> segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            int position = record(SECTION_SEGMENTS, SEGMENT_SIZE, firstSegment + i);
+            segments.add(new TemplateSegment(segmentKinds[buffer.getInt(position)],
+                    string(buffer.getInt(position + 4)), string(buffer.getInt(position + 8))));
+        }
+
+        return segments;
+    }
+
+    private List<String> mediaTypes(int firstMediaType, int mediaTypeCount) {
+        List<String> mediaTypes = new ArrayList<>(mediaTypeCount);
+        for (int i = 0; i < mediaTypeCount; i++) {
+            mediaTypes.add(string(buffer.getInt(record(SECTION_MEDIA_TYPES, MEDIA_TYPE_SIZE, firstMediaType + i))));
+        }
+
+        return mediaTypes;
+    }
+
+    private List<String> enumConstants(int firstConstant, int constantCount) {
+        List<String> constants = new ArrayList<>(constantCount);
+        for (int i = 0; i < constantCount; i++) {
+            constants.add(string(buffer.getInt(record(SECTION_ENUM_CONSTANTS, ENUM_CONSTANT_SIZE, firstConstant + i))));
+        }
+
+        return constants;
+    }
+
+    private String typeId(int typeIndex) {
+        if (typeIndex < 0) {
+            return null;
+        }
+
+        return string(buffer.getInt(record(SECTION_TYPES, TYPE_SIZE, typeIndex)));
+    }
+
+    private String string(int stringIndex) {
+        if (stringIndex < 0) {
+            return null;
+        }
+
+        int position = buffer.getInt(record(SECTION_STRING_INDEX, STRING_INDEX_SIZE, stringIndex));
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int record(int section, int recordSize, int index) {
+        if (index < 0 || index >= counts[section]) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return offsets[section] + index * recordSize;
+    }
+}
@@ -0,0 +1,271 @@
+package com.github.softwaresale.clientspec.binary;
+
+import com.github.softwaresale.clientspec.model.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.github.softwaresale.clientspec.binary.BinarySpecFormat.*;
+
+/**
+ * Encodes an API spec into the compact binary format described by {@link BinarySpecFormat}
+ */
+public class BinarySpecWriter {
+
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private final Map<String, Integer> typeIndices = new HashMap<>();
+    private final Map<DynamicType, Integer> typeInstanceIndices = new HashMap<>();
+
+    private final IntList types = new IntList();
+    private final IntList typeRefs = new IntList();
+    private final IntList services = new IntList();
+    private final IntList endpoints = new IntList();
+    private final IntList values = new IntList();
+    private final IntList entities = new IntList();
+    private final IntList segments = new IntList();
+    private final IntList mediaTypes = new IntList();
+    private final IntList enumConstants = new IntList();
+
+    /**
+     * Encode a spec. A writer can only be used once
+     * @param apiSpec the spec to encode
+     * @param output where to write to. Not closed
+     */
+    public void write(APISpec apiSpec, OutputStream output) throws IOException {
+        int apiName = string(apiSpec.name());
+        int apiHash = string(apiSpec.hash());
+
+        // every type needs an index before nested types can refer to each other
+        int typeIndex = 0;
+        for (Map.Entry<String, DynamicType> entry : apiSpec.types().entrySet()) {
+            typeIndices.put(entry.getKey(), typeIndex);
+            typeInstanceIndices.putIfAbsent(entry.getValue(), typeIndex);
+            typeIndex++;
+        }
+
+        for (Map.Entry<String, DynamicType> entry : apiSpec.types().entrySet()) {
+            writeType(entry.getKey(), entry.getValue());
+        }
+
+        List<ServiceSpec> sortedServices = new ArrayList<>(apiSpec.services());
+        sortedServices.sort(Comparator.comparing(ServiceSpec::name));
+        for (ServiceSpec service : sortedServices) {
+            writeService(service);
+        }
+
+        for (EntitySpec entity : apiSpec.entities()) {
+            int firstProperty = values.size() / (VALUE_SIZE / 4);
+            entity.properties().forEach((name, property) -> writeValue(name, property.type(), property.required()));
+            int firstConstant = enumConstants.size();
+            entity.values().forEach(constant -> enumConstants.add(string(constant)));
+            entities.add(string(entity.name()), firstProperty, entity.properties().size(), firstConstant, entity.values().size());
+        }
+
+        writeFile(apiName, apiHash, output);
+    }
+
+    private void writeType(String id, DynamicType type) {
+        int firstNested = typeRefs.size();
+        int nestedCount = 0;
+        if (type.nested() != null) {
+            for (DynamicType nested : type.nested()) {
+                typeRefs.add(nested == null ? -1 : typeInstanceIndices.getOrDefault(nested, -1));
+                nestedCount++;
+            }
+        }
+
+        types.add(string(id), type.typeID().ordinal(), string(type.reference()), firstNested, nestedCount);
+    }
+
+    private void writeService(ServiceSpec service) {
+        int firstEndpoint = endpoints.size() / (ENDPOINT_SIZE / 4);
+        for (APIEndpoint endpoint : service.endpoints()) {
+            int firstPathVariable = values.size() / (VALUE_SIZE / 4);
+            endpoint.pathVariables().forEach((name, value) -> writeValue(name, value.type(), value.required()));
+            int firstQueryVariable = values.size() / (VALUE_SIZE / 4);
+            endpoint.queryVariables().forEach((name, value) -> writeValue(name, value.type(), value.required()));
+            int firstSegment = segments.size() / (SEGMENT_SIZE / 4);
+            for (TemplateSegment segment : endpoint.segments()) {
+                segments.add(segment.kind().ordinal(), string(segment.value()), string(segment.pattern()));
+            }
+
+            int firstMediaType = mediaTypes.size();
+            endpoint.consumes().forEach(mediaType -> mediaTypes.add(string(mediaType)));
+            endpoint.produces().forEach(mediaType -> mediaTypes.add(string(mediaType)));
+
+            int flags = 0;
+            if (endpoint.requestBody().required()) {
+                flags |= FLAG_REQUEST_BODY_REQUIRED;
+            }
+            if (endpoint.responseBody().required()) {
+                flags |= FLAG_RESPONSE_BODY_REQUIRED;
+            }
+            if (endpoint.async()) {
+                flags |= FLAG_ASYNC;
+            }
+            if (endpoint.elementStream()) {
+                flags |= FLAG_ELEMENT_STREAM;
+            }
+            if (endpoint.byteStream()) {
+                flags |= FLAG_BYTE_STREAM;
+            }
+            if (endpoint.cache().safe()) {
+                flags |= FLAG_SAFE;
+            }
+            if (endpoint.cache().idempotent()) {
+                flags |= FLAG_IDEMPOTENT;
+            }
+            if (endpoint.cache().cacheable()) {
+                flags |= FLAG_CACHEABLE;
+            }
+            if (endpoint.cache().conditional()) {
+                flags |= FLAG_CONDITIONAL;
+            }
+
+            endpoints.add(string(endpoint.name()),
+                    string(endpoint.endpoint()),
+                    string(endpoint.method()),
+                    firstPathVariable,
+                    endpoint.pathVariables().size(),
+                    firstQueryVariable,
+                    endpoint.queryVariables().size(),
+                    type(endpoint.requestBody().type()),
+                    type(endpoint.responseBody().type()),
+                    flags,
+                    firstSegment,
+                    endpoint.segments().size(),
+                    firstMediaType,
+                    endpoint.consumes().size(),
+                    endpoint.produces().size(),
+                    (int) Math.min(endpoint.cache().maxAge(), Integer.MAX_VALUE));
+        }
+
+        services.add(string(service.name()), string(service.hash()), firstEndpoint, service.endpoints().size());
+    }
+
+    private void writeValue(String name, String typeId, boolean required) {
+        values.add(string(name), type(typeId), required ? 1 : 0);
+    }
+
+    private int string(String value) {
+        if (value == null) {
+            return -1;
+        }
+
+        return stringIndices.computeIfAbsent(value, key -> {
+            strings.add(key.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+    private int type(String typeId) {
+        if (typeId == null) {
+            return -1;
+        }
+
+        return typeIndices.getOrDefault(typeId, -1);
+    }
+
+    private void writeFile(int apiName, int apiHash, OutputStream output) throws IOException {
+        // lay out every section back to back after the header
+        int[] offsets = new int[SECTION_COUNT];
+        int[] counts = new int[SECTION_COUNT];
+
+        int stringDataSize = 0;
+        for (byte[] string : strings) {
+            stringDataSize += 4 + string.length;
+        }
+
+        counts[SECTION_STRING_INDEX] = strings.size();
+        counts[SECTION_STRING_DATA] = stringDataSize;
+        counts[SECTION_TYPES] = types.size() / (TYPE_SIZE / 4);
+        counts[SECTION_TYPE_REFS] = typeRefs.size();
+        counts[SECTION_SERVICES] = services.size() / (SERVICE_SIZE / 4);
+        counts[SECTION_ENDPOINTS] = endpoints.size() / (ENDPOINT_SIZE / 4);
+        counts[SECTION_VALUES] = values.size() / (VALUE_SIZE / 4);
+        counts[SECTION_ENTITIES] = entities.size() / (ENTITY_SIZE / 4);
+        counts[SECTION_SEGMENTS] = segments.size() / (SEGMENT_SIZE / 4);
+        counts[SECTION_MEDIA_TYPES] = mediaTypes.size();
+        counts[SECTION_ENUM_CONSTANTS] = enumConstants.size();
+
+        int[] sizes = new int[SECTION_COUNT];
+        sizes[SECTION_STRING_INDEX] = strings.size() * STRING_INDEX_SIZE;
+        sizes[SECTION_STRING_DATA] = stringDataSize;
+        sizes[SECTION_TYPES] = types.size() * 4;
+        sizes[SECTION_TYPE_REFS] = typeRefs.size() * 4;
+        sizes[SECTION_SERVICES] = services.size() * 4;
+        sizes[SECTION_ENDPOINTS] = endpoints.size() * 4;
+        sizes[SECTION_VALUES] = values.size() * 4;
+        sizes[SECTION_ENTITIES] = entities.size() * 4;
+        sizes[SECTION_SEGMENTS] = segments.size() * 4;
+        sizes[SECTION_MEDIA_TYPES] = mediaTypes.size() * MEDIA_TYPE_SIZE;
+        sizes[SECTION_ENUM_CONSTANTS] = enumConstants.size() * ENUM_CONSTANT_SIZE;
+
+        int offset = HEADER_SIZE;
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            offsets[section] = offset;
+            offset += sizes[section];
+        }
+
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(apiName);
+        data.writeInt(apiHash);
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            data.writeInt(offsets[section]);
+            data.writeInt(counts[section]);
+        }
+
+        int stringOffset = offsets[SECTION_STRING_DATA];
+        for (byte[] string : strings) {
+            data.writeInt(stringOffset);
+            stringOffset += 4 + string.length;
+        }
+        for (byte[] string : strings) {
+            data.writeInt(string.length);
+            data.write(string);
+        }
+
+        types.writeTo(data);
+        typeRefs.writeTo(data);
+        services.writeTo(data);
+        endpoints.writeTo(data);
+        values.writeTo(data);
+        entities.writeTo(data);
+        segments.writeTo(data);
+        mediaTypes.writeTo(data);
+        enumConstants.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Growable array of ints, so records don't need to be boxed
+     */
+    private static final class IntList {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int... record) {
+            if (size + record.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + record.length));
+            }
+            System.arraycopy(record, 0, values, size, record.length);
+            size += record.length;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeTo(DataOutputStream data) throws IOException {
+            for (int i = 0; i < size; i++) {
+                data.writeInt(values[i]);
+            }
+        }
+    }
+}
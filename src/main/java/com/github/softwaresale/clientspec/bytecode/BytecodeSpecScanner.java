@@ -0,0 +1,434 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.CacheHintResolver;
+import com.github.softwaresale.clientspec.ControllerVisitor;
+import com.github.softwaresale.clientspec.Diagnostics;
+import com.github.softwaresale.clientspec.DynamicTypeRegistry;
+import com.github.softwaresale.clientspec.EndpointTemplateParser;
+import com.github.softwaresale.clientspec.EntityResolver;
+import com.github.softwaresale.clientspec.HttpMethodConverter;
+import com.github.softwaresale.clientspec.MappingAnnotations;
+import com.github.softwaresale.clientspec.SpecHasher;
+import com.github.softwaresale.clientspec.model.*;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Builds an API spec straight from compiled classes, without running javac. Controllers are found by their
+ * runtime-visible annotations and types are read from generic signatures, so the spec matches what
+ * {@link com.github.softwaresale.clientspec.ControllerProcessor} produces for the same sources.
+ * <p>
+ * Inputs can be jars, directories of class files, or single class files. Each input is read on its own thread, and
+ * only the resulting models are combined, so scanning scales with the number of cores.
+ */
+public class BytecodeSpecScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final int parallelism;
+    private final ObjectMapper objectMapper;
+    private final Diagnostics diagnostics;
+
+    public BytecodeSpecScanner() {
+        this(Runtime.getRuntime().availableProcessors(), new ObjectMapper());
+    }
+
+    public BytecodeSpecScanner(int parallelism, ObjectMapper objectMapper) {
+        this(parallelism, objectMapper, new Diagnostics());
+    }
+
+    /**
+     * @param parallelism how many inputs to read at once
+     * @param objectMapper used to hash the spec
+     * @param diagnostics where to report what was scanned
+     */
+    public BytecodeSpecScanner(int parallelism, ObjectMapper objectMapper, Diagnostics diagnostics) {
+        this.parallelism = parallelism;
+        this.objectMapper = objectMapper;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Scan compiled classes for controllers
+     * @param name the name of the API
+     * @param inputs jars, directories, and class files to scan. If a class is in more than one input, the first one wins
+     * @return the spec for every controller found
+     */
+    public APISpec scan(String name, List<Path> inputs) throws IOException {
+        Map<String, ScannedClass> classes = readClasses(inputs);
+
+        DynamicTypeRegistry typeRegistry = new DynamicTypeRegistry();
+        BytecodeTypeMapper typeMapper = new BytecodeTypeMapper(typeRegistry, classes);
+
+        List<ServiceSpec> services = new ArrayList<>();
+        classes.values().stream()
+                .filter(ScannedClass::isController)
+                .sorted(Comparator.comparing(ScannedClass::name))
+                .forEach(controller -> {
+                    ServiceSpec service = visitController(controller, typeMapper);
+                    services.add(service.withHash(SpecHasher.hashService(objectMapper, service)));
+                });
+        services.sort(Comparator.comparing(ServiceSpec::name).thenComparing(ServiceSpec::hash));
+
+        List<EntitySpec> entities = resolveEntities(services, classes, typeRegistry, typeMapper);
+        String hash = SpecHasher.hashSpec(objectMapper, name, services.stream().map(ServiceSpec::hash).toList(),
+                typeRegistry.types(), entities);
+
+        APISpec apiSpec = new APISpec(name, hash, new TreeMap<>(typeRegistry.types()), new ArrayList<>(entities), services);
+        diagnostics.info(() -> String.format("found %d services in %d classes", services.size(), classes.size()));
+        return apiSpec;
+    }
+
+    private Map<String, ScannedClass> readClasses(List<Path> inputs) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, inputs.size())));
+        try {
+            List<Future<List<ScannedClass>>> results = new ArrayList<>(inputs.size());
+            for (Path input : inputs) {
+                results.add(executor.submit(() -> readInput(input)));
+            }
+
+            // combine in input order, so that the result doesn't depend on which input finished first
+            Map<String, ScannedClass> classes = new HashMap<>();
+            for (Future<List<ScannedClass>> result : results) {
+                for (ScannedClass scannedClass : result.get()) {
+                    classes.putIfAbsent(scannedClass.name(), scannedClass);
+                }
+            }
+
+            return classes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while scanning classes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<ScannedClass> readInput(Path input) throws IOException {
+        diagnostics.debug(() -> "scanning " + input);
+
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> files = Files.walk(input)) {
+                return files.filter(file -> isClassFile(file.toString()))
+                        .map(file -> {
+                            try {
+                                return ClassFileReader.read(Files.readAllBytes(file));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        })
+                        .toList();
+            }
+        }
+
+        if (input.toString().endsWith(CLASS_SUFFIX)) {
+            return List.of(ClassFileReader.read(Files.readAllBytes(input)));
+        }
+
+        List<ScannedClass> classes = new ArrayList<>();
+        try (ZipFile archive = new ZipFile(input.toFile())) {
+            Enumeration<? extends ZipEntry> entries = archive.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                // versioned entries in multi-release jars would shadow the base classes
+                if (entry.isDirectory() || !isClassFile(entry.getName()) || entry.getName().startsWith("META-INF/")) {
+                    continue;
+                }
+
+                try (InputStream inputStream = archive.getInputStream(entry)) {
+                    classes.add(ClassFileReader.read(inputStream.readAllBytes()));
+                }
+            }
+        }
+
+        return classes;
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(CLASS_SUFFIX) && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+
+    private ServiceSpec visitController(ScannedClass controller, BytecodeTypeMapper typeMapper) {
+        Optional<ScannedAnnotation> classLevelRequestMapping = controller.annotations().stream()
+                .filter(annotation -> annotation.kind() == MappingAnnotations.Kind.REQUEST_MAPPING)
+                .findFirst();
+        String rootPath = classLevelRequestMapping
+                .map(mapping -> ControllerVisitor.joinHandlerPath("", mapping.path()))
+                .orElse("");
+        List<String> rootConsumes = classLevelRequestMapping
+                .map(mapping -> mapping.arrayValue("consumes"))
+                .orElse(List.of());
+        List<String> rootProduces = classLevelRequestMapping
+                .map(mapping -> mapping.arrayValue("produces"))
+                .orElse(List.of());
+
+        Map<String, JavaType> classTypeParameters = JavaType.parseTypeParameters(controller.signature());
+        List<APIEndpoint> endpoints = new ArrayList<>();
+        for (ScannedMethod method : controller.methods()) {
+            // bridge methods carry copies of the handler's annotations
+            if ((method.access() & (Opcodes.ACC_BRIDGE | Opcodes.ACC_SYNTHETIC)) != 0) {
+                continue;
+            }
+
+            method.annotations().stream()
+                    .filter(annotation -> annotation.kind().isHandlerMapping())
+                    .findFirst()
+                    .flatMap(mapping -> visitHandler(controller, method, mapping, rootPath, rootConsumes, rootProduces,
+                            classTypeParameters, typeMapper))
+                    .ifPresent(endpoints::add);
+        }
+        endpoints.sort(ControllerVisitor.ENDPOINT_ORDER);
+
+        return new ServiceSpec(controller.simpleName(), endpoints);
+    }
+
+    private Optional<APIEndpoint> visitHandler(ScannedClass controller, ScannedMethod method, ScannedAnnotation mapping,
+                                                      String rootPath, List<String> rootConsumes, List<String> rootProduces,
+                                                      Map<String, JavaType> classTypeParameters,
+                                                      BytecodeTypeMapper typeMapper) {
+        Optional<HttpMethod> httpMethod = switch (mapping.kind()) {
+            case GET_MAPPING -> Optional.of(HttpMethod.GET);
+            case POST_MAPPING -> Optional.of(HttpMethod.POST);
+            case PUT_MAPPING -> Optional.of(HttpMethod.PUT);
+            case PATCH_MAPPING -> Optional.of(HttpMethod.PATCH);
+            case DELETE_MAPPING -> Optional.of(HttpMethod.DELETE);
+            default -> mapping.arrayValue("method").stream().findFirst().flatMap(HttpMethodConverter::getHttpMethod);
+        };
+        if (httpMethod.isEmpty()) {
+            // the processor fails the build here, but a prebuilt jar can't be fixed, so just leave the handler out
+            diagnostics.warning(() -> String.format("handler %s.%s has no HTTP method, skipping it", controller.name(), method.name()));
+            return Optional.empty();
+        }
+
+        JavaType.MethodSignature signature = JavaType.parseMethod(method.descriptor(), method.signature());
+        Map<String, JavaType> typeParameters = new HashMap<>(classTypeParameters);
+        typeParameters.putAll(signature.typeParameters());
+
+        String handlerPath = ControllerVisitor.joinHandlerPath(rootPath, mapping.path());
+        List<TemplateSegment> segments;
+        try {
+            segments = EndpointTemplateParser.tokenize(handlerPath);
+        } catch (IllegalArgumentException e) {
+            // same as above, the processor fails the build on a malformed template
+            diagnostics.warning(() -> String.format("handler %s.%s has a malformed path, skipping it: %s",
+                    controller.name(), method.name(), e.getMessage()));
+            return Optional.empty();
+        }
+
+        Map<String, RequestValue> pathVariables = new TreeMap<>();
+        Map<String, RequestValue> queryVariables = new TreeMap<>();
+        String requestBodyType = null;
+        for (int i = 0; i < signature.parameters().size(); i++) {
+            for (ScannedAnnotation annotation : method.parameterAnnotations().get(i)) {
+                switch (annotation.kind()) {
+                    case PATH_VARIABLE -> pathVariables.put(variableName(annotation, method, i),
+                            requestValue(annotation, signature.parameters().get(i), typeParameters, typeMapper));
+                    case REQUEST_PARAM -> queryVariables.put(variableName(annotation, method, i),
+                            requestValue(annotation, signature.parameters().get(i), typeParameters, typeMapper));
+                    case REQUEST_BODY -> {
+                        if (requestBodyType == null) {
+                            requestBodyType = typeMapper.mapTypeId(signature.parameters().get(i), typeParameters);
+                        }
+                    }
+                    default -> { }
+                }
+            }
+        }
+
+        if (requestBodyType == null) {
+            requestBodyType = typeMapper.mapTypeId(new JavaType(JavaType.Kind.PRIMITIVE, "V", List.of()), typeParameters);
+        }
+        ResponseShape response = typeMapper.mapResponse(signature.returnType(), typeParameters);
+
+        // hints on the handler take precedence over ones on its controller
+        Map<String, Object> cacheHint = annotation(method.annotations(), MappingAnnotations.Kind.CACHE_HINT)
+                .or(() -> annotation(controller.annotations(), MappingAnnotations.Kind.CACHE_HINT))
+                .map(ScannedAnnotation::values)
+                .orElse(null);
+        boolean springCacheable = annotation(method.annotations(), MappingAnnotations.Kind.CACHEABLE).isPresent()
+                || annotation(controller.annotations(), MappingAnnotations.Kind.CACHEABLE).isPresent();
+        CacheHints cacheHints = CacheHintResolver.resolve(httpMethod.get(), response.envelope(), springCacheable, cacheHint);
+
+        return Optional.of(new APIEndpoint(method.name(),
+                EndpointTemplateParser.flatten(segments),
+                segments,
+                httpMethod.get().name(),
+                pathVariables,
+                queryVariables,
+                new RequestValue(requestBodyType, false),
+                response.body(),
+                response.async(),
+                response.elementStream(),
+                response.byteStream(),
+                ControllerVisitor.mediaTypes(mapping.arrayValue("consumes").toArray(String[]::new), rootConsumes),
+                ControllerVisitor.mediaTypes(mapping.arrayValue("produces").toArray(String[]::new), rootProduces),
+                cacheHints));
+    }
+
+    private static Optional<ScannedAnnotation> annotation(List<ScannedAnnotation> annotations, MappingAnnotations.Kind kind) {
+        return annotations.stream()
+                .filter(annotation -> annotation.kind() == kind)
+                .findFirst();
+    }
+
+    private static String variableName(ScannedAnnotation annotation, ScannedMethod method, int parameter) {
+        // name takes precedence over value, and the parameter's name is the fallback
+        String variableName = annotation.stringValue("name");
+        if (variableName.isEmpty()) {
+            variableName = annotation.stringValue("value");
+        }
+
+        if (variableName.isEmpty()) {
+            variableName = method.parameterNames().get(parameter);
+        }
+
+        // without debug info, javac's own names are all we have
+        return variableName != null ? variableName : "arg" + parameter;
+    }
+
+    private static RequestValue requestValue(ScannedAnnotation annotation, JavaType type, Map<String, JavaType> typeParameters,
+                                             BytecodeTypeMapper typeMapper) {
+        return new RequestValue(typeMapper.mapTypeId(type, typeParameters), annotation.booleanValue("required", true));
+    }
+
+    /**
+     * Resolve every entity reachable from the services, the same way {@link com.github.softwaresale.clientspec.EntityResolver}
+     * does. Only classes that were scanned can become entities
+     */
+    private static List<EntitySpec> resolveEntities(List<ServiceSpec> services, Map<String, ScannedClass> classes,
+                                                    DynamicTypeRegistry typeRegistry, BytecodeTypeMapper typeMapper) {
+        Deque<String> worklist = new ArrayDeque<>();
+        for (ServiceSpec service : services) {
+            for (APIEndpoint endpoint : service.endpoints()) {
+                endpoint.pathVariables().values().forEach(value -> worklist.push(value.type()));
+                endpoint.queryVariables().values().forEach(value -> worklist.push(value.type()));
+                worklist.push(endpoint.requestBody().type());
+                worklist.push(endpoint.responseBody().type());
+            }
+        }
+
+        Set<String> visitedTypes = new HashSet<>();
+        SortedMap<String, EntitySpec> entities = new TreeMap<>();
+        while (!worklist.isEmpty()) {
+            String typeId = worklist.pop();
+            if (!visitedTypes.add(typeId)) {
+                continue;
+            }
+
+            DynamicType type = typeRegistry.lookup(typeId).orElse(null);
+            if (type == null) {
+                continue;
+            }
+
+            // generic arguments and array elements may be entities too
+            if (type.nested() != null) {
+                type.nested().stream()
+                        .map(typeRegistry::idOf)
+                        .filter(Objects::nonNull)
+                        .forEach(worklist::push);
+            }
+
+            if (!EntityResolver.hasEntity(type)) {
+                continue;
+            }
+
+            String declaringClass = typeMapper.declaringClass(type.reference());
+            ScannedClass scannedClass = declaringClass == null ? null : classes.get(declaringClass);
+            if (scannedClass == null || !ScannedClass.isEntity(scannedClass.name())) {
+                continue;
+            }
+
+            EntitySpec entity = resolveEntity(scannedClass, classes, typeMapper);
+            entities.putIfAbsent(entity.name(), entity);
+
+            // properties may refer to more entities
+            entity.properties().values().stream()
+                    .map(PropertySpec::type)
+                    .filter(Objects::nonNull)
+                    .forEach(worklist::push);
+        }
+
+        return List.copyOf(entities.values());
+    }
+
+    private static EntitySpec resolveEntity(ScannedClass scannedClass, Map<String, ScannedClass> classes, BytecodeTypeMapper typeMapper) {
+        Map<String, PropertySpec> properties = new LinkedHashMap<>();
+        if (scannedClass.isEnum()) {
+            return new EntitySpec(scannedClass.qualifiedName(), properties, scannedClass.enumConstants());
+        } else if (scannedClass.isRecord()) {
+            Map<String, JavaType> typeParameters = JavaType.parseTypeParameters(scannedClass.signature());
+            for (ScannedMember component : scannedClass.recordComponents()) {
+                addProperty(properties, component, typeParameters, typeMapper);
+            }
+        } else {
+            // walk up the hierarchy so that inherited properties are included. Superclass properties come first
+            Deque<ScannedClass> hierarchy = new ArrayDeque<>();
+            for (ScannedClass current = scannedClass; current != null && ScannedClass.isEntity(current.name());
+                 current = current.superName() == null ? null : classes.get(current.superName())) {
+                hierarchy.push(current);
+            }
+
+            for (ScannedClass current : hierarchy) {
+                addFieldProperties(properties, current, typeMapper);
+            }
+        }
+
+        return new EntitySpec(scannedClass.qualifiedName(), properties);
+    }
+
+    private static void addFieldProperties(Map<String, PropertySpec> properties, ScannedClass scannedClass, BytecodeTypeMapper typeMapper) {
+        Set<String> accessorNames = new HashSet<>();
+        for (ScannedMethod method : scannedClass.methods()) {
+            if ((method.access() & Opcodes.ACC_PUBLIC) != 0 && method.descriptor().startsWith("()")) {
+                accessorNames.add(method.name());
+            }
+        }
+
+        Map<String, JavaType> typeParameters = JavaType.parseTypeParameters(scannedClass.signature());
+        for (ScannedMember field : scannedClass.fields()) {
+            if ((field.access() & (Opcodes.ACC_STATIC | Opcodes.ACC_TRANSIENT | Opcodes.ACC_SYNTHETIC)) != 0) {
+                continue;
+            }
+
+            // only take fields that are visible, either directly or through a getter
+            String capitalized = Character.toUpperCase(field.name().charAt(0)) + field.name().substring(1);
+            boolean visible = (field.access() & Opcodes.ACC_PUBLIC) != 0
+                    || accessorNames.contains("get" + capitalized)
+                    || accessorNames.contains("is" + capitalized);
+
+            if (visible) {
+                addProperty(properties, field, typeParameters, typeMapper);
+            }
+        }
+    }
+
+    private static void addProperty(Map<String, PropertySpec> properties, ScannedMember member, Map<String, JavaType> typeParameters,
+                                    BytecodeTypeMapper typeMapper) {
+        JavaType type = JavaType.parse(member.descriptor(), member.signature());
+        // primitives can never be left out
+        boolean required = type.kind() == JavaType.Kind.PRIMITIVE;
+        properties.put(member.name(), new PropertySpec(typeMapper.mapTypeId(type, typeParameters), required));
+    }
+}
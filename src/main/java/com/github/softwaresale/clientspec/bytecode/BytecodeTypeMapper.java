@@ -0,0 +1,188 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.github.softwaresale.clientspec.DynamicTypeMapper;
+import com.github.softwaresale.clientspec.DynamicTypeRegistry;
+import com.github.softwaresale.clientspec.model.DynamicType;
+import com.github.softwaresale.clientspec.model.DynamicTypeID;
+import com.github.softwaresale.clientspec.model.RequestValue;
+import com.github.softwaresale.clientspec.model.ResponseShape;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps types read from class files into dynamic types, following the same rules as {@link DynamicTypeMapper}.
+ * Every type produced is interned in a shared registry.
+ */
+final class BytecodeTypeMapper {
+
+    private final DynamicTypeRegistry typeRegistry;
+    /** every scanned class, keyed by internal name. Used to tell enums apart */
+    private final Map<String, ScannedClass> classes;
+    /** internal names of the classes declaring user types, keyed by reference name. The first one wins, like in the registry */
+    private final Map<String, String> declaringClasses = new HashMap<>();
+
+    BytecodeTypeMapper(DynamicTypeRegistry typeRegistry, Map<String, ScannedClass> classes) {
+        this.typeRegistry = typeRegistry;
+        this.classes = classes;
+    }
+
+    /**
+     * Map a type and get the ID it is registered under
+     * @param type the type to map
+     * @param typeParameters upper bounds of the type variables in scope
+     * @return the ID of the mapped type
+     */
+    String mapTypeId(JavaType type, Map<String, JavaType> typeParameters) {
+        return typeRegistry.idOf(map(type, typeParameters, new HashSet<>()));
+    }
+
+    /**
+     * Map a handler's return type, peeling off wrappers until the payload is reached
+     * @param returnType the handler's return type
+     * @param typeParameters upper bounds of the type variables in scope
+     * @return the shape of the handler's response
+     */
+    ResponseShape mapResponse(JavaType returnType, Map<String, JavaType> typeParameters) {
+        boolean required = true;
+        boolean envelope = false;
+        boolean async = false;
+        boolean elementStream = false;
+        boolean byteStream = false;
+
+        JavaType payload = returnType;
+        while (payload != null && payload.kind() == JavaType.Kind.CLASS) {
+            DynamicTypeMapper.Wrapper wrapper = DynamicTypeMapper.wellKnownWrapper(ScannedClass.qualifiedName(payload.name()));
+            if (wrapper == null) {
+                break;
+            }
+
+            switch (wrapper) {
+                case OPTIONAL -> required = false;
+                case ENVELOPE -> envelope = true;
+                case ASYNC -> async = true;
+                case ELEMENT_STREAM -> {
+                    async = true;
+                    elementStream = true;
+                }
+                case BYTE_STREAM -> {
+                    async = true;
+                    elementStream = false;
+                    byteStream = true;
+                }
+            }
+
+            payload = payload.arguments().isEmpty() ? null : payload.arguments().get(0);
+        }
+
+        DynamicType payloadType;
+        if (byteStream) {
+            payloadType = bytes();
+        } else if (payload == null) {
+            payloadType = typeRegistry.intern(DynamicType.primitive(DynamicTypeID.ANY));
+        } else {
+            payloadType = map(payload, typeParameters, new HashSet<>());
+        }
+
+        return new ResponseShape(new RequestValue(typeRegistry.idOf(payloadType), required), envelope, async, elementStream, byteStream);
+    }
+
+    /**
+     * @param reference the reference name of a user or generic type
+     * @return the internal name of the class that declares it, or null if it isn't known
+     */
+    String declaringClass(String reference) {
+        return declaringClasses.get(reference);
+    }
+
+    private DynamicType map(JavaType type, Map<String, JavaType> typeParameters, Set<String> visitedVariables) {
+        return switch (type.kind()) {
+            case PRIMITIVE -> typeRegistry.intern(DynamicType.primitive(switch (type.name().charAt(0)) {
+                case 'Z' -> DynamicTypeID.BOOLEAN;
+                case 'B', 'C' -> DynamicTypeID.CHAR;
+                case 'S', 'I', 'J' -> DynamicTypeID.INTEGER;
+                case 'F', 'D' -> DynamicTypeID.FLOAT;
+                default -> DynamicTypeID.VOID;
+            }));
+            case ARRAY -> isByte(type.arguments().get(0))
+                    ? bytes()
+                    : typeRegistry.intern(new DynamicType(DynamicTypeID.ARRAY, "",
+                            List.of(map(type.arguments().get(0), typeParameters, visitedVariables))));
+            case TYPE_VARIABLE -> {
+                // just map the upper bound. Recursive bounds like T extends Comparable<T> stop at the second visit
+                JavaType bound = typeParameters.get(type.name());
+                if (bound == null || !visitedVariables.add(type.name())) {
+                    yield typeRegistry.intern(DynamicType.primitive(DynamicTypeID.ANY));
+                }
+
+                DynamicType mapped = map(bound, typeParameters, visitedVariables);
+                visitedVariables.remove(type.name());
+                yield mapped;
+            }
+            case WILDCARD -> typeRegistry.intern(DynamicType.primitive(DynamicTypeID.ANY));
+            case CLASS -> mapClass(type, typeParameters, visitedVariables);
+        };
+    }
+
+    private DynamicType mapClass(JavaType type, Map<String, JavaType> typeParameters, Set<String> visitedVariables) {
+        String qualifiedName = ScannedClass.qualifiedName(type.name());
+
+        DynamicTypeMapper.Wrapper wrapper = DynamicTypeMapper.wellKnownWrapper(qualifiedName);
+        if (wrapper != null) {
+            if (wrapper == DynamicTypeMapper.Wrapper.BYTE_STREAM) {
+                return bytes();
+            }
+
+            DynamicType payloadType = type.arguments().isEmpty()
+                    ? typeRegistry.intern(DynamicType.primitive(DynamicTypeID.ANY))
+                    : map(type.arguments().get(0), typeParameters, visitedVariables);
+            if (wrapper == DynamicTypeMapper.Wrapper.ELEMENT_STREAM) {
+                return typeRegistry.intern(new DynamicType(DynamicTypeID.ARRAY, "", List.of(payloadType)));
+            }
+
+            return payloadType;
+        }
+
+        ScannedClass scannedClass = classes.get(type.name());
+        if (scannedClass != null && scannedClass.isEnum()) {
+            String reference = qualifiedName;
+            declaringClasses.putIfAbsent(reference, type.name());
+            return typeRegistry.intern(new DynamicType(DynamicTypeID.STRING, reference, List.of()));
+        }
+
+        if (type.arguments().isEmpty()) {
+            DynamicTypeID wellKnownType = DynamicTypeMapper.wellKnownScalar(qualifiedName);
+            if (wellKnownType != null) {
+                return typeRegistry.intern(DynamicType.primitive(wellKnownType));
+            }
+
+            String reference = qualifiedName;
+            declaringClasses.putIfAbsent(reference, type.name());
+            return typeRegistry.intern(new DynamicType(DynamicTypeID.USER, reference, List.of()));
+        }
+
+        List<DynamicType> arguments = type.arguments().stream()
+                .map(argument -> map(argument, typeParameters, visitedVariables))
+                .toList();
+
+        DynamicTypeID sequenceTypeID = DynamicTypeMapper.wellKnownSequence(qualifiedName);
+        if (sequenceTypeID != null) {
+            return typeRegistry.intern(new DynamicType(sequenceTypeID, "", List.of(arguments.get(0))));
+        }
+
+        String reference = qualifiedName;
+        declaringClasses.putIfAbsent(reference, type.name());
+        return typeRegistry.intern(new DynamicType(DynamicTypeID.GENERIC, reference, arguments));
+    }
+
+    private DynamicType bytes() {
+        return typeRegistry.intern(DynamicType.primitive(DynamicTypeID.BINARY));
+    }
+
+    private static boolean isByte(JavaType type) {
+        return type.kind() == JavaType.Kind.PRIMITIVE && type.name().equals("B");
+    }
+}
@@ -0,0 +1,220 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.github.softwaresale.clientspec.MappingAnnotations;
+import org.objectweb.asm.*;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Reads the parts of a class file that a spec needs. Method bodies are skipped, and annotations on methods and
+ * parameters are only kept for controllers, so most classes are read in a single cheap pass.
+ */
+final class ClassFileReader extends ClassVisitor {
+
+    /** controllers compiled without -parameters only have their parameter names in the local variable table */
+    private final boolean readLocalVariables;
+
+    private String name;
+    private int access;
+    private String signature;
+    private String superName;
+    private boolean controller;
+    private final List<ScannedAnnotation> annotations = new ArrayList<>();
+    private final List<ScannedMember> fields = new ArrayList<>();
+    private final List<ScannedMember> recordComponents = new ArrayList<>();
+    private final List<ScannedMethod> methods = new ArrayList<>();
+
+    private ClassFileReader(boolean readLocalVariables) {
+        super(Opcodes.ASM9);
+        this.readLocalVariables = readLocalVariables;
+    }
+
+    /**
+     * Read a class file
+     * @param bytes the contents of the class file
+     * @return the scanned class
+     */
+    static ScannedClass read(byte[] bytes) {
+        ClassReader classReader = new ClassReader(bytes);
+        ScannedClass scannedClass = read(classReader, false);
+        boolean missingNames = scannedClass.methods().stream()
+                .filter(ScannedMethod::isHandler)
+                .anyMatch(method -> !method.hasParameterNames());
+        if (scannedClass.isController() && missingNames) {
+            // only pay for reading method bodies when the names can't be found anywhere else
+            scannedClass = read(classReader, true);
+        }
+
+        return scannedClass;
+    }
+
+    private static ScannedClass read(ClassReader classReader, boolean readLocalVariables) {
+        ClassFileReader reader = new ClassFileReader(readLocalVariables);
+        classReader.accept(reader, readLocalVariables ? ClassReader.SKIP_FRAMES : ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        return new ScannedClass(reader.name, reader.access, reader.signature, reader.superName, reader.annotations,
+                reader.fields, reader.recordComponents, reader.methods);
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        this.name = name;
+        this.access = access;
+        this.signature = signature;
+        this.superName = superName;
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+        // class annotations are always visited before any member, so this is known by the time methods are read
+        if (MappingAnnotations.kindOf(Type.getType(descriptor).getClassName()) == MappingAnnotations.Kind.REST_CONTROLLER) {
+            controller = true;
+        }
+
+        return new AnnotationReader(descriptor, annotations::add);
+    }
+
+    @Override
+    public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+        recordComponents.add(new ScannedMember(name, 0, descriptor, signature));
+        return null;
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+        fields.add(new ScannedMember(name, access, descriptor, signature));
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        int parameterCount = Type.getArgumentTypes(descriptor).length;
+        List<ScannedAnnotation> methodAnnotations = new ArrayList<>();
+        List<List<ScannedAnnotation>> parameterAnnotations = new ArrayList<>(parameterCount);
+        List<String> parameterNames = new ArrayList<>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            parameterAnnotations.add(new ArrayList<>());
+            parameterNames.add(null);
+        }
+
+        methods.add(new ScannedMethod(name, access, descriptor, signature, methodAnnotations, parameterAnnotations, parameterNames));
+        if (!controller) {
+            return null;
+        }
+
+        int[] parameterSlots = parameterSlots(access, descriptor);
+        return new MethodVisitor(Opcodes.ASM9) {
+            private int nextParameter = 0;
+            /** the label at the start of the method body, which is where parameters become live */
+            private Label methodStart;
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                return new AnnotationReader(descriptor, methodAnnotations::add);
+            }
+
+            @Override
+            public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+                if (parameter >= parameterCount) {
+                    return null;
+                }
+
+                return new AnnotationReader(descriptor, parameterAnnotations.get(parameter)::add);
+            }
+
+            @Override
+            public void visitParameter(String name, int access) {
+                // the MethodParameters attribute lists every parameter in order
+                if (nextParameter < parameterCount && name != null) {
+                    parameterNames.set(nextParameter, name);
+                }
+                nextParameter++;
+            }
+
+            @Override
+            public void visitLabel(Label label) {
+                // labels are visited in code order, so the first one is at the start of the method
+                if (methodStart == null) {
+                    methodStart = label;
+                }
+            }
+
+            @Override
+            public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                if (!readLocalVariables || start != methodStart) {
+                    return;
+                }
+
+                // parameters are the locals that are live from the start of the method, in their own slots
+                for (int i = 0; i < parameterSlots.length; i++) {
+                    if (parameterSlots[i] == index && parameterNames.get(i) == null) {
+                        parameterNames.set(i, name);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Figure out the local variable slot of each parameter. Longs and doubles take two slots
+     */
+    private static int[] parameterSlots(int access, String descriptor) {
+        Type[] parameterTypes = Type.getArgumentTypes(descriptor);
+        int[] slots = new int[parameterTypes.length];
+        int slot = (access & Opcodes.ACC_STATIC) != 0 ? 0 : 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            slots[i] = slot;
+            slot += parameterTypes[i].getSize();
+        }
+
+        return slots;
+    }
+
+    /**
+     * Collects the values of an annotation. Nested annotations are not needed, so they are skipped
+     */
+    private static final class AnnotationReader extends AnnotationVisitor {
+
+        private final String descriptor;
+        private final Consumer<ScannedAnnotation> onEnd;
+        private final Map<String, Object> values = new HashMap<>();
+
+        AnnotationReader(String descriptor, Consumer<ScannedAnnotation> onEnd) {
+            super(Opcodes.ASM9);
+            this.descriptor = descriptor;
+            this.onEnd = onEnd;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            values.put(name, value);
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value) {
+            values.put(name, value);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            List<Object> elements = new ArrayList<>();
+            values.put(name, elements);
+            return new AnnotationVisitor(Opcodes.ASM9) {
+                @Override
+                public void visit(String name, Object value) {
+                    elements.add(value);
+                }
+
+                @Override
+                public void visitEnum(String name, String descriptor, String value) {
+                    elements.add(value);
+                }
+            };
+        }
+
+        @Override
+        public void visitEnd() {
+            onEnd.accept(new ScannedAnnotation(descriptor, values));
+        }
+    }
+}
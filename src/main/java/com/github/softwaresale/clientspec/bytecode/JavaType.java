@@ -0,0 +1,222 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A java type parsed from a descriptor or generic signature
+ * @param kind what sort of type this is
+ * @param name the descriptor character of a primitive, the internal name of a class, or the name of a type variable
+ * @param arguments the type arguments of a class, or the component type of an array
+ */
+record JavaType(
+        Kind kind,
+        String name,
+        List<JavaType> arguments
+) {
+
+    enum Kind {
+        PRIMITIVE,
+        CLASS,
+        ARRAY,
+        TYPE_VARIABLE,
+        WILDCARD
+    }
+
+    /**
+     * The types in a method signature
+     * @param typeParameters the upper bound of each of the method's type parameters
+     * @param parameters the type of each parameter
+     * @param returnType the return type
+     */
+    record MethodSignature(Map<String, JavaType> typeParameters, List<JavaType> parameters, JavaType returnType) {
+    }
+
+    /**
+     * Parse the type of a field or record component
+     * @param descriptor the erased type
+     * @param signature the generic type. May be null
+     */
+    static JavaType parse(String descriptor, String signature) {
+        TypeBuilder builder = new TypeBuilder();
+        new SignatureReader(signature != null ? signature : descriptor).acceptType(builder);
+        return builder.build();
+    }
+
+    /**
+     * Parse the type of a method
+     * @param descriptor the erased type
+     * @param signature the generic type. May be null
+     */
+    static MethodSignature parseMethod(String descriptor, String signature) {
+        SignatureBuilder builder = new SignatureBuilder();
+        new SignatureReader(signature != null ? signature : descriptor).accept(builder);
+        MethodSignature methodSignature = builder.buildMethod();
+
+        // signatures leave out synthetic parameters, so fall back to the descriptor if the two disagree
+        if (signature != null && methodSignature.parameters().size() != Type.getArgumentTypes(descriptor).length) {
+            return parseMethod(descriptor, null);
+        }
+
+        return methodSignature;
+    }
+
+    /**
+     * Parse the type parameters of a class
+     * @param signature the generic signature of the class. May be null
+     * @return the upper bound of each type parameter
+     */
+    static Map<String, JavaType> parseTypeParameters(String signature) {
+        if (signature == null) {
+            return Map.of();
+        }
+
+        SignatureBuilder builder = new SignatureBuilder();
+        new SignatureReader(signature).accept(builder);
+        return builder.buildMethod().typeParameters();
+    }
+
+    private static final class TypeBuilder extends SignatureVisitor {
+
+        private Kind kind;
+        private String name;
+        private boolean wildcard;
+        private final List<TypeBuilder> arguments = new ArrayList<>();
+
+        TypeBuilder() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visitBaseType(char descriptor) {
+            kind = Kind.PRIMITIVE;
+            name = String.valueOf(descriptor);
+        }
+
+        @Override
+        public void visitTypeVariable(String name) {
+            kind = Kind.TYPE_VARIABLE;
+            this.name = name;
+        }
+
+        @Override
+        public SignatureVisitor visitArrayType() {
+            kind = Kind.ARRAY;
+            TypeBuilder component = new TypeBuilder();
+            arguments.add(component);
+            return component;
+        }
+
+        @Override
+        public void visitClassType(String name) {
+            kind = Kind.CLASS;
+            this.name = name;
+        }
+
+        @Override
+        public void visitInnerClassType(String name) {
+            // only the innermost class's arguments matter
+            this.name = this.name + "$" + name;
+            arguments.clear();
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            TypeBuilder argument = new TypeBuilder();
+            argument.wildcard = true;
+            arguments.add(argument);
+        }
+
+        @Override
+        public SignatureVisitor visitTypeArgument(char wildcard) {
+            TypeBuilder argument = new TypeBuilder();
+            argument.wildcard = wildcard != SignatureVisitor.INSTANCEOF;
+            arguments.add(argument);
+            return argument;
+        }
+
+        JavaType build() {
+            if (wildcard) {
+                return new JavaType(Kind.WILDCARD, null, List.of());
+            }
+
+            return new JavaType(kind, name, arguments.stream().map(TypeBuilder::build).toList());
+        }
+    }
+
+    private static final class SignatureBuilder extends SignatureVisitor {
+
+        private final Map<String, TypeBuilder> typeParameters = new LinkedHashMap<>();
+        private String currentTypeParameter;
+        private final List<TypeBuilder> parameters = new ArrayList<>();
+        private TypeBuilder returnType;
+
+        SignatureBuilder() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visitFormalTypeParameter(String name) {
+            currentTypeParameter = name;
+        }
+
+        @Override
+        public SignatureVisitor visitClassBound() {
+            return bound();
+        }
+
+        @Override
+        public SignatureVisitor visitInterfaceBound() {
+            return bound();
+        }
+
+        private SignatureVisitor bound() {
+            // only the first bound is used, just like TypeVariable.getUpperBound for a single bound
+            TypeBuilder bound = new TypeBuilder();
+            typeParameters.putIfAbsent(currentTypeParameter, bound);
+            return bound;
+        }
+
+        @Override
+        public SignatureVisitor visitSuperclass() {
+            return new TypeBuilder();
+        }
+
+        @Override
+        public SignatureVisitor visitInterface() {
+            return new TypeBuilder();
+        }
+
+        @Override
+        public SignatureVisitor visitParameterType() {
+            TypeBuilder parameter = new TypeBuilder();
+            parameters.add(parameter);
+            return parameter;
+        }
+
+        @Override
+        public SignatureVisitor visitReturnType() {
+            returnType = new TypeBuilder();
+            return returnType;
+        }
+
+        @Override
+        public SignatureVisitor visitExceptionType() {
+            return new TypeBuilder();
+        }
+
+        MethodSignature buildMethod() {
+            Map<String, JavaType> bounds = new LinkedHashMap<>();
+            typeParameters.forEach((name, bound) -> bounds.put(name, bound.build()));
+            return new MethodSignature(bounds, parameters.stream().map(TypeBuilder::build).toList(),
+                    returnType == null ? null : returnType.build());
+        }
+    }
+}
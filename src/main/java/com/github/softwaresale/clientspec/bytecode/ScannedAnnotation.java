@@ -0,0 +1,64 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.github.softwaresale.clientspec.MappingAnnotations;
+import org.objectweb.asm.Type;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An annotation read from a class file. Only values that were written are present, so defaults have to be
+ * supplied by the reader, just like with annotation mirrors
+ * @param descriptor the descriptor of the annotation type
+ * @param values the annotation's values. Strings and primitives are boxed, enum constants are their name, and
+ *               arrays are lists
+ */
+record ScannedAnnotation(
+        String descriptor,
+        Map<String, Object> values
+) {
+
+    MappingAnnotations.Kind kind() {
+        return MappingAnnotations.kindOf(Type.getType(descriptor).getClassName());
+    }
+
+    String stringValue(String name) {
+        Object value = values.get(name);
+        return value == null ? "" : value.toString();
+    }
+
+    boolean booleanValue(String name, boolean defaultValue) {
+        Object value = values.get(name);
+        return value == null ? defaultValue : (Boolean) value;
+    }
+
+    /**
+     * Get an array attribute. Works for both string and enum arrays
+     * @return the values, or an empty list if it was not set
+     */
+    List<String> arrayValue(String name) {
+        Object value = values.get(name);
+        if (value == null) {
+            return List.of();
+        }
+
+        if (value instanceof List<?> list) {
+            return list.stream().map(Object::toString).toList();
+        }
+
+        return List.of(value.toString());
+    }
+
+    /**
+     * Read the path of a mapping annotation. Path is an alias for value, so take path if it is set
+     * @return the path components
+     */
+    String[] path() {
+        List<String> path = arrayValue("path");
+        if (path.isEmpty()) {
+            path = arrayValue("value");
+        }
+
+        return path.toArray(String[]::new);
+    }
+}
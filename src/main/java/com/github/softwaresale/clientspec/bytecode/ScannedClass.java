@@ -0,0 +1,81 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.github.softwaresale.clientspec.MappingAnnotations;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+
+/**
+ * The parts of a class file that are needed to build a spec
+ * @param name the internal name of the class
+ * @param access the access flags of the class
+ * @param signature the generic signature of the class. Null if it isn't generic
+ * @param superName the internal name of the superclass. Null for {@code java/lang/Object}
+ * @param annotations the annotations on the class
+ * @param fields every field of the class
+ * @param recordComponents the components of a record. Empty for every other class
+ * @param methods every method of the class
+ */
+record ScannedClass(
+        String name,
+        int access,
+        String signature,
+        String superName,
+        List<ScannedAnnotation> annotations,
+        List<ScannedMember> fields,
+        List<ScannedMember> recordComponents,
+        List<ScannedMethod> methods
+) {
+
+    /**
+     * @return the name of the class without its package or enclosing classes
+     */
+    String simpleName() {
+        return simpleName(name);
+    }
+
+    static String simpleName(String internalName) {
+        int start = Math.max(internalName.lastIndexOf('/'), internalName.lastIndexOf('$')) + 1;
+        return internalName.substring(start);
+    }
+
+    /**
+     * @return the name of the class as it appears in source, e.g. {@code com.example.Outer.Inner}
+     */
+    String qualifiedName() {
+        return qualifiedName(name);
+    }
+
+    static String qualifiedName(String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    boolean isEnum() {
+        return (access & Opcodes.ACC_ENUM) != 0;
+    }
+
+    /**
+     * @return the names of the constants of an enum, in declaration order
+     */
+    List<String> enumConstants() {
+        return fields.stream()
+                .filter(field -> (field.access() & Opcodes.ACC_ENUM) != 0)
+                .map(ScannedMember::name)
+                .toList();
+    }
+
+    boolean isRecord() {
+        return (access & Opcodes.ACC_RECORD) != 0;
+    }
+
+    boolean isController() {
+        return annotations.stream().anyMatch(annotation -> annotation.kind() == MappingAnnotations.Kind.REST_CONTROLLER);
+    }
+
+    /**
+     * Platform types are either mapped to scalars or are opaque to clients, so they are never entities
+     */
+    static boolean isEntity(String internalName) {
+        return !internalName.startsWith("java/") && !internalName.startsWith("javax/");
+    }
+}
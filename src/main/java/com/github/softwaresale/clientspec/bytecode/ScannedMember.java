@@ -0,0 +1,16 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+/**
+ * A field or record component read from a class file
+ * @param name the name of the member
+ * @param access the access flags of the member. Always 0 for record components
+ * @param descriptor the erased type of the member
+ * @param signature the generic type of the member. Null if it isn't generic
+ */
+record ScannedMember(
+        String name,
+        int access,
+        String descriptor,
+        String signature
+) {
+}
@@ -0,0 +1,34 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.github.softwaresale.clientspec.MappingAnnotations;
+
+import java.util.List;
+
+/**
+ * A method read from a class file. Annotations are only kept for methods of controllers
+ * @param name the name of the method
+ * @param access the access flags of the method
+ * @param descriptor the erased type of the method
+ * @param signature the generic type of the method. Null if it isn't generic
+ * @param annotations the annotations on the method
+ * @param parameterAnnotations the annotations on each parameter
+ * @param parameterNames the name of each parameter. Entries are null if the class file doesn't record them
+ */
+record ScannedMethod(
+        String name,
+        int access,
+        String descriptor,
+        String signature,
+        List<ScannedAnnotation> annotations,
+        List<List<ScannedAnnotation>> parameterAnnotations,
+        List<String> parameterNames
+) {
+
+    boolean isHandler() {
+        return annotations.stream().anyMatch(annotation -> annotation.kind().isHandlerMapping());
+    }
+
+    boolean hasParameterNames() {
+        return !parameterNames.contains(null);
+    }
+}
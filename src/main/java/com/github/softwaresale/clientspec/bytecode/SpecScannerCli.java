@@ -0,0 +1,85 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.ControllerProcessor;
+import com.github.softwaresale.clientspec.Diagnostics;
+import com.github.softwaresale.clientspec.SpecAggregator;
+import com.github.softwaresale.clientspec.model.APISpec;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command line entry point for {@link BytecodeSpecScanner}.
+ * <pre>
+ *     client-spec [-o output.json] [-n api-name] [-j threads] [-a] inputs...
+ * </pre>
+ * The spec is written to standard out unless an output file is given. With {@code -a}, the specs embedded in the
+ * inputs are merged with {@link SpecAggregator} instead of scanning their classes.
+ */
+public class SpecScannerCli {
+
+    private static final String USAGE = "usage: client-spec [-o output.json] [-n api-name] [-j threads] [-a] <jar|directory|class>...";
+
+    public static void main(String[] args) throws IOException {
+        Path output = null;
+        String name = ControllerProcessor.DEFAULT_API_NAME;
+        boolean aggregate = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o", "--output" -> output = Path.of(argument(args, ++i));
+                case "-n", "--name" -> name = argument(args, ++i);
+                case "-j", "--threads" -> threads = Integer.parseInt(argument(args, ++i));
+                case "-a", "--aggregate" -> aggregate = true;
+                case "-h", "--help" -> {
+                    System.out.println(USAGE);
+                    return;
+                }
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        // there is no compiler to report to, so messages go to standard error
+        Diagnostics diagnostics = new Diagnostics();
+        diagnostics.setSink((kind, element, message) -> System.err.println(kind.name().toLowerCase(Locale.ROOT) + ": " + message));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        APISpec apiSpec = aggregate
+                ? aggregate(name, inputs, objectMapper, diagnostics)
+                : new BytecodeSpecScanner(threads, objectMapper, diagnostics).scan(name, inputs);
+        if (output == null) {
+            objectMapper.writeValue(System.out, apiSpec);
+        } else {
+            objectMapper.writeValue(output.toFile(), apiSpec);
+        }
+    }
+
+    private static APISpec aggregate(String name, List<Path> inputs, ObjectMapper objectMapper, Diagnostics diagnostics) throws IOException {
+        SpecAggregator aggregator = new SpecAggregator(objectMapper);
+        for (Path input : inputs) {
+            aggregator.addPath(input).forEach(conflict -> diagnostics.warning(() -> conflict));
+        }
+
+        return aggregator.build(name);
+    }
+
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        return args[index];
+    }
+}
@@ -1,14 +1,39 @@
 package com.github.softwaresale.clientspec.model;
 
+import java.util.List;
 import java.util.Map;
 
+/**
+ * A single handler of a service
+ * @param name the name of the handler method
+ * @param endpoint the handler's path template
+ * @param segments the path template split into literal and variable segments
+ * @param method the HTTP method
+ * @param pathVariables variables in the path, keyed by name
+ * @param queryVariables query parameters, keyed by name
+ * @param requestBody the request body, or void if there is none
+ * @param responseBody the response body, with wrappers like {@code ResponseEntity} and {@code Flux} removed
+ * @param async if the handler completes asynchronously
+ * @param elementStream if the response is a stream of elements of the response body's type
+ * @param byteStream if the response is a raw stream of bytes
+ * @param consumes the media types of the request body. Empty if the handler accepts any
+ * @param produces the media types of the response body. Empty if the handler didn't declare any
+ * @param cache how clients may cache and retry the handler
+ */
 public record APIEndpoint(
         String name,
         String endpoint,
+        List<TemplateSegment> segments,
         String method,
         Map<String, RequestValue> pathVariables,
         Map<String, RequestValue> queryVariables,
         RequestValue requestBody,
-        RequestValue responseBody
+        RequestValue responseBody,
+        boolean async,
+        boolean elementStream,
+        boolean byteStream,
+        List<String> consumes,
+        List<String> produces,
+        CacheHints cache
 ) {
 }
@@ -1,14 +1,16 @@
 package com.github.softwaresale.clientspec.model;
 
-import org.springframework.http.HttpMethod;
-
 /**
  * Used to represent metadata from a request mapping. Handles aliases for get, post, and so on
  * @param endpoint
  * @param method
+ * @param consumes the media types the handler accepts. Empty if not declared
+ * @param produces the media types the handler responds with. Empty if not declared
  */
 public record APIEndpointMetadata(
         String[] endpoint,
-        HttpMethod method
+        HttpMethod method,
+        String[] consumes,
+        String[] produces
 ) {
 }
@@ -2,20 +2,30 @@ package com.github.softwaresale.clientspec.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * Defines an entire API
  * @param name The name of the API
+ * @param hash content hash of the whole API. Null until the spec has been hashed
+ * @param types every type used by this API, keyed by type ID. Everything else refers to types by their ID
  * @param entities the entities needed to consume this API
  * @param services The services provided by this API
  */
 public record APISpec(
         String name,
+        String hash,
+        SortedMap<String, DynamicType> types,
         List<EntitySpec> entities,
         List<ServiceSpec> services
 ) {
     public APISpec(String name) {
-        this(name, new ArrayList<>(), new ArrayList<>());
+        this(name, null, new TreeMap<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    public void addType(String id, DynamicType type) {
+        types.put(id, type);
     }
 
     public void addEntity(EntitySpec entitySpec) {
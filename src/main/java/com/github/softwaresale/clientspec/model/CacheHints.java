@@ -0,0 +1,18 @@
+package com.github.softwaresale.clientspec.model;
+
+/**
+ * How clients may cache and retry a handler
+ * @param safe if the handler doesn't change anything on the server
+ * @param idempotent if repeating a request has the same effect as making it once, so it can be retried
+ * @param cacheable if responses may be cached
+ * @param maxAge how long a cached response is fresh for, in seconds. Negative if unknown
+ * @param conditional if cached responses should be revalidated with conditional requests
+ */
+public record CacheHints(
+        boolean safe,
+        boolean idempotent,
+        boolean cacheable,
+        long maxAge,
+        boolean conditional
+) {
+}
@@ -2,6 +2,13 @@ package com.github.softwaresale.clientspec.model;
 
 import java.util.List;
 
+/**
+ * A type as clients see it
+ * @param typeID what kind of type this is
+ * @param reference the qualified name of user and generic types, and of enums, which are strings. Empty or null for
+ *                  every other kind
+ * @param nested the element type of arrays, or the type arguments of generic types
+ */
 public record DynamicType(
         DynamicTypeID typeID,
         String reference,
@@ -10,4 +17,13 @@ public record DynamicType(
     public static DynamicType primitive(DynamicTypeID typeID) {
         return new DynamicType(typeID, null, null);
     }
+
+    /**
+     * Types are identified by qualified name, which is too long to show to people or to name generated code after
+     * @param reference the qualified name of a type
+     * @return the name of the type without its package or enclosing classes
+     */
+    public static String displayName(String reference) {
+        return reference.substring(reference.lastIndexOf('.') + 1);
+    }
 }
@@ -10,5 +10,7 @@ public enum DynamicTypeID {
     USER,
     ARRAY,
     GENERIC,
-    ANY
+    ANY,
+    /** raw bytes, like byte[], streams, resources, and uploaded files */
+    BINARY
 }
@@ -1,9 +1,11 @@
 package com.github.softwaresale.clientspec.model;
 
+import java.util.List;
 import java.util.Map;
 
 public record EndpointTemplate(
         String template,
+        List<TemplateSegment> segments,
         Map<String, RequestValue> pathVariables,
         Map<String, RequestValue> queryVariables
 ) {
@@ -0,0 +1,15 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * The part of a sharded API spec that every service shares
+ * @param types every type used by the API, keyed by type ID
+ * @param entities the entities needed to consume the API
+ */
+public record EntityShard(
+        SortedMap<String, DynamicType> types,
+        List<EntitySpec> entities
+) {
+}
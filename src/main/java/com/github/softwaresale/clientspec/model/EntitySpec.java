@@ -1,9 +1,25 @@
 package com.github.softwaresale.clientspec.model;
 
+import java.util.List;
 import java.util.Map;
 
+/**
+ * A type whose shape clients need to know
+ * @param name the qualified name of the type
+ * @param properties the properties of classes and records, keyed by name. Empty for enums
+ * @param values the constants of an enum, in declaration order. Empty for every other type
+ */
 public record EntitySpec(
         String name,
-        Map<String, PropertySpec> properties
+        Map<String, PropertySpec> properties,
+        List<String> values
 ) {
+    public EntitySpec {
+        // specs written before enums were modeled don't have any values
+        values = values == null ? List.of() : values;
+    }
+
+    public EntitySpec(String name, Map<String, PropertySpec> properties) {
+        this(name, properties, List.of());
+    }
 }
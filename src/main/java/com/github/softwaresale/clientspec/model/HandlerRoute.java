@@ -0,0 +1,15 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+
+/**
+ * Where an endpoint's handler is, and what else the route index needs to tell it apart from other handlers
+ * @param handlerIndex the position of the handler among the methods of its controller
+ * @param requestConditions the params and headers a request needs to be routed to the handler, like
+ *                          {@code params:version=2} or {@code headers:X-Api-Version=2}
+ */
+public record HandlerRoute(
+        int handlerIndex,
+        List<String> requestConditions
+) {
+}
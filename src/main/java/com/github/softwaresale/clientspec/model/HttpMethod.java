@@ -0,0 +1,29 @@
+package com.github.softwaresale.clientspec.model;
+
+/**
+ * HTTP methods that a handler can be mapped to
+ */
+public enum HttpMethod {
+    GET,
+    HEAD,
+    POST,
+    PUT,
+    PATCH,
+    DELETE,
+    OPTIONS,
+    TRACE;
+
+    /**
+     * @return if requests with this method don't change anything on the server
+     */
+    public boolean isSafe() {
+        return this == GET || this == HEAD || this == OPTIONS || this == TRACE;
+    }
+
+    /**
+     * @return if repeating a request with this method has the same effect as making it once
+     */
+    public boolean isIdempotent() {
+        return isSafe() || this == PUT || this == DELETE;
+    }
+}
@@ -1,7 +1,12 @@
 package com.github.softwaresale.clientspec.model;
 
+/**
+ * A property of an entity
+ * @param type the ID of this property's type in the API's type table
+ * @param required if this property must be provided
+ */
 public record PropertySpec(
-    DynamicType type,
+    String type,
     boolean required
 ) {
 }
@@ -1,7 +1,12 @@
 package com.github.softwaresale.clientspec.model;
 
+/**
+ * A value that is sent or received as part of a request
+ * @param type the ID of this value's type in the API's type table
+ * @param required if this value must be provided
+ */
 public record RequestValue(
-        DynamicType type,
+        String type,
         boolean required
 ) {
 }
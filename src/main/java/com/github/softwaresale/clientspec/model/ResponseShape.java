@@ -0,0 +1,19 @@
+package com.github.softwaresale.clientspec.model;
+
+/**
+ * What a handler responds with once wrappers like {@code ResponseEntity}, {@code Mono}, and {@code Flux} are
+ * unwrapped
+ * @param body the payload. For element streams this is the type of a single element
+ * @param envelope if the payload is wrapped in something that carries a status and headers, like a ResponseEntity
+ * @param async if the handler completes asynchronously
+ * @param elementStream if the payload is a stream of separately framed elements, like NDJSON or server-sent events
+ * @param byteStream if the payload is written as a raw stream of bytes
+ */
+public record ResponseShape(
+        RequestValue body,
+        boolean envelope,
+        boolean async,
+        boolean elementStream,
+        boolean byteStream
+) {
+}
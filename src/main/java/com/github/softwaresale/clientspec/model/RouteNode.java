@@ -0,0 +1,53 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A single level of the route index. Each node has a child per literal path segment, a child per regex for
+ * constrained variables, at most one child for any other variable segment, at most one child for a catch-all, and
+ * the routes that end at this node keyed by HTTP method. Several routes can share a method as long as their
+ * conditions differ.
+ */
+public class RouteNode {
+
+    /** children for literal segments, keyed by segment */
+    private final SortedMap<String, RouteNode> literals = new TreeMap<>();
+    /** children for constrained variable segments, keyed by the regex they have to match */
+    private final SortedMap<String, RouteNode> constrained = new TreeMap<>();
+    /** child for any variable segment. Null if no route has a variable here */
+    private RouteNode variable;
+    /** child for routes that match the rest of the path. Null if no route has a catch-all here */
+    private RouteNode catchAll;
+    /** the routes that end here, keyed by HTTP method, in the order they were added */
+    private final SortedMap<String, List<RouteTarget>> routes = new TreeMap<>();
+
+    public SortedMap<String, RouteNode> getLiterals() {
+        return literals;
+    }
+
+    public SortedMap<String, RouteNode> getConstrained() {
+        return constrained;
+    }
+
+    public RouteNode getVariable() {
+        return variable;
+    }
+
+    public void setVariable(RouteNode variable) {
+        this.variable = variable;
+    }
+
+    public RouteNode getCatchAll() {
+        return catchAll;
+    }
+
+    public void setCatchAll(RouteNode catchAll) {
+        this.catchAll = catchAll;
+    }
+
+    public SortedMap<String, List<RouteTarget>> getRoutes() {
+        return routes;
+    }
+}
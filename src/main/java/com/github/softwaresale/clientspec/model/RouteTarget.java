@@ -0,0 +1,22 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+
+/**
+ * The endpoint a route resolves to
+ * @param service the name of the service
+ * @param endpoint the name of the endpoint within its service
+ * @param template the endpoint's path template
+ * @param conditions what else a request has to match to be routed here, like {@code consumes:application/json} or
+ *                   {@code params:version=2}. Sorted, and empty if the endpoint takes any request on its path
+ */
+public record RouteTarget(
+        String service,
+        String endpoint,
+        String template,
+        List<String> conditions
+) {
+    public RouteTarget(String service, String endpoint, String template) {
+        this(service, endpoint, template, List.of());
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+
+/**
+ * Everything that changed in a single service. Endpoints are matched by name, so overloaded handlers are added,
+ * removed or changed together
+ * @param name the name of the service
+ * @param addedEndpoints endpoints that did not exist before
+ * @param removedEndpoints names of endpoints that no longer exist
+ * @param changedEndpoints the new version of endpoints that changed
+ */
+public record ServiceDelta(
+        String name,
+        List<APIEndpoint> addedEndpoints,
+        List<String> removedEndpoints,
+        List<APIEndpoint> changedEndpoints
+) {
+}
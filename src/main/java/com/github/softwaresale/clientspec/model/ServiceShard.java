@@ -0,0 +1,16 @@
+package com.github.softwaresale.clientspec.model;
+
+/**
+ * A single service in a sharded API spec
+ * @param name the name of the service
+ * @param file the path of the service's shard, relative to the manifest
+ * @param endpointCount the number of endpoints in the service
+ * @param hash content hash of the service
+ */
+public record ServiceShard(
+        String name,
+        String file,
+        int endpointCount,
+        String hash
+) {
+}
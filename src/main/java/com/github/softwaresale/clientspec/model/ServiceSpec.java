@@ -3,15 +3,30 @@ package com.github.softwaresale.clientspec.model;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * A single controller
+ * @param name the name of the service
+ * @param hash content hash of the service's endpoints. Null until the service has been hashed
+ * @param endpoints the endpoints of the service, sorted by name
+ */
 public record ServiceSpec(
         String name,
+        String hash,
         List<APIEndpoint> endpoints
 ) {
     public ServiceSpec(String name) {
         this(name, new ArrayList<>());
     }
 
+    public ServiceSpec(String name, List<APIEndpoint> endpoints) {
+        this(name, null, endpoints);
+    }
+
     public void addEndpoint(APIEndpoint apiEndpoint) {
         endpoints.add(apiEndpoint);
     }
+
+    public ServiceSpec withHash(String hash) {
+        return new ServiceSpec(name, hash, endpoints);
+    }
 }
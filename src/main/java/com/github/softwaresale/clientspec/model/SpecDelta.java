@@ -0,0 +1,24 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+
+/**
+ * Everything that changed between two versions of an API spec
+ * @param name the name of the API
+ * @param addedServices services that did not exist before
+ * @param removedServices names of services that no longer exist
+ * @param changedServices the changes to services that exist in both versions
+ * @param addedEntities entities that did not exist before
+ * @param removedEntities names of entities that no longer exist
+ * @param changedEntities the new version of entities whose properties changed
+ */
+public record SpecDelta(
+        String name,
+        List<ServiceSpec> addedServices,
+        List<String> removedServices,
+        List<ServiceDelta> changedServices,
+        List<EntitySpec> addedEntities,
+        List<String> removedEntities,
+        List<EntitySpec> changedEntities
+) {
+}
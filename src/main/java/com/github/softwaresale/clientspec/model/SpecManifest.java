@@ -0,0 +1,18 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+
+/**
+ * Index of a sharded API spec. Paths are relative to the manifest
+ * @param name the name of the API
+ * @param hash content hash of the whole API
+ * @param entities the shard holding the type table and every entity, which all services share
+ * @param services a shard per service, sorted by name
+ */
+public record SpecManifest(
+        String name,
+        String hash,
+        String entities,
+        List<ServiceShard> services
+) {
+}
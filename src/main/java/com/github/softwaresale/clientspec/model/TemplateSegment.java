@@ -0,0 +1,42 @@
+package com.github.softwaresale.clientspec.model;
+
+/**
+ * A single piece of an endpoint template. Expanding a template is a matter of appending every segment in order:
+ * literals as-is, and variables with their value.
+ * @param kind what sort of segment this is
+ * @param value the literal text, or the name of the variable. Null for an anonymous catch-all ({@code **})
+ * @param pattern the regex a constrained variable has to match. Null for every other kind
+ */
+public record TemplateSegment(
+        Kind kind,
+        String value,
+        String pattern
+) {
+
+    public enum Kind {
+        /** text that is copied verbatim, including any slashes */
+        LITERAL,
+        /** a variable that matches a single path segment, e.g. {@code {id}} */
+        VARIABLE,
+        /** a variable that has to match a regex, e.g. {@code {id:\d+}} */
+        CONSTRAINED_VARIABLE,
+        /** matches the rest of the path, e.g. {@code {*path}} or {@code **} */
+        CATCH_ALL
+    }
+
+    public static TemplateSegment literal(String text) {
+        return new TemplateSegment(Kind.LITERAL, text, null);
+    }
+
+    public static TemplateSegment variable(String name) {
+        return new TemplateSegment(Kind.VARIABLE, name, null);
+    }
+
+    public static TemplateSegment constrainedVariable(String name, String pattern) {
+        return new TemplateSegment(Kind.CONSTRAINED_VARIABLE, name, pattern);
+    }
+
+    public static TemplateSegment catchAll(String name) {
+        return new TemplateSegment(Kind.CATCH_ALL, name, null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.softwaresale.clientspec.model;
+
+import java.util.List;
+
+/**
+ * A visited controller
+ * @param service the controller's service
+ * @param routes the route of every endpoint, in the same order as the service's endpoints
+ */
+public record VisitedController(
+        ServiceSpec service,
+        List<HandlerRoute> routes
+) {
+}
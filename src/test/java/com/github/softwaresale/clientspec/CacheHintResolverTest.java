@@ -0,0 +1,87 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.CacheHints;
+import com.github.softwaresale.clientspec.model.HttpMethod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheHintResolverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void methodsDecideSafetyAndIdempotency() {
+        assertEquals(new CacheHints(true, true, false, -1, false),
+                CacheHintResolver.resolve(HttpMethod.GET, false, false, null));
+        assertEquals(new CacheHints(false, true, false, -1, false),
+                CacheHintResolver.resolve(HttpMethod.PUT, false, false, null));
+        assertEquals(new CacheHints(false, false, false, -1, false),
+                CacheHintResolver.resolve(HttpMethod.POST, false, false, null));
+    }
+
+    @Test
+    void springCachingAndEnvelopesOnlyApplyToSafeMethods() {
+        assertEquals(new CacheHints(true, true, true, -1, true),
+                CacheHintResolver.resolve(HttpMethod.GET, true, true, null));
+        assertEquals(new CacheHints(false, false, false, -1, false),
+                CacheHintResolver.resolve(HttpMethod.POST, true, true, null));
+    }
+
+    @Test
+    void cacheHintsOverrideWhatIsDerived() {
+        // only written values are passed, so the rest come from the defaults of CacheHint
+        assertEquals(new CacheHints(true, true, true, 60, false),
+                CacheHintResolver.resolve(HttpMethod.GET, false, false, Map.of("maxAge", 60L)));
+        assertEquals(new CacheHints(true, true, false, -1, true),
+                CacheHintResolver.resolve(HttpMethod.GET, false, true, Map.of("cacheable", false, "conditional", true)));
+        assertEquals(new CacheHints(false, true, false, -1, false),
+                CacheHintResolver.resolve(HttpMethod.POST, false, false, Map.of("idempotent", true)));
+    }
+
+    @Test
+    void unsafeHandlersAreNeverCacheable() {
+        assertEquals(new CacheHints(false, false, false, 30, false),
+                CacheHintResolver.resolve(HttpMethod.POST, false, false, Map.of("cacheable", true, "maxAge", 30L)));
+    }
+
+    @Test
+    void cacheableUnsafeHandlersAreReported() throws IOException {
+        TestCompiler.Result result = new TestCompiler(directory)
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import com.github.softwaresale.clientspec.annotation.CacheHint;
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        @CacheHint(maxAge = 60)
+                        public class OrderController {
+
+                            @GetMapping("/orders")
+                            public String findOrders() {
+                                return "";
+                            }
+
+                            @PostMapping("/orders")
+                            @CacheHint(cacheable = true)
+                            public String createOrder() {
+                                return "";
+                            }
+                        }
+                        """)
+                .compile();
+
+        assertTrue(result.success(), result.diagnostics().toString());
+        assertEquals(List.of("POST handlers can't be cacheable, ignoring cacheable on createOrder"),
+                result.messages(Diagnostic.Kind.WARNING));
+    }
+}
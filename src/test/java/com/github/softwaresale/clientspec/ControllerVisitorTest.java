@@ -0,0 +1,62 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ControllerVisitorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void malformedTemplatesAreReportedWithoutSkippingOtherHandlers() throws IOException {
+        TestCompiler.Result result = new TestCompiler(directory)
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        @RequestMapping("/orders")
+                        public class OrderController {
+
+                            @GetMapping("/{id")
+                            public String getOrder() {
+                                return "";
+                            }
+
+                            @GetMapping("/{id}/items/{}")
+                            public String getItem() {
+                                return "";
+                            }
+
+                            @GetMapping
+                            public String findOrders() {
+                                return "";
+                            }
+                        }
+                        """)
+                .compile();
+
+        assertFalse(result.success());
+        List<String> errors = result.messages(Diagnostic.Kind.ERROR);
+        assertEquals(2, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("'/orders/{id'"), errors.get(0));
+        assertTrue(errors.get(1).contains("'/orders/{id}/items/{}'"), errors.get(1));
+
+        JsonNode services = new ObjectMapper().readTree(result.read(ControllerProcessor.API_SPEC_FILE)).get("services");
+        List<String> endpoints = new ArrayList<>();
+        services.get(0).get("endpoints").forEach(endpoint -> endpoints.add(endpoint.get("name").asText()));
+        assertEquals(List.of("findOrders"), endpoints);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.softwaresale.clientspec;
+
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosticsTest {
+
+    private final List<String> messages = new ArrayList<>();
+    private final Diagnostics diagnostics = new Diagnostics();
+
+    DiagnosticsTest() {
+        diagnostics.setSink((kind, element, message) -> messages.add(kind + " " + message));
+    }
+
+    @Test
+    void warningsAndAboveAreReportedByDefault() {
+        diagnostics.error(null, () -> "broken");
+        diagnostics.warning(() -> "odd");
+        diagnostics.info(() -> "progress");
+        diagnostics.debug(() -> "detail");
+
+        assertEquals(List.of("ERROR broken", "WARNING odd"), messages);
+    }
+
+    @Test
+    void infoAndDebugAreReportedAsNotes() {
+        diagnostics.setLevel(Diagnostics.Level.DEBUG);
+        diagnostics.info(() -> "progress");
+        diagnostics.debug(() -> "detail");
+
+        assertEquals(List.of(Diagnostic.Kind.NOTE + " progress", Diagnostic.Kind.NOTE + " detail"), messages);
+    }
+
+    @Test
+    void disabledMessagesAreNotBuilt() {
+        diagnostics.debug(() -> fail("debug message was built"));
+
+        assertTrue(messages.isEmpty());
+    }
+
+    @Test
+    void errorsAreReportedEvenIfDiagnosticsAreOff() {
+        diagnostics.setLevel(Diagnostics.Level.OFF);
+        diagnostics.error(null, () -> "broken");
+        diagnostics.warning(() -> "odd");
+
+        assertEquals(List.of("ERROR broken"), messages);
+    }
+
+    @Test
+    void problemsAreCountedEvenIfNotReported() {
+        diagnostics.setLevel(Diagnostics.Level.OFF);
+        diagnostics.warning(() -> "odd");
+        diagnostics.error(null, () -> "broken");
+        diagnostics.info(() -> "progress");
+
+        assertEquals(2, diagnostics.getProblemCount());
+    }
+
+    @Test
+    void levelsAreParsedInAnyCase() {
+        assertEquals(Diagnostics.Level.DEBUG, Diagnostics.parseLevel(" Debug "));
+        assertEquals(Diagnostics.Level.OFF, Diagnostics.parseLevel("off"));
+        assertNull(Diagnostics.parseLevel("verbose"));
+    }
+}
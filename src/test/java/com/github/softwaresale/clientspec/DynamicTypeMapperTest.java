@@ -0,0 +1,154 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamicTypeMapperTest {
+
+    @TempDir
+    Path directory;
+
+    private JsonNode endpoints;
+
+    @BeforeEach
+    void compile() throws IOException {
+        TestCompiler.Result result = new TestCompiler(directory)
+                .source("demo.Order", "package demo; public record Order(long id) { }")
+                .source("demo.Mono", "package demo; public class Mono<T> { }")
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import java.util.List;
+                        import java.util.Optional;
+                        import java.util.concurrent.CompletableFuture;
+                        import org.springframework.core.io.Resource;
+                        import org.springframework.http.ResponseEntity;
+                        import org.springframework.web.bind.annotation.*;
+                        import org.springframework.web.multipart.MultipartFile;
+                        import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+                        import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+                        import reactor.core.publisher.Flux;
+
+                        @RestController
+                        @RequestMapping(path = "/orders", produces = "application/json")
+                        public class OrderController {
+
+                            @GetMapping("/entity")
+                            public ResponseEntity<Optional<Order>> entity() {
+                                return null;
+                            }
+
+                            @GetMapping("/async")
+                            public CompletableFuture<ResponseEntity<List<Order>>> async() {
+                                return null;
+                            }
+
+                            @GetMapping(path = "/flux", produces = "application/x-ndjson")
+                            public Flux<Order> flux() {
+                                return null;
+                            }
+
+                            @GetMapping(path = "/events", produces = "text/event-stream")
+                            public SseEmitter events() {
+                                return null;
+                            }
+
+                            @GetMapping(path = "/export", produces = "application/octet-stream")
+                            public StreamingResponseBody export() {
+                                return null;
+                            }
+
+                            @GetMapping("/bytes")
+                            public byte[] bytes() {
+                                return null;
+                            }
+
+                            @PostMapping(path = "/upload", consumes = "multipart/form-data")
+                            public Resource upload(@RequestBody MultipartFile file) {
+                                return null;
+                            }
+
+                            @GetMapping("/lookalike")
+                            public Mono<Order> lookalike() {
+                                return null;
+                            }
+                        }
+                        """)
+                .compile();
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        JsonNode spec = new ObjectMapper().readTree(result.read(ControllerProcessor.API_SPEC_FILE));
+        endpoints = spec.get("services").get(0).get("endpoints");
+    }
+
+    @Test
+    void envelopesAndOptionalsAreUnwrapped() {
+        JsonNode entity = endpoint("entity");
+
+        assertEquals("USER:demo.Order", entity.get("responseBody").get("type").asText());
+        assertFalse(entity.get("async").asBoolean());
+        assertFalse(entity.get("elementStream").asBoolean());
+    }
+
+    @Test
+    void asyncResultsAreUnwrappedAndFlagged() {
+        JsonNode async = endpoint("async");
+
+        assertEquals("ARRAY<USER:demo.Order>", async.get("responseBody").get("type").asText());
+        assertTrue(async.get("async").asBoolean());
+    }
+
+    @Test
+    void elementStreamsAreFlaggedWithTheirElementType() {
+        JsonNode flux = endpoint("flux");
+        assertEquals("USER:demo.Order", flux.get("responseBody").get("type").asText());
+        assertTrue(flux.get("elementStream").asBoolean());
+
+        assertTrue(endpoint("events").get("elementStream").asBoolean());
+    }
+
+    @Test
+    void byteStreamsAndBinaryTypesAreBinary() {
+        JsonNode export = endpoint("export");
+        assertEquals("BINARY", export.get("responseBody").get("type").asText());
+        assertTrue(export.get("byteStream").asBoolean());
+
+        assertEquals("BINARY", endpoint("bytes").get("responseBody").get("type").asText());
+        assertEquals("BINARY", endpoint("upload").get("requestBody").get("type").asText());
+        assertEquals("BINARY", endpoint("upload").get("responseBody").get("type").asText());
+    }
+
+    @Test
+    void handlerMediaTypesReplaceTheControllers() {
+        assertEquals("[\"application/json\"]", endpoint("entity").get("produces").toString());
+        assertEquals("[\"application/x-ndjson\"]", endpoint("flux").get("produces").toString());
+        assertEquals("[\"multipart/form-data\"]", endpoint("upload").get("consumes").toString());
+        assertEquals("[]", endpoint("entity").get("consumes").toString());
+    }
+
+    @Test
+    void lookalikeWrappersAreNotUnwrapped() {
+        JsonNode lookalike = endpoint("lookalike");
+
+        assertEquals("GENERIC:demo.Mono<USER:demo.Order>", lookalike.get("responseBody").get("type").asText());
+        assertFalse(lookalike.get("async").asBoolean());
+    }
+
+    private JsonNode endpoint(String name) {
+        for (JsonNode endpoint : endpoints) {
+            if (endpoint.get("name").asText().equals(name)) {
+                return endpoint;
+            }
+        }
+
+        return fail("no endpoint named " + name);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.TemplateSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointTemplateParserTest {
+
+    @Test
+    void literalTemplatesAreASingleSegment() {
+        assertEquals(List.of(TemplateSegment.literal("/orders/latest")), EndpointTemplateParser.tokenize("/orders/latest"));
+        assertEquals(List.of(), EndpointTemplateParser.tokenize(""));
+    }
+
+    @Test
+    void variablesAreSplitOut() {
+        assertEquals(List.of(TemplateSegment.literal("/orders/"), TemplateSegment.variable("id"),
+                        TemplateSegment.literal("/items/"), TemplateSegment.variable("item")),
+                EndpointTemplateParser.tokenize("/orders/{id}/items/{ item }"));
+    }
+
+    @Test
+    void constraintsMayContainBraces() {
+        assertEquals(List.of(TemplateSegment.literal("/zip/"), TemplateSegment.constrainedVariable("code", "\\d{5}")),
+                EndpointTemplateParser.tokenize("/zip/{code:\\d{5}}"));
+    }
+
+    @Test
+    void catchAllsAreNamedOrAnonymous() {
+        assertEquals(List.of(TemplateSegment.literal("/files/"), TemplateSegment.catchAll("path")),
+                EndpointTemplateParser.tokenize("/files/{*path}"));
+        assertEquals(List.of(TemplateSegment.literal("/files/"), TemplateSegment.catchAll(null)),
+                EndpointTemplateParser.tokenize("/files/**"));
+    }
+
+    @Test
+    void doubleStarsInsideASegmentAreLiteral() {
+        assertEquals(List.of(TemplateSegment.literal("/files/a**")), EndpointTemplateParser.tokenize("/files/a**"));
+    }
+
+    @Test
+    void mixedSegmentsKeepTheirText() {
+        assertEquals(List.of(TemplateSegment.literal("/files/"), TemplateSegment.variable("name"),
+                        TemplateSegment.literal(".json")),
+                EndpointTemplateParser.tokenize("/files/{name}.json"));
+    }
+
+    @Test
+    void unclosedVariablesAreRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> EndpointTemplateParser.tokenize("/{bad"));
+        assertTrue(e.getMessage().contains("'/{bad'"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> EndpointTemplateParser.tokenize("/zip/{code:\\d{5}"));
+    }
+
+    @Test
+    void unnamedVariablesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> EndpointTemplateParser.tokenize("/orders/{}"));
+        assertThrows(IllegalArgumentException.class, () -> EndpointTemplateParser.tokenize("/orders/{:\\d+}"));
+        assertThrows(IllegalArgumentException.class, () -> EndpointTemplateParser.tokenize("/orders/{ * }"));
+    }
+
+    @Test
+    void flattenWritesVariablesInDoubleBraces() {
+        assertEquals("/orders/{{id}}/files/**",
+                EndpointTemplateParser.flatten(EndpointTemplateParser.tokenize("/orders/{id:\\d+}/files/**")));
+    }
+}
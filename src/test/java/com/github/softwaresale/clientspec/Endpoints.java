@@ -0,0 +1,91 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.APIEndpoint;
+import com.github.softwaresale.clientspec.model.CacheHints;
+import com.github.softwaresale.clientspec.model.RequestValue;
+import com.github.softwaresale.clientspec.model.TemplateSegment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds endpoints for tests, so that they only spell out what they care about
+ */
+public final class Endpoints {
+
+    /** what an endpoint without a body sends and returns. The same as the ID of the void type */
+    public static final RequestValue NONE = new RequestValue("VOID", false);
+
+    private Endpoints() {
+    }
+
+    /**
+     * Start an endpoint without variables, bodies, media types, or cache hints
+     * @param name the name of the endpoint
+     * @param method the HTTP method
+     * @param path a Spring path template, which is split into segments like the processor does
+     */
+    public static Builder endpoint(String name, String method, String path) {
+        return new Builder(name, method, EndpointTemplateParser.tokenize(path));
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final String method;
+        private final List<TemplateSegment> segments;
+        private final Map<String, RequestValue> pathVariables = new TreeMap<>();
+        private final Map<String, RequestValue> queryVariables = new TreeMap<>();
+        private RequestValue requestBody = NONE;
+        private RequestValue responseBody = NONE;
+        private List<String> consumes = List.of();
+        private List<String> produces = List.of();
+        private CacheHints cache = new CacheHints(false, false, false, -1, false);
+
+        private Builder(String name, String method, List<TemplateSegment> segments) {
+            this.name = name;
+            this.method = method;
+            this.segments = segments;
+        }
+
+        public Builder pathVariable(String name, String type) {
+            pathVariables.put(name, new RequestValue(type, true));
+            return this;
+        }
+
+        public Builder queryVariable(String name, String type, boolean required) {
+            queryVariables.put(name, new RequestValue(type, required));
+            return this;
+        }
+
+        public Builder requestBody(String type) {
+            requestBody = new RequestValue(type, true);
+            return this;
+        }
+
+        public Builder responseBody(String type, boolean required) {
+            responseBody = new RequestValue(type, required);
+            return this;
+        }
+
+        public Builder consumes(String... mediaTypes) {
+            consumes = List.of(mediaTypes);
+            return this;
+        }
+
+        public Builder produces(String... mediaTypes) {
+            produces = List.of(mediaTypes);
+            return this;
+        }
+
+        public Builder cache(CacheHints cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        public APIEndpoint build() {
+            return new APIEndpoint(name, EndpointTemplateParser.flatten(segments), segments, method, pathVariables,
+                    queryVariables, requestBody, responseBody, false, false, false, consumes, produces, cache);
+        }
+    }
+}
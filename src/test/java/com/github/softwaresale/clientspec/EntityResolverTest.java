@@ -0,0 +1,130 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityResolverTest {
+
+    @TempDir
+    Path directory;
+
+    private JsonNode entities;
+
+    @BeforeEach
+    void compile() throws IOException {
+        TestCompiler.Result result = new TestCompiler(directory)
+                .source("demo.Status", "package demo; public enum Status { OPEN, SHIPPED; public String label() { return name(); } }")
+                .source("demo.LineItem", "package demo; public record LineItem(String sku, int quantity, Order order) { }")
+                .source("demo.Entity", """
+                        package demo;
+
+                        public class Entity {
+                            private long id;
+
+                            public long getId() {
+                                return id;
+                            }
+                        }
+                        """)
+                .source("demo.Order", """
+                        package demo;
+
+                        import java.util.List;
+
+                        public class Order extends Entity {
+                            public static final int MAX_ITEMS = 10;
+                            private transient String draft;
+                            private String secret;
+                            private boolean paid;
+                            private Status status;
+                            public List<LineItem> items;
+
+                            public boolean isPaid() {
+                                return paid;
+                            }
+
+                            public Status getStatus() {
+                                return status;
+                            }
+                        }
+                        """)
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        @RequestMapping("/orders")
+                        public class OrderController {
+
+                            @GetMapping("/{id}")
+                            public Order getOrder(@PathVariable long id) {
+                                return null;
+                            }
+                        }
+                        """)
+                .compile();
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        entities = new ObjectMapper().readTree(result.read(ControllerProcessor.API_SPEC_FILE)).get("entities");
+    }
+
+    @Test
+    void entitiesReachableThroughPropertiesAreResolvedOnce() {
+        List<String> names = new ArrayList<>();
+        entities.forEach(entity -> names.add(entity.get("name").asText()));
+
+        assertEquals(List.of("demo.LineItem", "demo.Order", "demo.Status"), names);
+    }
+
+    @Test
+    void classesTakeVisibleFieldsIncludingInheritedOnes() {
+        JsonNode properties = entity("demo.Order").get("properties");
+
+        List<String> names = new ArrayList<>();
+        properties.fieldNames().forEachRemaining(names::add);
+        assertEquals(List.of("id", "paid", "status", "items"), names);
+        assertTrue(properties.get("id").get("required").asBoolean());
+        assertEquals("STRING:demo.Status", properties.get("status").get("type").asText());
+        assertFalse(properties.get("status").get("required").asBoolean());
+        assertEquals("ARRAY<USER:demo.LineItem>", properties.get("items").get("type").asText());
+    }
+
+    @Test
+    void recordsTakeTheirComponents() {
+        JsonNode properties = entity("demo.LineItem").get("properties");
+
+        assertEquals("STRING", properties.get("sku").get("type").asText());
+        assertTrue(properties.get("quantity").get("required").asBoolean());
+        assertEquals("USER:demo.Order", properties.get("order").get("type").asText());
+        assertEquals(3, properties.size());
+    }
+
+    @Test
+    void enumsTakeTheirConstants() {
+        JsonNode status = entity("demo.Status");
+
+        assertEquals(0, status.get("properties").size());
+        assertEquals("[\"OPEN\",\"SHIPPED\"]", status.get("values").toString());
+    }
+
+    private JsonNode entity(String name) {
+        for (JsonNode entity : entities) {
+            if (entity.get("name").asText().equals(name)) {
+                return entity;
+            }
+        }
+
+        return fail("no entity named " + name);
+    }
+}
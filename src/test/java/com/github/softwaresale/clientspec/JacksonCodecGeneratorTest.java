@@ -0,0 +1,122 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JacksonCodecGeneratorTest {
+
+    private static final String ORDER = """
+            {"id":7,"status":"SHIPPED","items":[{"sku":"a-1","quantity":2},{"sku":null,"quantity":0}],\
+            "customer":{"name":"Ada","vip":true},"note":null}""";
+
+    @TempDir
+    Path directory;
+
+    private TestCompiler.Result result;
+
+    @BeforeEach
+    void compile() throws IOException {
+        result = new TestCompiler(directory)
+                .source("demo.Status", "package demo; public enum Status { OPEN, SHIPPED }")
+                .source("demo.LineItem", "package demo; public record LineItem(String sku, int quantity) { }")
+                .source("demo.Order", """
+                        package demo;
+
+                        import java.util.List;
+
+                        public record Order(long id, Status status, List<LineItem> items, Customer customer, String note) { }
+                        """)
+                .source("demo.Customer", """
+                        package demo;
+
+                        public class Customer {
+                            private String name;
+                            private boolean vip;
+
+                            public String getName() {
+                                return name;
+                            }
+
+                            public void setName(String name) {
+                                this.name = name;
+                            }
+
+                            public boolean isVip() {
+                                return vip;
+                            }
+
+                            public void setVip(boolean vip) {
+                                this.vip = vip;
+                            }
+                        }
+                        """)
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        public class OrderController {
+
+                            @PostMapping("/orders")
+                            public Order createOrder(@RequestBody Order order) {
+                                return order;
+                            }
+                        }
+                        """)
+                .compile("-Xlint:all,-processing", "-Aclientspec.jacksonPackage=demo.json");
+        assertTrue(result.success(), result.diagnostics().toString());
+    }
+
+    @Test
+    void generatedCodecsCompileWithoutWarnings() {
+        assertEquals(List.of(), result.messages(Diagnostic.Kind.WARNING));
+        assertEquals(List.of(), result.messages(Diagnostic.Kind.MANDATORY_WARNING));
+    }
+
+    @Test
+    void generatedCodecsMatchJacksonsBeanMapping() throws Exception {
+        try (URLClassLoader classLoader = result.classLoader()) {
+            Class<?> orderType = classLoader.loadClass("demo.Order");
+            ObjectMapper beanMapper = new ObjectMapper();
+            ObjectMapper codecMapper = new ObjectMapper().registerModule(module(classLoader));
+
+            assertEquals("demo.json.OrderSerializer",
+                    codecMapper.getSerializerProviderInstance().findValueSerializer(orderType).getClass().getName());
+
+            Object order = codecMapper.readValue(ORDER, orderType);
+            assertEquals(beanMapper.readTree(ORDER), beanMapper.readTree(codecMapper.writeValueAsString(order)));
+            assertEquals(beanMapper.writeValueAsString(beanMapper.readValue(ORDER, orderType)),
+                    codecMapper.writeValueAsString(order));
+        }
+    }
+
+    @Test
+    void mappersThatRenamePropertiesKeepJacksonsBeanMapping() throws Exception {
+        try (URLClassLoader classLoader = result.classLoader()) {
+            Class<?> orderType = classLoader.loadClass("demo.Order");
+            ObjectMapper snakeCaseMapper = new ObjectMapper()
+                    .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                    .registerModule(module(classLoader));
+
+            assertNotEquals("demo.json.OrderSerializer",
+                    snakeCaseMapper.getSerializerProviderInstance().findValueSerializer(orderType).getClass().getName());
+        }
+    }
+
+    private static Module module(ClassLoader classLoader) throws ReflectiveOperationException {
+        return (Module) classLoader.loadClass("demo.json.EntityJacksonModule").getConstructor().newInstance();
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaClientGeneratorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void generatedClientsCompileWithoutWarnings() throws IOException {
+        TestCompiler.Result result = compile();
+
+        assertTrue(result.success(), result.diagnostics().toString());
+        assertEquals(List.of(), result.messages(Diagnostic.Kind.WARNING));
+        assertEquals(List.of(), result.messages(Diagnostic.Kind.MANDATORY_WARNING));
+    }
+
+    @Test
+    void generatedClientsCallTheService() throws Exception {
+        TestCompiler.Result result = compile();
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        Map<String, String> responses = Map.of(
+                "/api/orders/1", "{\"id\":1,\"note\":\"first\"}",
+                "/api/orders?note=a%20b", "[{\"id\":1,\"note\":\"a b\"}]",
+                "/api/orders/stream", "{\"id\":1,\"note\":null}\n{\"id\":2,\"note\":null}\n");
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String body = responses.get(exchange.getRequestURI().toString());
+            byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(body == null ? 404 : 200, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        });
+        server.start();
+
+        URI baseUri = URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/api/");
+        try (URLClassLoader classLoader = result.classLoader()) {
+            Class<?> clientType = classLoader.loadClass("demo.client.OrderControllerClient");
+            Object client = clientType.getMethod("create", HttpClient.class, URI.class, ObjectMapper.class)
+                    .invoke(null, HttpClient.newHttpClient(), baseUri, new ObjectMapper());
+
+            assertEquals("Order[id=1, note=first]", call(clientType, client, "getOrder", 1L).toString());
+            assertEquals("[Order[id=1, note=a b]]", call(clientType, client, "findOrders", "a b").toString());
+            try (Stream<?> orders = (Stream<?>) call(clientType, client, "stream")) {
+                assertEquals(List.of("Order[id=1, note=null]", "Order[id=2, note=null]"),
+                        orders.map(Object::toString).toList());
+            }
+
+            Throwable error = assertThrows(Exception.class, () -> call(clientType, client, "getOrder", 2L));
+            assertEquals("demo.client.ClientResponseException", error.getClass().getName());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private TestCompiler.Result compile() throws IOException {
+        return new TestCompiler(directory)
+                .source("demo.Order", "package demo; public record Order(long id, String note) { }")
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import java.util.List;
+                        import org.springframework.web.bind.annotation.*;
+                        import reactor.core.publisher.Flux;
+
+                        @RestController
+                        @RequestMapping("/orders")
+                        public class OrderController {
+
+                            @GetMapping("/{id}")
+                            public Order getOrder(@PathVariable long id) {
+                                return null;
+                            }
+
+                            @GetMapping
+                            public List<Order> findOrders(@RequestParam(required = false) String note) {
+                                return null;
+                            }
+
+                            @GetMapping(path = "/stream", produces = "application/x-ndjson")
+                            public Flux<Order> stream() {
+                                return null;
+                            }
+
+                            @PostMapping
+                            public Order createOrder(@RequestBody Order order) {
+                                return order;
+                            }
+
+                            @DeleteMapping("/{id}")
+                            public void deleteOrder(@PathVariable long id) {
+                            }
+                        }
+                        """)
+                .compile("-Xlint:all,-processing", "-Aclientspec.clientPackage=demo.client");
+    }
+
+    /**
+     * Call a client method and wait for its result. Errors the call completed with are rethrown as they are
+     */
+    private static Object call(Class<?> clientType, Object client, String method, Object... arguments) throws Exception {
+        Class<?>[] parameterTypes = Stream.of(arguments).map(Object::getClass).toArray(Class<?>[]::new);
+        try {
+            return ((CompletableFuture<?>) clientType.getMethod(method, parameterTypes).invoke(client, arguments)).join();
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        } catch (CompletionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
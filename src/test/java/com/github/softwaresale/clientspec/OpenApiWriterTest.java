@@ -0,0 +1,66 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.softwaresale.clientspec.Endpoints.endpoint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenApiWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> warnings = new ArrayList<>();
+    private final Diagnostics diagnostics = new Diagnostics();
+    private final DynamicTypeRegistry registry = new DynamicTypeRegistry();
+
+    OpenApiWriterTest() {
+        diagnostics.setSink((kind, element, message) -> warnings.add(message));
+    }
+
+    @Test
+    void operationsOnTheSamePathAreGroupedByMethod() throws IOException {
+        JsonNode document = write(service("OrderController",
+                endpoint("getOrder", "GET", "/orders/{id}").build(),
+                endpoint("deleteOrder", "DELETE", "/orders/{id}").build()));
+
+        JsonNode path = document.get("paths").get("/orders/{id}");
+        assertEquals("getOrder", path.get("get").get("operationId").asText());
+        assertEquals("deleteOrder", path.get("delete").get("operationId").asText());
+        assertTrue(warnings.isEmpty(), warnings.toString());
+    }
+
+    @Test
+    void collidingOperationsAreReported() throws IOException {
+        JsonNode document = write(service("OrderController",
+                endpoint("byNumber", "GET", "/orders/{id:\\d+}").build(),
+                endpoint("byId", "GET", "/orders/{id}").build()));
+
+        assertEquals("byNumber", document.get("paths").get("/orders/{id}").get("get").get("operationId").asText());
+        assertEquals(1, warnings.size());
+        assertEquals("OpenAPI document leaves out OrderController.byId because GET /orders/{id} is already documented "
+                + "by OrderController.byNumber", warnings.get(0));
+    }
+
+    private JsonNode write(ServiceSpec service) throws IOException {
+        APISpec spec = new APISpec("demo");
+        // endpoints without a body refer to the void type
+        registry.intern(DynamicType.primitive(DynamicTypeID.VOID));
+        spec.addService(service);
+        registry.types().forEach(spec::addType);
+
+        StringWriter output = new StringWriter();
+        new OpenApiWriter(objectMapper, diagnostics).write(spec, output);
+        return objectMapper.readTree(output.toString());
+    }
+
+    private static ServiceSpec service(String name, APIEndpoint... endpoints) {
+        return new ServiceSpec(name, List.of(endpoints));
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessorMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void disabledMetricsRecordNothing() {
+        ProcessorMetrics metrics = new ProcessorMetrics();
+
+        metrics.increment(ProcessorMetrics.Counter.CONTROLLERS);
+        metrics.stop(ProcessorMetrics.Phase.PROCESS, metrics.start());
+
+        ProcessorMetrics.MetricsReport report = metrics.report();
+        assertEquals(0, (long) report.counters().get("controllers"));
+        assertEquals(0L, report.phases().get("process").calls());
+    }
+
+    @Test
+    void enabledMetricsCountAndTime() {
+        ProcessorMetrics metrics = new ProcessorMetrics();
+        metrics.setEnabled(true);
+
+        metrics.increment(ProcessorMetrics.Counter.CONTROLLERS);
+        metrics.add(ProcessorMetrics.Counter.ENDPOINTS, 3);
+        metrics.set(ProcessorMetrics.Counter.ENTITIES, 5);
+        metrics.set(ProcessorMetrics.Counter.ENTITIES, 4);
+        metrics.stop(ProcessorMetrics.Phase.VISIT_HANDLER, metrics.start());
+        metrics.stop(ProcessorMetrics.Phase.VISIT_HANDLER, metrics.start());
+
+        ProcessorMetrics.MetricsReport report = metrics.report();
+        assertEquals(1, (long) report.counters().get("controllers"));
+        assertEquals(3, (long) report.counters().get("endpoints"));
+        assertEquals(4, (long) report.counters().get("entities"));
+        assertEquals(2L, report.phases().get("visit_handler").calls());
+        assertTrue(metrics.summary().startsWith("client-spec: 1 controllers, 3 endpoints, 0 types, 4 entities"),
+                metrics.summary());
+    }
+
+    @Test
+    void processorWritesMetricsWhenEnabled() throws IOException {
+        TestCompiler compiler = new TestCompiler(directory)
+                .source("demo.Order", "package demo; public record Order(long id) { }")
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        @RequestMapping("/orders")
+                        public class OrderController {
+
+                            @GetMapping("/{id}")
+                            public Order getOrder(@PathVariable long id) {
+                                return null;
+                            }
+
+                            @DeleteMapping("/{id}")
+                            public void deleteOrder(@PathVariable long id) {
+                            }
+                        }
+                        """);
+        String cacheDir = "-Aclientspec.cacheDir=" + directory.resolve("cache");
+
+        JsonNode first = compileWithMetrics(compiler, cacheDir).get("counters");
+        assertEquals(1, first.get("controllers").asInt());
+        assertEquals(2, first.get("endpoints").asInt());
+        assertEquals(1, first.get("entities").asInt());
+        assertEquals(0, first.get("cache_hits").asInt());
+        assertEquals(1, first.get("cache_misses").asInt());
+
+        JsonNode second = compileWithMetrics(compiler, cacheDir).get("counters");
+        assertEquals(2, second.get("endpoints").asInt());
+        assertEquals(1, second.get("cache_hits").asInt());
+        assertEquals(0, second.get("cache_misses").asInt());
+    }
+
+    private static JsonNode compileWithMetrics(TestCompiler compiler, String cacheDir) throws IOException {
+        TestCompiler.Result result = compiler.compile("-Aclientspec.metrics=true", cacheDir);
+        assertTrue(result.success(), result.diagnostics().toString());
+        assertTrue(result.messages(Diagnostic.Kind.NOTE).stream().anyMatch(note -> note.startsWith("client-spec:")),
+                result.diagnostics().toString());
+
+        return new ObjectMapper().readTree(result.read("api-spec-metrics.json"));
+    }
+}
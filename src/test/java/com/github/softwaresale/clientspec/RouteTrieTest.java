@@ -0,0 +1,101 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.github.softwaresale.clientspec.Endpoints.endpoint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTrieTest {
+
+    private final RouteTrie routeTrie = new RouteTrie();
+
+    @Test
+    void identicalRoutesAreDuplicates() {
+        assertTrue(add("first", "GET", List.of(), List.of(), "/orders").isEmpty());
+
+        Optional<String> conflict = add("second", "GET", List.of(), List.of(), "/orders");
+
+        assertTrue(conflict.orElseThrow().startsWith("duplicate route GET /orders"), conflict.get());
+    }
+
+    @Test
+    void routesThatOnlyDifferByVariableNamesAreAmbiguous() {
+        add("byId", "GET", List.of(), List.of(), "/orders/{id}");
+
+        Optional<String> conflict = add("byKey", "GET", List.of(), List.of(), "/orders/{key}");
+
+        assertTrue(conflict.orElseThrow().startsWith("ambiguous route"), conflict.get());
+    }
+
+    @Test
+    void differentMethodsDoNotConflict() {
+        add("get", "GET", List.of(), List.of(), "/orders");
+
+        assertTrue(add("post", "POST", List.of(), List.of(), "/orders").isEmpty());
+    }
+
+    @Test
+    void differentMediaTypesDoNotConflict() {
+        add("json", "GET", List.of(), List.of("application/json"), "/orders");
+
+        assertTrue(add("xml", "GET", List.of(), List.of("application/xml"), "/orders").isEmpty());
+        assertTrue(add("form", "GET", List.of("application/x-www-form-urlencoded"), List.of("application/json"),
+                "/orders").isEmpty());
+        assertTrue(add("again", "GET", List.of(), List.of("application/json"), "/orders").isPresent());
+    }
+
+    @Test
+    void differentRequestConditionsDoNotConflict() {
+        APIEndpoint v1 = endpoint("v1", "GET", "/orders").build();
+        APIEndpoint v2 = endpoint("v2", "GET", "/orders").build();
+
+        assertTrue(routeTrie.add("OrderController", v1, List.of("params:version=1")).isEmpty());
+        assertTrue(routeTrie.add("OrderController", v2, List.of("params:version=2")).isEmpty());
+        assertTrue(routeTrie.add("OrderController", v2, List.of("params:version=2")).isPresent());
+    }
+
+    @Test
+    void constrainedVariablesDoNotConflictWithPlainOnes() {
+        add("byId", "GET", List.of(), List.of(), "/orders/{id}");
+
+        assertTrue(add("byNumber", "GET", List.of(), List.of(), "/orders/{id:\\d+}").isEmpty());
+    }
+
+    @Test
+    void mixedSegmentsDoNotConflictWithPlainVariables() {
+        add("byId", "GET", List.of(), List.of(), "/files/{id}");
+
+        assertTrue(add("json", "GET", List.of(), List.of(), "/files/{name}.json").isEmpty());
+        assertTrue(add("jsonByKey", "GET", List.of(), List.of(), "/files/{key}.json").isPresent());
+
+        assertEquals("json", routeTrie.resolve("GET", "/files/report.json").orElseThrow().endpoint());
+        assertEquals("byId", routeTrie.resolve("GET", "/files/report.xml").orElseThrow().endpoint());
+    }
+
+    @Test
+    void literalsTakePrecedenceOverVariables() {
+        add("byId", "GET", List.of(), List.of(), "/orders/{id}");
+        add("latest", "GET", List.of(), List.of(), "/orders/latest");
+        add("byNumber", "GET", List.of(), List.of(), "/orders/{id:\\d+}");
+        add("files", "GET", List.of(), List.of(), "/files/{*path}");
+
+        assertEquals("latest", routeTrie.resolve("GET", "/orders/latest").orElseThrow().endpoint());
+        assertEquals("byNumber", routeTrie.resolve("GET", "/orders/42").orElseThrow().endpoint());
+        assertEquals("byId", routeTrie.resolve("GET", "/orders/abc").orElseThrow().endpoint());
+        assertEquals("files", routeTrie.resolve("GET", "/files/a/b/c").orElseThrow().endpoint());
+        assertTrue(routeTrie.resolve("DELETE", "/orders/42").isEmpty());
+        assertTrue(routeTrie.resolve("GET", "/customers").isEmpty());
+    }
+
+    private Optional<String> add(String name, String method, List<String> consumes, List<String> produces, String path) {
+        APIEndpoint endpoint = endpoint(name, method, path)
+                .consumes(consumes.toArray(String[]::new))
+                .produces(produces.toArray(String[]::new))
+                .build();
+        return routeTrie.add("OrderController", endpoint, List.of());
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.softwaresale.clientspec.Endpoints.endpoint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecAggregatorTest {
+
+    private static final DynamicType order = new DynamicType(DynamicTypeID.USER, "demo.Order", List.of());
+    private static final DynamicType page = new DynamicType(DynamicTypeID.GENERIC, "demo.Page", List.of(order));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SpecAggregator aggregator = new SpecAggregator(objectMapper);
+
+    @Test
+    void sharedEntitiesAreOnlyIncludedOnce() throws IOException {
+        assertEquals(List.of(), add(fragment("billing", "BillingController", "INTEGER")));
+        assertEquals(List.of(), add(fragment("shipping", "ShippingController", "INTEGER")));
+
+        APISpec merged = aggregator.build("gateway");
+
+        assertEquals(List.of("demo.Customer", "demo.Order", "demo.Page"),
+                merged.entities().stream().map(EntitySpec::name).toList());
+        assertEquals(List.of("BillingController", "ShippingController"),
+                merged.services().stream().map(ServiceSpec::name).toList());
+        assertEquals("GENERIC:demo.Page<USER:demo.Order>",
+                merged.services().get(0).endpoints().get(0).responseBody().type());
+    }
+
+    @Test
+    void servicesWithTheSameNameArePrefixed() throws IOException {
+        add(fragment("billing", "HealthController", "INTEGER"));
+        add(fragment("shipping-api", "HealthController", "INTEGER"));
+
+        APISpec merged = aggregator.build("gateway");
+
+        assertEquals(List.of("BillingHealthController", "ShippingApiHealthController"),
+                merged.services().stream().map(ServiceSpec::name).toList());
+        for (ServiceSpec service : merged.services()) {
+            assertEquals(SpecHasher.hashService(objectMapper, service), service.hash());
+        }
+    }
+
+    @Test
+    void conflictingEntitiesAreNamespacedByApiName() throws IOException {
+        add(fragment("billing", "BillingController", "INTEGER"));
+        List<String> conflicts = add(fragment("shipping", "ShippingController", "STRING"));
+
+        APISpec merged = aggregator.build("gateway");
+
+        assertEquals(1, conflicts.size());
+        assertTrue(conflicts.get(0).contains("demo.Order"), conflicts.get(0));
+        assertEquals(List.of("billing.demo.Customer", "billing.demo.Order", "demo.Page", "shipping.demo.Customer",
+                        "shipping.demo.Order"),
+                merged.entities().stream().map(EntitySpec::name).toList());
+        assertEquals("STRING", merged.entities().get(4).properties().get("id").type());
+        assertFalse(merged.types().containsKey("USER:demo.Order"));
+        assertEquals(new DynamicType(DynamicTypeID.USER, "shipping.demo.Order", List.of()),
+                merged.types().get("USER:shipping.demo.Order"));
+    }
+
+    @Test
+    void sharedEntitiesThatReferToNamespacedOnesAreNamespaced() throws IOException {
+        add(fragment("billing", "BillingController", "INTEGER"));
+        add(fragment("shipping", "ShippingController", "STRING"));
+
+        APISpec merged = aggregator.build("gateway");
+
+        Map<String, EntitySpec> entities = new HashMap<>();
+        merged.entities().forEach(entity -> entities.put(entity.name(), entity));
+        assertEquals("USER:billing.demo.Order", entities.get("billing.demo.Customer").properties().get("order").type());
+        assertEquals("USER:shipping.demo.Order", entities.get("shipping.demo.Customer").properties().get("order").type());
+        assertFalse(entities.containsKey("demo.Customer"));
+    }
+
+    @Test
+    void referencesToNamespacedEntitiesAreUpdated() throws IOException {
+        add(fragment("billing", "BillingController", "INTEGER"));
+        add(fragment("shipping", "ShippingController", "STRING"));
+
+        APISpec merged = aggregator.build("gateway");
+
+        APIEndpoint billing = merged.services().get(0).endpoints().get(0);
+        APIEndpoint shipping = merged.services().get(1).endpoints().get(0);
+        assertEquals("GENERIC:demo.Page<USER:billing.demo.Order>", billing.responseBody().type());
+        assertEquals("USER:billing.demo.Order", billing.requestBody().type());
+        assertEquals("GENERIC:demo.Page<USER:shipping.demo.Order>", shipping.responseBody().type());
+        assertTrue(merged.types().containsKey(shipping.responseBody().type()));
+        for (ServiceSpec service : merged.services()) {
+            assertEquals(SpecHasher.hashService(objectMapper, service), service.hash());
+        }
+    }
+
+    @Test
+    void fragmentsWithTheSameApiNameAreNumbered() throws IOException {
+        add(fragment("service", "HealthController", "INTEGER"));
+        add(fragment("service", "HealthController", "STRING"));
+
+        APISpec merged = aggregator.build("gateway");
+
+        assertEquals(List.of("Service1HealthController", "Service2HealthController"),
+                merged.services().stream().map(ServiceSpec::name).toList());
+        assertEquals(List.of("demo.Page", "service-1.demo.Customer", "service-1.demo.Order", "service-2.demo.Customer",
+                        "service-2.demo.Order"),
+                merged.entities().stream().map(EntitySpec::name).toList());
+    }
+
+    @Test
+    void numberedApiNamesSkipTakenNames() throws IOException {
+        add(fragment("service", "BillingController", "INTEGER"));
+        add(fragment("service-1", "ShippingController", "STRING"));
+        add(fragment("service", "StockController", "BOOLEAN"));
+
+        APISpec merged = aggregator.build("gateway");
+
+        assertEquals(List.of("demo.Page", "service-1.demo.Customer", "service-1.demo.Order", "service-2.demo.Customer",
+                        "service-2.demo.Order", "service-3.demo.Customer", "service-3.demo.Order"),
+                merged.entities().stream().map(EntitySpec::name).toList());
+    }
+
+    @Test
+    void namespacedNamesThatAreTakenAreRejected() throws IOException {
+        add(fragment("billing", "BillingController", "INTEGER"));
+        add(fragment("shipping", "ShippingController", "STRING"));
+        APISpec taken = new APISpec("other");
+        taken.addEntity(new EntitySpec("billing.demo.Order", Map.of()));
+        add(taken);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> aggregator.build("gateway"));
+        assertTrue(e.getMessage().contains("billing.demo.Order"), e.getMessage());
+    }
+
+    private List<String> add(APISpec fragment) throws IOException {
+        return aggregator.add(new ByteArrayInputStream(objectMapper.writeValueAsBytes(fragment)), fragment.name());
+    }
+
+    private APISpec fragment(String apiName, String serviceName, String orderIdType) {
+        DynamicTypeRegistry registry = new DynamicTypeRegistry();
+        String orderType = registry.idOf(order);
+        String pageType = registry.idOf(page);
+        String integerType = registry.idOf(DynamicType.primitive(DynamicTypeID.INTEGER));
+        registry.idOf(DynamicType.primitive(DynamicTypeID.valueOf(orderIdType)));
+
+        APISpec fragment = new APISpec(apiName);
+        fragment.addEntity(new EntitySpec("demo.Order", Map.of("id", new PropertySpec(orderIdType, true))));
+        fragment.addEntity(new EntitySpec("demo.Page", Map.of("size", new PropertySpec(integerType, true))));
+        fragment.addEntity(new EntitySpec("demo.Customer", Map.of("order", new PropertySpec(orderType, false))));
+        fragment.addService(new ServiceSpec(serviceName, List.of(endpoint("orders", "POST", "/orders")
+                .requestBody(orderType)
+                .responseBody(pageType, true)
+                .build())));
+        registry.types().forEach(fragment::addType);
+        return fragment;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.softwaresale.clientspec;
+
+import com.github.softwaresale.clientspec.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecDeltaBuilderTest {
+
+    @Test
+    void identicalSpecsHaveNoDelta() {
+        APISpec previous = spec(service("OrderController", endpoint("getOrder", "/orders/{id}")),
+                entity("demo.Order", "INTEGER"));
+        SpecDeltaBuilder builder = new SpecDeltaBuilder(previous);
+
+        builder.compareService(service("OrderController", endpoint("getOrder", "/orders/{id}")));
+        builder.compareEntities(List.of(entity("demo.Order", "INTEGER")));
+        SpecDelta delta = builder.build();
+
+        assertEquals(new SpecDelta("demo", List.of(), List.of(), List.of(), List.of(), List.of(), List.of()), delta);
+    }
+
+    @Test
+    void everythingIsAddedToAnEmptySpec() {
+        SpecDeltaBuilder builder = new SpecDeltaBuilder(new APISpec("demo"));
+        ServiceSpec orders = service("OrderController", endpoint("getOrder", "/orders/{id}"));
+        EntitySpec order = entity("demo.Order", "INTEGER");
+
+        builder.compareService(orders);
+        builder.compareEntities(List.of(order));
+        SpecDelta delta = builder.build();
+
+        assertEquals(List.of(orders), delta.addedServices());
+        assertEquals(List.of(order), delta.addedEntities());
+        assertTrue(delta.removedServices().isEmpty());
+        assertTrue(delta.changedServices().isEmpty());
+    }
+
+    @Test
+    void servicesAndEntitiesThatWereNotSeenAreRemoved() {
+        APISpec previous = spec(service("OrderController", endpoint("getOrder", "/orders/{id}")),
+                entity("demo.Order", "INTEGER"));
+        previous.addService(service("AdminController", endpoint("reset", "/admin/reset")));
+        previous.addEntity(entity("demo.Audit", "STRING"));
+        SpecDeltaBuilder builder = new SpecDeltaBuilder(previous);
+
+        builder.compareService(service("OrderController", endpoint("getOrder", "/orders/{id}")));
+        builder.compareEntities(List.of(entity("demo.Order", "INTEGER")));
+        SpecDelta delta = builder.build();
+
+        assertEquals(List.of("AdminController"), delta.removedServices());
+        assertEquals(List.of("demo.Audit"), delta.removedEntities());
+    }
+
+    @Test
+    void changedServicesListTheirEndpointChanges() {
+        APISpec previous = spec(service("OrderController",
+                        endpoint("getOrder", "/orders/{id}"), endpoint("deleteOrder", "/orders/{id}")),
+                entity("demo.Order", "INTEGER"));
+        SpecDeltaBuilder builder = new SpecDeltaBuilder(previous);
+        APIEndpoint changed = endpoint("getOrder", "/v2/orders/{id}");
+        APIEndpoint added = endpoint("listOrders", "/orders");
+
+        builder.compareService(service("OrderController", changed, added));
+        builder.compareEntities(List.of(entity("demo.Order", "STRING")));
+        SpecDelta delta = builder.build();
+
+        assertEquals(List.of(new ServiceDelta("OrderController", List.of(added), List.of("deleteOrder"), List.of(changed))),
+                delta.changedServices());
+        assertEquals(List.of(entity("demo.Order", "STRING")), delta.changedEntities());
+        assertTrue(delta.addedServices().isEmpty());
+    }
+
+    @Test
+    void overloadsChangeTogether() {
+        APISpec previous = spec(service("OrderController",
+                        endpoint("find", "/orders"), endpoint("find", "/orders/{id}")),
+                entity("demo.Order", "INTEGER"));
+        SpecDeltaBuilder builder = new SpecDeltaBuilder(previous);
+        APIEndpoint first = endpoint("find", "/orders");
+        APIEndpoint second = endpoint("find", "/orders/{key}");
+
+        builder.compareService(service("OrderController", first, second));
+        SpecDelta delta = builder.build();
+
+        assertEquals(List.of(first, second), delta.changedServices().get(0).changedEndpoints());
+    }
+
+    private static APISpec spec(ServiceSpec service, EntitySpec entity) {
+        APISpec spec = new APISpec("demo");
+        spec.addService(service);
+        spec.addEntity(entity);
+        return spec;
+    }
+
+    private static ServiceSpec service(String name, APIEndpoint... endpoints) {
+        return new ServiceSpec(name, List.of(endpoints));
+    }
+
+    private static EntitySpec entity(String name, String idType) {
+        return new EntitySpec(name, Map.of("id", new PropertySpec(idType, true)));
+    }
+
+    private static APIEndpoint endpoint(String name, String path) {
+        return Endpoints.endpoint(name, "GET", path).build();
+    }
+}
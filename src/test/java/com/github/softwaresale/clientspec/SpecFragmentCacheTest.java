@@ -0,0 +1,79 @@
+package com.github.softwaresale.clientspec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecFragmentCacheTest {
+
+    private static final String ORDER_CONTROLLER = """
+            package demo;
+
+            import org.springframework.web.bind.annotation.*;
+
+            @RestController
+            @RequestMapping("/orders")
+            public class OrderController {
+
+                @GetMapping("/{id}")
+                public Order getOrder(@PathVariable long id) {
+                    return null;
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void changedTypesInvalidateCachedFragments() throws IOException {
+        Path cache = directory.resolve("cache");
+        TestCompiler compiler = new TestCompiler(directory)
+                .source("demo.Order", "package demo; public record Order(long id) { }")
+                .source("demo.OrderController", ORDER_CONTROLLER);
+
+        TestCompiler.Result first = compiler.compile("-Aclientspec.cacheDir=" + cache);
+        assertTrue(first.success(), first.diagnostics().toString());
+        assertTrue(Files.exists(cache.resolve("demo.OrderController.json")));
+        assertFalse(first.read(ControllerProcessor.API_SPEC_FILE).contains("\"total\""));
+
+        compiler.source("demo.Order", "package demo; public record Order(long id, double total) { }");
+        TestCompiler.Result second = compiler.compile("-Aclientspec.cacheDir=" + cache);
+        assertTrue(second.success(), second.diagnostics().toString());
+        assertTrue(second.read(ControllerProcessor.API_SPEC_FILE).contains("\"total\""));
+    }
+
+    @Test
+    void controllersThatReportedProblemsAreNotCached() throws IOException {
+        Path cache = directory.resolve("cache");
+        TestCompiler compiler = new TestCompiler(directory)
+                .source("demo.BrokenController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        public class BrokenController {
+
+                            @GetMapping("/orders/{id")
+                            public String getOrder() {
+                                return "";
+                            }
+                        }
+                        """);
+
+        TestCompiler.Result first = compiler.compile("-Aclientspec.cacheDir=" + cache);
+        assertFalse(first.success());
+        assertFalse(Files.exists(cache.resolve("demo.BrokenController.json")));
+
+        TestCompiler.Result second = compiler.compile("-Aclientspec.cacheDir=" + cache);
+        assertFalse(second.success());
+        assertEquals(first.messages(Diagnostic.Kind.ERROR), second.messages(Diagnostic.Kind.ERROR));
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static com.github.softwaresale.clientspec.Endpoints.endpoint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecHasherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void equalServicesHaveEqualHashes() {
+        String hash = SpecHasher.hashService(objectMapper, service("OrderController", "/orders"));
+
+        assertEquals(hash, SpecHasher.hashService(objectMapper, service("OrderController", "/orders")));
+        assertEquals(64, hash.length());
+        assertNotEquals(hash, SpecHasher.hashService(objectMapper, service("OrderController", "/v2/orders")));
+        assertNotEquals(hash, SpecHasher.hashService(objectMapper, service("InvoiceController", "/orders")));
+    }
+
+    @Test
+    void existingServiceHashesAreIgnored() {
+        ServiceSpec service = service("OrderController", "/orders");
+
+        assertEquals(SpecHasher.hashService(objectMapper, service),
+                SpecHasher.hashService(objectMapper, service.withHash("stale")));
+    }
+
+    @Test
+    void specHashesDoNotDependOnServiceOrder() {
+        String hash = SpecHasher.hashSpec(objectMapper, "demo", List.of("a", "b"), types(), entities());
+
+        assertEquals(hash, SpecHasher.hashSpec(objectMapper, "demo", List.of("b", "a"), types(), entities()));
+    }
+
+    @Test
+    void specHashesCoverEveryPart() {
+        String hash = SpecHasher.hashSpec(objectMapper, "demo", List.of("a", "b"), types(), entities());
+
+        assertNotEquals(hash, SpecHasher.hashSpec(objectMapper, "other", List.of("a", "b"), types(), entities()));
+        assertNotEquals(hash, SpecHasher.hashSpec(objectMapper, "demo", List.of("a", "c"), types(), entities()));
+        assertNotEquals(hash, SpecHasher.hashSpec(objectMapper, "demo", List.of("ab"), types(), entities()));
+        assertNotEquals(hash, SpecHasher.hashSpec(objectMapper, "demo", List.of("a", "b"), new TreeMap<>(), entities()));
+        assertNotEquals(hash, SpecHasher.hashSpec(objectMapper, "demo", List.of("a", "b"), types(), List.of()));
+    }
+
+    private static SortedMap<String, DynamicType> types() {
+        DynamicTypeRegistry registry = new DynamicTypeRegistry();
+        registry.intern(DynamicType.primitive(DynamicTypeID.INTEGER));
+        registry.intern(new DynamicType(DynamicTypeID.USER, "demo.Order", List.of()));
+        return registry.types();
+    }
+
+    private static List<EntitySpec> entities() {
+        return List.of(new EntitySpec("demo.Order", Map.of("id", new PropertySpec("INTEGER", true))));
+    }
+
+    private static ServiceSpec service(String name, String path) {
+        return new ServiceSpec(name, List.of(endpoint("list", "GET", path).build()));
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.softwaresale.clientspec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingSpecWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void streamedSpecMatchesTheTreeSpec() throws IOException {
+        TestCompiler compiler = new TestCompiler(directory)
+                .source("demo.Order", "package demo; public record Order(long id, java.util.List<Item> items) { }")
+                .source("demo.Item", "package demo; public record Item(String sku, int quantity) { }")
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        @RequestMapping("/orders")
+                        public class OrderController {
+
+                            @GetMapping("/{id}")
+                            public Order getOrder(@PathVariable long id) {
+                                return null;
+                            }
+
+                            @PostMapping
+                            public Order createOrder(@RequestBody Order order) {
+                                return order;
+                            }
+                        }
+                        """)
+                .source("demo.ItemController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        public class ItemController {
+
+                            @GetMapping("/items")
+                            public java.util.List<Item> findItems(@RequestParam(required = false) String sku) {
+                                return null;
+                            }
+                        }
+                        """);
+
+        TestCompiler.Result tree = compiler.compile();
+        assertTrue(tree.success(), tree.diagnostics().toString());
+        TestCompiler.Result streamed = compiler.compile("-Aclientspec.streaming=true");
+        assertTrue(streamed.success(), streamed.diagnostics().toString());
+
+        JsonNode treeSpec = objectMapper.readTree(tree.read(ControllerProcessor.API_SPEC_FILE));
+        JsonNode streamedSpec = objectMapper.readTree(streamed.read(ControllerProcessor.API_SPEC_FILE));
+        assertEquals(2, treeSpec.get("services").size());
+        // streamed services are in the order they were visited, so only the order may differ
+        assertEquals(sortServices(treeSpec), sortServices(streamedSpec));
+    }
+
+    private static JsonNode sortServices(JsonNode spec) {
+        List<JsonNode> services = new ArrayList<>();
+        spec.get("services").forEach(services::add);
+        services.sort(Comparator.comparing(service -> service.get("name").asText()));
+
+        ObjectNode sorted = spec.deepCopy();
+        ArrayNode sortedServices = sorted.putArray("services");
+        services.forEach(sortedServices::add);
+        return sorted;
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.softwaresale.clientspec;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the processor over sources in tests, the same way javac does in a build. Sources are kept on disk, so they
+ * can be changed between compilations to test incremental behavior. Every compilation gets fresh output directories
+ */
+public final class TestCompiler {
+
+    /**
+     * The outcome of a compilation
+     * @param success if javac reported no errors
+     * @param diagnostics everything javac and the processor reported
+     * @param sourceOutput where generated sources and resources went
+     * @param classOutput where classes went
+     */
+    public record Result(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Path sourceOutput, Path classOutput) {
+
+        public List<String> messages(Diagnostic.Kind kind) {
+            return diagnostics.stream()
+                    .filter(diagnostic -> diagnostic.getKind() == kind)
+                    .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+                    .toList();
+        }
+
+        /**
+         * @param file the path of a generated file, relative to the source output
+         * @return the file's content
+         */
+        public String read(String file) throws IOException {
+            return Files.readString(sourceOutput.resolve(file));
+        }
+
+        /**
+         * @return a class loader for the compiled classes, which shares everything else with the tests
+         */
+        public URLClassLoader classLoader() throws IOException {
+            return new URLClassLoader(new URL[] { classOutput.toUri().toURL() }, TestCompiler.class.getClassLoader());
+        }
+    }
+
+    private final Path directory;
+    private final Path sourceDirectory;
+    private int compilations;
+
+    /**
+     * @param directory an empty directory to keep sources and outputs in
+     */
+    public TestCompiler(Path directory) {
+        this.directory = directory;
+        this.sourceDirectory = directory.resolve("src");
+    }
+
+    /**
+     * Add or replace a source file
+     * @param qualifiedName the qualified name of the file's top level class
+     * @param source the file's content
+     */
+    public TestCompiler source(String qualifiedName, String source) throws IOException {
+        Path file = sourceDirectory.resolve(qualifiedName.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+        return this;
+    }
+
+    /**
+     * Compile every source with the processor
+     * @param options extra javac options, like {@code -Aclientspec.cacheDir=...}
+     */
+    public Result compile(String... options) throws IOException {
+        compilations++;
+        Path sourceOutput = Files.createDirectories(directory.resolve("generated-" + compilations));
+        Path classOutput = Files.createDirectories(directory.resolve("classes-" + compilations));
+
+        List<Path> sources;
+        try (var files = Files.walk(sourceDirectory)) {
+            sources = files.filter(file -> file.toString().endsWith(".java")).toList();
+        }
+
+        List<String> arguments = new ArrayList<>(List.of("-classpath", System.getProperty("java.class.path"),
+                "-parameters", "-s", sourceOutput.toString(), "-d", classOutput.toString()));
+        arguments.addAll(List.of(options));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, arguments, null,
+                    fileManager.getJavaFileObjectsFromPaths(sources));
+            task.setProcessors(List.of(new ControllerProcessor()));
+            boolean success = task.call();
+            return new Result(success, diagnostics.getDiagnostics(), sourceOutput, classOutput);
+        }
+    }
+}
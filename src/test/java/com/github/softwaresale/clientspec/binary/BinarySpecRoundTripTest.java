@@ -0,0 +1,130 @@
+package com.github.softwaresale.clientspec.binary;
+
+import com.github.softwaresale.clientspec.DynamicTypeRegistry;
+import com.github.softwaresale.clientspec.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static com.github.softwaresale.clientspec.Endpoints.endpoint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySpecRoundTripTest {
+
+    private final DynamicTypeRegistry registry = new DynamicTypeRegistry();
+
+    // endpoints without a body refer to the void type
+    private final String voidType = registry.idOf(DynamicType.primitive(DynamicTypeID.VOID));
+    private final String stringType = registry.idOf(DynamicType.primitive(DynamicTypeID.STRING));
+    private final String integerType = registry.idOf(DynamicType.primitive(DynamicTypeID.INTEGER));
+    private final String statusType = registry.idOf(new DynamicType(DynamicTypeID.STRING, "demo.Status", List.of()));
+    private final String orderType = registry.idOf(new DynamicType(DynamicTypeID.USER, "demo.Order", List.of()));
+    private final String ordersType = registry.idOf(new DynamicType(DynamicTypeID.ARRAY, "",
+            List.of(new DynamicType(DynamicTypeID.USER, "demo.Order", List.of()))));
+
+    @Test
+    void readAllReturnsWhatWasWritten() throws IOException {
+        APISpec spec = spec();
+
+        APISpec read = reader(spec).readAll();
+
+        assertEquals(spec.name(), read.name());
+        assertEquals(spec.types(), read.types());
+        assertEquals(spec.entities(), read.entities());
+        assertEquals(spec.services(), read.services());
+    }
+
+    @Test
+    void hashesRoundTrip() throws IOException {
+        APISpec spec = spec();
+        List<ServiceSpec> hashedServices = spec.services().stream()
+                .map(service -> service.withHash(service.name().toLowerCase()))
+                .toList();
+        APISpec hashedSpec = new APISpec(spec.name(), "spec-hash", spec.types(), spec.entities(), hashedServices);
+
+        APISpec read = reader(hashedSpec).readAll();
+
+        assertEquals("spec-hash", read.hash());
+        assertEquals(hashedServices, read.services());
+        assertNull(reader(spec).hash());
+    }
+
+    @Test
+    void servicesAreFoundByName() throws IOException {
+        APISpec spec = spec();
+        BinarySpecReader reader = reader(spec);
+
+        assertEquals(2, reader.serviceCount());
+        assertEquals(Optional.of(spec.services().get(1)), reader.service("StatusController"));
+        assertTrue(reader.service("MissingController").isEmpty());
+        assertTrue(reader.findService("A").isEmpty());
+        assertTrue(reader.findService("Z").isEmpty());
+    }
+
+    @Test
+    void endpointsAreDecodedIndividually() throws IOException {
+        APISpec spec = spec();
+        BinarySpecReader reader = reader(spec);
+        int serviceIndex = reader.findService("OrderController").orElseThrow();
+
+        assertEquals(2, reader.endpointCount(serviceIndex));
+        assertEquals(spec.services().get(0).endpoints().get(1), reader.endpoint(serviceIndex, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.endpoint(serviceIndex, 2));
+    }
+
+    @Test
+    void emptySpecRoundTrips() throws IOException {
+        APISpec read = reader(new APISpec("empty")).readAll();
+
+        assertEquals("empty", read.name());
+        assertTrue(read.types().isEmpty());
+        assertTrue(read.entities().isEmpty());
+        assertTrue(read.services().isEmpty());
+    }
+
+    private BinarySpecReader reader(APISpec spec) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BinarySpecWriter().write(spec, output);
+        return new BinarySpecReader(ByteBuffer.wrap(output.toByteArray()));
+    }
+
+    private APISpec spec() {
+        APISpec spec = new APISpec("demo");
+
+        Map<String, PropertySpec> orderProperties = new LinkedHashMap<>();
+        orderProperties.put("id", new PropertySpec(integerType, true));
+        orderProperties.put("status", new PropertySpec(statusType, false));
+        spec.addEntity(new EntitySpec("demo.Order", orderProperties));
+        spec.addEntity(new EntitySpec("demo.Status", Map.of(), List.of("OPEN", "CLOSED")));
+
+        spec.addService(new ServiceSpec("OrderController", List.of(
+                endpoint("getOrder", "GET", "/orders/{id}")
+                        .pathVariable("id", integerType)
+                        .responseBody(orderType, true)
+                        .produces("application/json")
+                        .cache(new CacheHints(true, true, true, 60, true))
+                        .build(),
+                endpoint("listOrders", "GET", "/orders")
+                        .queryVariable("status", statusType, false)
+                        .responseBody(ordersType, true)
+                        .cache(new CacheHints(true, true, false, -1, false))
+                        .build()
+        )));
+        spec.addService(new ServiceSpec("StatusController", List.of(
+                endpoint("setStatus", "PUT", "/orders/{id:\\d+}/{*rest}")
+                        .pathVariable("id", integerType)
+                        .requestBody(statusType)
+                        .responseBody(stringType, false)
+                        .consumes("application/json", "text/plain")
+                        .produces("text/plain")
+                        .cache(new CacheHints(false, true, false, -1, false))
+                        .build()
+        )));
+
+        registry.types().forEach(spec::addType);
+        return spec;
+    }
+}
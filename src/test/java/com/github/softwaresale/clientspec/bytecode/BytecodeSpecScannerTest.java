@@ -0,0 +1,153 @@
+package com.github.softwaresale.clientspec.bytecode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.softwaresale.clientspec.ControllerProcessor;
+import com.github.softwaresale.clientspec.Diagnostics;
+import com.github.softwaresale.clientspec.TestCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BytecodeSpecScannerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> warnings = new ArrayList<>();
+    private final Diagnostics diagnostics = new Diagnostics();
+
+    @TempDir
+    Path directory;
+
+    BytecodeSpecScannerTest() {
+        diagnostics.setSink((kind, element, message) -> warnings.add(message));
+    }
+
+    @Test
+    void scannedSpecMatchesTheProcessorSpec() throws IOException {
+        TestCompiler.Result result = new TestCompiler(directory)
+                .source("demo.Status", "package demo; public enum Status { OPEN, SHIPPED }")
+                .source("demo.LineItem", "package demo; public record LineItem(String sku, int quantity) { }")
+                .source("demo.Page", "package demo; public record Page<T>(java.util.List<T> content, long total) { }")
+                .source("demo.Order", """
+                        package demo;
+
+                        import java.util.List;
+                        import java.util.Map;
+
+                        public class Order {
+                            private long id;
+                            private Status status;
+                            public List<LineItem> items;
+                            public Map<String, String> labels;
+
+                            public long getId() {
+                                return id;
+                            }
+
+                            public Status getStatus() {
+                                return status;
+                            }
+                        }
+                        """)
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        @RequestMapping(path = "/orders", produces = "application/json")
+                        public class OrderController {
+
+                            @GetMapping("/{id}")
+                            public Order getOrder(@PathVariable long id) {
+                                return null;
+                            }
+
+                            @GetMapping
+                            public Page<Order> findOrders(@RequestParam(required = false) Status status,
+                                                          @RequestParam int page) {
+                                return null;
+                            }
+
+                            @PostMapping(consumes = "application/json")
+                            public Order createOrder(@RequestBody Order order) {
+                                return order;
+                            }
+
+                            @DeleteMapping("/{id}/items/{sku}")
+                            public void removeItem(@PathVariable("id") long orderId, @PathVariable String sku) {
+                            }
+                        }
+                        """)
+                .source("demo.StatusController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        public class StatusController {
+
+                            @GetMapping("/statuses")
+                            public Status[] statuses() {
+                                return Status.values();
+                            }
+                        }
+                        """)
+                .compile();
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        JsonNode processed = objectMapper.readTree(result.read(ControllerProcessor.API_SPEC_FILE));
+        JsonNode scanned = scan(2, result.classOutput());
+
+        assertEquals(processed, scanned);
+        assertTrue(warnings.isEmpty(), warnings.toString());
+    }
+
+    @Test
+    void handlersWithMalformedPathsAreSkipped() throws IOException {
+        TestCompiler.Result result = new TestCompiler(directory)
+                .source("demo.OrderController", """
+                        package demo;
+
+                        import org.springframework.web.bind.annotation.*;
+
+                        @RestController
+                        public class OrderController {
+
+                            @GetMapping("/orders/{id")
+                            public String getOrder() {
+                                return "";
+                            }
+
+                            @GetMapping("/orders")
+                            public String findOrders() {
+                                return "";
+                            }
+                        }
+                        """)
+                .compile("-proc:none");
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        JsonNode scanned = scan(1, result.classOutput());
+
+        JsonNode endpoints = scanned.get("services").get(0).get("endpoints");
+        assertEquals(1, endpoints.size());
+        assertEquals("findOrders", endpoints.get(0).get("name").asText());
+        assertEquals(1, warnings.size(), warnings.toString());
+        assertTrue(warnings.get(0).contains("OrderController.getOrder"), warnings.get(0));
+    }
+
+    /**
+     * Scan the classes and read the spec back the way the processor's spec is read, so that they can be compared
+     */
+    private JsonNode scan(int parallelism, Path classes) throws IOException {
+        return objectMapper.readTree(objectMapper.writeValueAsString(new BytecodeSpecScanner(parallelism, objectMapper, diagnostics)
+                .scan(ControllerProcessor.DEFAULT_API_NAME, List.of(classes))));
+    }
+}